@@ -0,0 +1,66 @@
+#!/usr/bin/env bash
+# Measures the time from launching the app to its first served request.
+#
+# Usage: scripts/startup-benchmark.sh [runs]
+#
+# Needs MySQL and Redis reachable with the settings of application.properties,
+# e.g. "docker compose up -d mysqldb redis" with db.host and redis.host pointing at localhost.
+# Builds the jar twice and compares a plain "java -jar" launch with the fast-startup mode
+# (AOT-processed bean definitions, CDS archive, selective lazy initialization).
+set -euo pipefail
+
+RUNS=${1:-5}
+PORT=${PORT:-8080}
+URL="http://localhost:${PORT}/"
+JAR=target/demo-0.0.1-SNAPSHOT.jar
+WORK_DIR=$(mktemp -d)
+trap 'rm -rf "$WORK_DIR"' EXIT
+
+now_millis() {
+    date +%s%3N
+}
+
+# Starts the given command, waits for the first successful response and prints the elapsed milliseconds.
+time_to_first_request() {
+    local start pid
+    start=$(now_millis)
+    "$@" --server.port="$PORT" > "$WORK_DIR/app.log" 2>&1 &
+    pid=$!
+    until curl -sf -o /dev/null "$URL"; do
+        if ! kill -0 "$pid" 2>/dev/null; then
+            echo "The application exited during startup, see the log below." >&2
+            cat "$WORK_DIR/app.log" >&2
+            exit 1
+        fi
+        sleep 0.05
+    done
+    echo $(( $(now_millis) - start ))
+    kill "$pid"
+    wait "$pid" 2>/dev/null || true
+}
+
+median() {
+    sort -n | awk '{ values[NR] = $1 } END { print (NR % 2) ? values[(NR + 1) / 2] : int((values[NR / 2] + values[NR / 2 + 1]) / 2) }'
+}
+
+benchmark() {
+    local name=$1
+    shift
+    local results=()
+    for ((i = 1; i <= RUNS; i++)); do
+        results+=("$(time_to_first_request "$@")")
+    done
+    printf '%-14s median %6s ms   runs: %s\n' "$name" "$(printf '%s\n' "${results[@]}" | median)" "${results[*]}"
+}
+
+mvn -B -q clean package -Dmaven.test.skip=true
+cp "$JAR" "$WORK_DIR/plain.jar"
+benchmark "plain" java -jar "$WORK_DIR/plain.jar"
+
+mvn -B -q clean package -Pfast-startup -Dmaven.test.skip=true
+mkdir -p "$WORK_DIR/fast"
+(cd "$WORK_DIR/fast" && jar -xf "$OLDPWD/$JAR" && echo "-cp BOOT-INF/classes:$(ls BOOT-INF/lib/*.jar | sort | paste -sd: -)" > classpath.args)
+FAST_LAUNCH=(java "@classpath.args" -Dspring.aot.enabled=true -Dspring.profiles.active=fast-startup)
+(cd "$WORK_DIR/fast" && "${FAST_LAUNCH[@]}",training -XX:ArchiveClassesAtExit=app.jsa com.example.demo.DemoApplication > /dev/null)
+cd "$WORK_DIR/fast"
+benchmark "fast-startup" "${FAST_LAUNCH[@]}" -XX:SharedArchiveFile=app.jsa -Xshare:auto com.example.demo.DemoApplication
@@ -0,0 +1,146 @@
+package com.example.demo.caches;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Circuit breaker around Redis calls, by default those of the cache. After a number of consecutive failures the circuit opens and every call
+ * goes straight to its fallback. Once the open duration has passed, one trial call is let through:
+ * success closes the circuit, failure opens it again.
+ */
+public class CacheCircuitBreaker {
+
+    private static final Logger LOG = LoggerFactory.getLogger(CacheCircuitBreaker.class);
+
+    public enum State {
+        CLOSED,
+        OPEN,
+        HALF_OPEN
+    }
+
+    private final String name;
+    private final int failureThreshold;
+    private final long openDurationNanos;
+    private final AtomicInteger consecutiveFailures = new AtomicInteger();
+    private final AtomicBoolean trialInFlight = new AtomicBoolean();
+    private final List<Runnable> closeListeners = new CopyOnWriteArrayList<>();
+
+    private final Counter successes;
+    private final Counter failures;
+    private final Counter rejections;
+
+    private volatile State state = State.CLOSED;
+    private volatile long openedAt;
+
+    public CacheCircuitBreaker(int failureThreshold, Duration openDuration, MeterRegistry meterRegistry) {
+        this("Redis cache", "cache.redis", failureThreshold, openDuration, meterRegistry);
+    }
+
+    /**
+     * Creates a breaker for other Redis calls, logged under the given name and measured under the given meter prefix.
+     */
+    public CacheCircuitBreaker(String name, String meterPrefix, int failureThreshold, Duration openDuration,
+                               MeterRegistry meterRegistry) {
+        this.name = name;
+        this.failureThreshold = Math.max(1, failureThreshold);
+        this.openDurationNanos = openDuration.toNanos();
+        this.successes = Counter.builder(meterPrefix + ".circuit.calls")
+                .tag("result", "success")
+                .register(meterRegistry);
+        this.failures = Counter.builder(meterPrefix + ".circuit.calls")
+                .tag("result", "failure")
+                .register(meterRegistry);
+        this.rejections = Counter.builder(meterPrefix + ".circuit.calls")
+                .tag("result", "rejected")
+                .description("Calls answered by the fallback because the circuit was open")
+                .register(meterRegistry);
+        Gauge.builder(meterPrefix + ".circuit.state", this, breaker -> breaker.state.ordinal())
+                .description("0 closed, 1 open, 2 half-open")
+                .register(meterRegistry);
+    }
+
+    public State getState() {
+        return state;
+    }
+
+    /**
+     * Registers an action run on the calling thread each time the circuit closes again.
+     */
+    public void onClose(Runnable listener) {
+        closeListeners.add(listener);
+    }
+
+    public <T> T call(Supplier<T> action, Supplier<T> fallback) {
+        boolean trial = false;
+        if (state != State.CLOSED) {
+            trial = tryStartTrial();
+            if (!trial) {
+                rejections.increment();
+                return fallback.get();
+            }
+        }
+        T result;
+        try {
+            result = action.get();
+        } catch (RuntimeException e) {
+            recordFailure(trial, e);
+            return fallback.get();
+        }
+        recordSuccess(trial);
+        return result;
+    }
+
+    public void run(Runnable action, Runnable fallback) {
+        call(() -> {
+            action.run();
+            return null;
+        }, () -> {
+            fallback.run();
+            return null;
+        });
+    }
+
+    private boolean tryStartTrial() {
+        if (state == State.OPEN && System.nanoTime() - openedAt >= openDurationNanos) {
+            state = State.HALF_OPEN;
+        }
+        return state == State.HALF_OPEN && trialInFlight.compareAndSet(false, true);
+    }
+
+    private void recordSuccess(boolean trial) {
+        successes.increment();
+        consecutiveFailures.set(0);
+        if (trial) {
+            state = State.CLOSED;
+            trialInFlight.set(false);
+            LOG.info("{} circuit is closed again.", name);
+            for (Runnable listener : closeListeners) {
+                listener.run();
+            }
+        }
+    }
+
+    private void recordFailure(boolean trial, RuntimeException e) {
+        failures.increment();
+        if (trial || consecutiveFailures.incrementAndGet() >= failureThreshold) {
+            if (state != State.OPEN) {
+                LOG.warn("{} circuit is open, calls go to the fallback: {}", name, e.getMessage());
+            }
+            openedAt = System.nanoTime();
+            state = State.OPEN;
+            trialInFlight.set(false);
+        } else {
+            LOG.debug("{} call failed: {}", name, e.getMessage());
+        }
+    }
+}
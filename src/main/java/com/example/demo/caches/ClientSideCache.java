@@ -0,0 +1,296 @@
+package com.example.demo.caches;
+
+import com.example.demo.configs.CacheProperties;
+import io.lettuce.core.ClientOptions;
+import io.lettuce.core.RedisChannelHandler;
+import io.lettuce.core.RedisClient;
+import io.lettuce.core.RedisConnectionStateListener;
+import io.lettuce.core.RedisURI;
+import io.lettuce.core.TrackingArgs;
+import io.lettuce.core.api.StatefulRedisConnection;
+import io.lettuce.core.api.push.PushMessage;
+import io.lettuce.core.codec.ByteArrayCodec;
+import io.lettuce.core.protocol.ProtocolVersion;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.redis.cache.RedisCacheConfiguration;
+
+import java.net.SocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Server-assisted client-side caching. A dedicated RESP3 connection turns on {@code CLIENT TRACKING} in broadcast mode
+ * for the key prefixes of the configured caches, so Redis pushes an invalidation whenever any client changes such a key.
+ * Values read from Redis are kept in memory until then, and are served without a round trip.
+ * While the tracking connection is down nothing is served locally, and everything held is dropped,
+ * since invalidations may have been missed.
+ */
+public class ClientSideCache implements AutoCloseable {
+
+    private static final Logger LOG = LoggerFactory.getLogger(ClientSideCache.class);
+    private static final String INVALIDATE = "invalidate";
+    private static final long CLOSE_TIMEOUT_SECONDS = 5;
+
+    private final boolean enabled;
+    private final RedisURI redisUri;
+    private final Set<String> cacheNames;
+    private final String[] prefixes;
+    private final int maxEntries;
+    private final long retryIntervalMillis;
+
+    private final Map<ByteBuffer, byte[]> values = new ConcurrentHashMap<>();
+    private final AtomicLong generation = new AtomicLong();
+    private volatile boolean tracking;
+    private volatile boolean closed;
+
+    private volatile RedisClient client;
+    private volatile StatefulRedisConnection<byte[], byte[]> connection;
+    private ScheduledExecutorService scheduler;
+
+    private final MeterRegistry meterRegistry;
+    private final Map<String, Counter> hits = new ConcurrentHashMap<>();
+    private final Map<String, Counter> misses = new ConcurrentHashMap<>();
+    private final Counter invalidations;
+
+    public ClientSideCache(CacheProperties.ClientSide clientSide,
+                           RedisURI redisUri,
+                           RedisCacheConfiguration cacheConfiguration,
+                           MeterRegistry meterRegistry) {
+        this.enabled = clientSide.isEnabled();
+        this.redisUri = redisUri;
+        this.cacheNames = Set.copyOf(clientSide.getCaches());
+        this.prefixes = cacheNames.stream()
+                .map(cacheConfiguration::getKeyPrefixFor)
+                .toArray(String[]::new);
+        this.maxEntries = clientSide.getMaxEntries();
+        this.retryIntervalMillis = clientSide.getRetryInterval().toMillis();
+        this.meterRegistry = meterRegistry;
+        this.invalidations = Counter.builder("cache.client.side.invalidations")
+                .description("Keys invalidated by Redis tracking messages")
+                .register(meterRegistry);
+        Gauge.builder("cache.client.side.size", values, Map::size)
+                .description("Values currently held by the client-side cache")
+                .register(meterRegistry);
+        Gauge.builder("cache.client.side.tracking", this, cache -> cache.isTracking() ? 1 : 0)
+                .description("Whether Redis currently tracks the keys held locally")
+                .register(meterRegistry);
+    }
+
+    public static ClientSideCache disabled(RedisCacheConfiguration cacheConfiguration, MeterRegistry meterRegistry) {
+        return new ClientSideCache(new CacheProperties.ClientSide(), null, cacheConfiguration, meterRegistry);
+    }
+
+    /**
+     * Opens the tracking connection. If Redis is unreachable, the attempt is repeated in the background,
+     * and values are only kept locally once tracking is on.
+     */
+    public void start() {
+        if (!enabled || closed) {
+            return;
+        }
+        scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "redis-client-side-cache");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.execute(this::connect);
+    }
+
+    public boolean isTracking() {
+        return tracking;
+    }
+
+    /**
+     * Returns the number of invalidations seen so far. A value read from Redis is only kept if none happened
+     * between taking this number and storing the value, so an invalidation racing the read cannot be lost.
+     */
+    public long generation() {
+        return generation.get();
+    }
+
+    /**
+     * Returns the local value of the key, or {@code null} if it is not held locally.
+     */
+    public byte[] get(String name, byte[] key) {
+        if (!tracking || !cacheNames.contains(name)) {
+            return null;
+        }
+        byte[] value = values.get(ByteBuffer.wrap(key));
+        counter(value != null ? hits : misses, name, value != null ? "hit" : "miss").increment();
+        return value;
+    }
+
+    /**
+     * Keeps a value read from Redis, unless the key was invalidated since {@link #generation()} returned the given number.
+     */
+    public void put(String name, byte[] key, byte[] value, long readGeneration) {
+        if (!tracking || value == null || maxEntries <= 0 || !cacheNames.contains(name)) {
+            return;
+        }
+        ByteBuffer cacheKey = ByteBuffer.wrap(key);
+        if (values.size() >= maxEntries && !values.containsKey(cacheKey)) {
+            Iterator<ByteBuffer> iterator = values.keySet().iterator();
+            if (iterator.hasNext()) {
+                iterator.next();
+                iterator.remove();
+            }
+        }
+        values.put(cacheKey, value);
+        if (generation.get() != readGeneration) {
+            values.remove(cacheKey, value);
+        }
+    }
+
+    /**
+     * Drops the local value of a key this instance is about to write. Redis also reports the write,
+     * but dropping it right away keeps this instance from reading its old value in the meantime.
+     */
+    public void invalidate(String name, byte[] key) {
+        if (cacheNames.contains(name)) {
+            generation.incrementAndGet();
+            values.remove(ByteBuffer.wrap(key));
+        }
+    }
+
+    public void invalidateAll(String name) {
+        if (cacheNames.contains(name)) {
+            generation.incrementAndGet();
+            values.clear();
+        }
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        stopTracking();
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+            try {
+                scheduler.awaitTermination(CLOSE_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        if (connection != null) {
+            connection.close();
+        }
+        if (client != null) {
+            client.shutdown();
+        }
+    }
+
+    private void connect() {
+        if (closed) {
+            return;
+        }
+        try {
+            if (client == null) {
+                client = createClient();
+            }
+            StatefulRedisConnection<byte[], byte[]> newConnection = client.connect(ByteArrayCodec.INSTANCE);
+            newConnection.addListener(this::onPushMessage);
+            connection = newConnection;
+            enableTracking();
+        } catch (RuntimeException e) {
+            LOG.warn("Could not open the Redis tracking connection, retrying in {} ms: {}", retryIntervalMillis, e.getMessage());
+            retry(this::connect);
+        }
+    }
+
+    private RedisClient createClient() {
+        RedisClient redisClient = RedisClient.create(redisUri);
+        redisClient.setOptions(ClientOptions.builder()
+                .protocolVersion(ProtocolVersion.RESP3)
+                .autoReconnect(true)
+                .build());
+        redisClient.addListener(new RedisConnectionStateListener() {
+            @Override
+            public void onRedisConnected(RedisChannelHandler<?, ?> channel, SocketAddress socketAddress) {
+                // Tracking belongs to the server-side client, so a reconnected channel has to ask for it again.
+                if (connection != null && !closed) {
+                    scheduler.execute(ClientSideCache.this::enableTracking);
+                }
+            }
+
+            @Override
+            public void onRedisDisconnected(RedisChannelHandler<?, ?> channel) {
+                stopTracking();
+            }
+        });
+        return redisClient;
+    }
+
+    private void enableTracking() {
+        StatefulRedisConnection<byte[], byte[]> current = connection;
+        if (closed || current == null || !current.isOpen()) {
+            return;
+        }
+        try {
+            current.sync().clientTracking(TrackingArgs.Builder.enabled().bcast().prefixes(StandardCharsets.UTF_8, prefixes));
+            generation.incrementAndGet();
+            tracking = true;
+            LOG.info("Redis tracks keys with prefixes {} for the client-side cache", (Object) prefixes);
+        } catch (RuntimeException e) {
+            LOG.warn("Could not enable Redis client tracking, retrying in {} ms: {}", retryIntervalMillis, e.getMessage());
+            retry(this::enableTracking);
+        }
+    }
+
+    private void retry(Runnable action) {
+        if (!closed) {
+            scheduler.schedule(action, retryIntervalMillis, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private void stopTracking() {
+        tracking = false;
+        generation.incrementAndGet();
+        values.clear();
+    }
+
+    private void onPushMessage(PushMessage message) {
+        if (!INVALIDATE.equals(message.getType())) {
+            return;
+        }
+        generation.incrementAndGet();
+        List<Object> content = message.getContent(ClientSideCache::toBytes);
+        if (content.size() < 2 || !(content.get(1) instanceof List<?> keys)) {
+            // A missing key list means the whole database was flushed.
+            values.clear();
+            return;
+        }
+        for (Object key : keys) {
+            if (key instanceof byte[] bytes) {
+                values.remove(ByteBuffer.wrap(bytes));
+                invalidations.increment();
+            }
+        }
+    }
+
+    private Counter counter(Map<String, Counter> counters, String name, String result) {
+        return counters.computeIfAbsent(name, cacheName -> Counter.builder("cache.client.side.requests")
+                .tag("cache", cacheName)
+                .tag("result", result)
+                .description("Cache reads looked up in the client-side cache")
+                .register(meterRegistry));
+    }
+
+    private static Object toBytes(ByteBuffer buffer) {
+        byte[] bytes = new byte[buffer.remaining()];
+        buffer.get(bytes);
+        return bytes;
+    }
+}
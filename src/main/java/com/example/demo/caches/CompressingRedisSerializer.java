@@ -0,0 +1,132 @@
+package com.example.demo.caches;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.data.redis.serializer.SerializationException;
+
+import java.io.ByteArrayOutputStream;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Compresses the output of another serializer once it reaches a size threshold.
+ * Compressed payloads start with a two-byte header (marker, algorithm); anything else is read as is,
+ * so small values and entries written before compression was enabled stay readable.
+ */
+public class CompressingRedisSerializer implements RedisSerializer<Object> {
+
+    static final byte COMPRESSED_MARKER = 0x1F;
+    static final byte DEFLATE = 0x01;
+    private static final int HEADER_LENGTH = 2;
+
+    private final RedisSerializer<Object> delegate;
+    private final int threshold;
+    private final int level;
+
+    private final Timer compressionTimer;
+    private final Timer decompressionTimer;
+    private final DistributionSummary compressionRatio;
+    private final Counter bytesSaved;
+
+    public CompressingRedisSerializer(RedisSerializer<Object> delegate, int threshold, int level, MeterRegistry meterRegistry) {
+        this.delegate = delegate;
+        this.threshold = threshold;
+        this.level = level;
+        this.compressionTimer = Timer.builder("cache.codec.compression")
+                .description("Time spent compressing cache values")
+                .register(meterRegistry);
+        this.decompressionTimer = Timer.builder("cache.codec.decompression")
+                .description("Time spent decompressing cache values")
+                .register(meterRegistry);
+        this.compressionRatio = DistributionSummary.builder("cache.codec.compression.ratio")
+                .description("Uncompressed size divided by compressed size")
+                .register(meterRegistry);
+        this.bytesSaved = Counter.builder("cache.codec.bytes.saved")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public byte[] serialize(Object value) throws SerializationException {
+        byte[] bytes = delegate.serialize(value);
+        if (bytes == null || bytes.length < threshold) {
+            return bytes;
+        }
+        long startTime = System.nanoTime();
+        byte[] compressed = compress(bytes);
+        compressionTimer.record(System.nanoTime() - startTime, TimeUnit.NANOSECONDS);
+        if (compressed.length >= bytes.length) {
+            return bytes;
+        }
+        compressionRatio.record((double) bytes.length / compressed.length);
+        bytesSaved.increment(bytes.length - compressed.length);
+        return compressed;
+    }
+
+    @Override
+    public Object deserialize(byte[] bytes) throws SerializationException {
+        if (!isCompressed(bytes)) {
+            return delegate.deserialize(bytes);
+        }
+        long startTime = System.nanoTime();
+        byte[] decompressed = decompress(bytes);
+        decompressionTimer.record(System.nanoTime() - startTime, TimeUnit.NANOSECONDS);
+        return delegate.deserialize(decompressed);
+    }
+
+    static boolean isCompressed(byte[] bytes) {
+        return bytes != null && bytes.length >= HEADER_LENGTH && bytes[0] == COMPRESSED_MARKER;
+    }
+
+    private byte[] compress(byte[] bytes) {
+        Deflater deflater = new Deflater(level);
+        try {
+            deflater.setInput(bytes);
+            deflater.finish();
+            ByteArrayOutputStream output = new ByteArrayOutputStream(bytes.length / 2 + HEADER_LENGTH);
+            output.write(COMPRESSED_MARKER);
+            output.write(DEFLATE);
+            byte[] buffer = new byte[8192];
+            while (!deflater.finished()) {
+                int length = deflater.deflate(buffer);
+                output.write(buffer, 0, length);
+            }
+            return output.toByteArray();
+        } finally {
+            deflater.end();
+        }
+    }
+
+    private static byte[] decompress(byte[] bytes) {
+        if (bytes[1] != DEFLATE) {
+            throw new SerializationException("Unknown compression algorithm: " + bytes[1]);
+        }
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(bytes, HEADER_LENGTH, bytes.length - HEADER_LENGTH);
+            byte[] output = new byte[Math.max(bytes.length * 4, 8192)];
+            int length = 0;
+            while (!inflater.finished()) {
+                if (length == output.length) {
+                    output = Arrays.copyOf(output, output.length * 2);
+                }
+                int inflated = inflater.inflate(output, length, output.length - length);
+                if (inflated == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                    throw new SerializationException("Truncated compressed cache value.");
+                }
+                length += inflated;
+            }
+            return Arrays.copyOf(output, length);
+        } catch (DataFormatException e) {
+            throw new SerializationException("Corrupted compressed cache value.", e);
+        } finally {
+            inflater.end();
+        }
+    }
+}
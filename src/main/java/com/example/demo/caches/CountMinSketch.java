@@ -0,0 +1,73 @@
+package com.example.demo.caches;
+
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ * Thread-safe count-min sketch over {@code long} hashes. Estimates never undercount, and overcount by at most
+ * a small fraction of all increments. {@link #halve()} ages the counts, so the estimates follow recent traffic.
+ */
+public class CountMinSketch {
+
+    private static final int DEPTH = 4;
+
+    private final AtomicIntegerArray counters;
+    private final int widthMask;
+
+    public CountMinSketch(int width) {
+        if (width <= 0) {
+            throw new IllegalArgumentException("Width must be positive.");
+        }
+        int roundedWidth = Integer.highestOneBit(Math.min(width, 1 << 24) * 2 - 1);
+        this.counters = new AtomicIntegerArray(DEPTH * roundedWidth);
+        this.widthMask = roundedWidth - 1;
+    }
+
+    /**
+     * Counts one occurrence and returns the new estimate.
+     */
+    public int increment(long hash) {
+        long mixed = mix(hash);
+        int estimate = Integer.MAX_VALUE;
+        for (int row = 0; row < DEPTH; row++) {
+            int index = index(mixed, row);
+            int count = counters.get(index);
+            // A saturated counter stays saturated instead of wrapping around.
+            while (count != Integer.MAX_VALUE && !counters.compareAndSet(index, count, count + 1)) {
+                count = counters.get(index);
+            }
+            estimate = Math.min(estimate, count == Integer.MAX_VALUE ? count : count + 1);
+        }
+        return estimate;
+    }
+
+    public int estimate(long hash) {
+        long mixed = mix(hash);
+        int estimate = Integer.MAX_VALUE;
+        for (int row = 0; row < DEPTH; row++) {
+            estimate = Math.min(estimate, counters.get(index(mixed, row)));
+        }
+        return estimate;
+    }
+
+    /**
+     * Halves every counter. Concurrent increments may be lost or halved with the rest, which is fine for an estimate.
+     */
+    public void halve() {
+        for (int i = 0; i < counters.length(); i++) {
+            counters.set(i, counters.get(i) >>> 1);
+        }
+    }
+
+    private int index(long mixed, int row) {
+        int high = (int) (mixed >>> 32);
+        int low = (int) mixed;
+        return row * (widthMask + 1) + ((low + row * high) & widthMask);
+    }
+
+    private static long mix(long value) {
+        long z = value + 0x9E3779B97F4A7C15L;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+}
@@ -0,0 +1,109 @@
+package com.example.demo.caches;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Thread-safe counting Bloom filter over {@code long} values with 4-bit saturating counters.
+ * Unlike a plain Bloom filter it supports removal, so it can follow inserts and deletes.
+ */
+public class CountingBloomFilter {
+
+    private static final int COUNTER_BITS = 4;
+    private static final int COUNTERS_PER_WORD = Long.SIZE / COUNTER_BITS;
+    private static final long COUNTER_MASK = (1L << COUNTER_BITS) - 1;
+
+    private final AtomicLongArray words;
+    private final long numberOfCounters;
+    private final int numberOfHashes;
+
+    public CountingBloomFilter(long expectedInsertions, double falsePositiveProbability) {
+        if (expectedInsertions <= 0) {
+            throw new IllegalArgumentException("Expected insertions must be positive.");
+        }
+        if (falsePositiveProbability <= 0 || falsePositiveProbability >= 1) {
+            throw new IllegalArgumentException("False positive probability must be between 0 and 1.");
+        }
+        long optimalCounters = (long) Math.ceil(
+                -expectedInsertions * Math.log(falsePositiveProbability) / (Math.log(2) * Math.log(2)));
+        int wordCount = (int) Math.min(Integer.MAX_VALUE - 8, (optimalCounters + COUNTERS_PER_WORD - 1) / COUNTERS_PER_WORD);
+        this.words = new AtomicLongArray(wordCount);
+        this.numberOfCounters = (long) wordCount * COUNTERS_PER_WORD;
+        this.numberOfHashes = Math.max(1, (int) Math.round((double) optimalCounters / expectedInsertions * Math.log(2)));
+    }
+
+    public void add(long value) {
+        long hash = mix(value);
+        for (int i = 0; i < numberOfHashes; i++) {
+            increment(index(hash, i));
+        }
+    }
+
+    public void remove(long value) {
+        long hash = mix(value);
+        for (int i = 0; i < numberOfHashes; i++) {
+            decrement(index(hash, i));
+        }
+    }
+
+    public boolean mightContain(long value) {
+        long hash = mix(value);
+        for (int i = 0; i < numberOfHashes; i++) {
+            if (counter(index(hash, i)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public long sizeInBytes() {
+        return (long) words.length() * Long.BYTES;
+    }
+
+    private long index(long hash, int i) {
+        int high = (int) (hash >>> 32);
+        int low = (int) hash;
+        long combined = (low + (long) i * high) & Long.MAX_VALUE;
+        return combined % numberOfCounters;
+    }
+
+    private int counter(long index) {
+        long word = words.get((int) (index / COUNTERS_PER_WORD));
+        return (int) ((word >>> shift(index)) & COUNTER_MASK);
+    }
+
+    private void increment(long index) {
+        int wordIndex = (int) (index / COUNTERS_PER_WORD);
+        int shift = shift(index);
+        while (true) {
+            long word = words.get(wordIndex);
+            long counter = (word >>> shift) & COUNTER_MASK;
+            // A saturated counter stays saturated: it can no longer be decremented safely.
+            if (counter == COUNTER_MASK || words.compareAndSet(wordIndex, word, word + (1L << shift))) {
+                return;
+            }
+        }
+    }
+
+    private void decrement(long index) {
+        int wordIndex = (int) (index / COUNTERS_PER_WORD);
+        int shift = shift(index);
+        while (true) {
+            long word = words.get(wordIndex);
+            long counter = (word >>> shift) & COUNTER_MASK;
+            if (counter == 0 || counter == COUNTER_MASK || words.compareAndSet(wordIndex, word, word - (1L << shift))) {
+                return;
+            }
+        }
+    }
+
+    private static int shift(long index) {
+        return (int) (index % COUNTERS_PER_WORD) * COUNTER_BITS;
+    }
+
+    private static long mix(long value) {
+        long z = value + 0x9E3779B97F4A7C15L;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+}
@@ -0,0 +1,238 @@
+package com.example.demo.caches;
+
+import com.example.demo.configs.CacheProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Finds the most read cache keys and keeps their values in a small local copy for a short time,
+ * so the hottest keys stop costing a Redis round trip on every read.
+ * Every read is counted in a {@link CountMinSketch} that is halved once per window. A key whose estimate reaches
+ * the threshold becomes a candidate, and the candidates are the only keys whose exact rate is tracked.
+ * Local values are dropped on every write through this instance; writes from other instances become visible
+ * once the local TTL has passed.
+ */
+public class HotKeyTracker {
+
+    private static final int SKETCH_WIDTH = 4096;
+    private static final int CANDIDATES_PER_TOP_KEY = 4;
+
+    private final boolean enabled;
+    private final long windowNanos;
+    private final int threshold;
+    private final int topN;
+    private final int maxCandidates;
+    private final long localTtlNanos;
+    private final int maxLocalEntries;
+
+    private final CountMinSketch sketch = new CountMinSketch(SKETCH_WIDTH);
+    private final Map<CacheKey, Candidate> candidates = new ConcurrentHashMap<>();
+    private final Map<CacheKey, LocalValue> localValues = new ConcurrentHashMap<>();
+    private final AtomicLong windowStart = new AtomicLong(System.nanoTime());
+    private final AtomicLong generation = new AtomicLong();
+
+    private final MeterRegistry meterRegistry;
+    private final Map<String, Counter> localHits = new ConcurrentHashMap<>();
+
+    public HotKeyTracker(CacheProperties.HotKeys hotKeys, MeterRegistry meterRegistry) {
+        if (hotKeys.getWindow().isNegative() || hotKeys.getWindow().isZero()) {
+            throw new IllegalArgumentException("Hot key window must be positive.");
+        }
+        this.enabled = hotKeys.isEnabled();
+        this.windowNanos = hotKeys.getWindow().toNanos();
+        this.threshold = Math.max(1, hotKeys.getThreshold());
+        this.topN = Math.max(1, hotKeys.getTopN());
+        this.maxCandidates = topN * CANDIDATES_PER_TOP_KEY;
+        this.localTtlNanos = hotKeys.getLocalTtl().toNanos();
+        this.maxLocalEntries = hotKeys.getMaxLocalEntries();
+        this.meterRegistry = meterRegistry;
+        Gauge.builder("cache.hotkeys.local.size", localValues, Map::size)
+                .description("Hot cache values currently held in the local copy")
+                .register(meterRegistry);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Returns the number of writes seen so far. A value read from Redis is only kept locally if no write happened
+     * between taking this number and recording the read, so a racing write cannot be shadowed by the old value.
+     */
+    public long generation() {
+        return generation.get();
+    }
+
+    /**
+     * Returns the local value of the key and counts the read, or {@code null} if the key is not held locally.
+     */
+    public byte[] getLocal(String name, byte[] key) {
+        if (!enabled || localValues.isEmpty()) {
+            return null;
+        }
+        CacheKey cacheKey = new CacheKey(name, key);
+        LocalValue localValue = localValues.get(cacheKey);
+        if (localValue == null) {
+            return null;
+        }
+        if (localValue.expiresAt - System.nanoTime() <= 0) {
+            localValues.remove(cacheKey, localValue);
+            return null;
+        }
+        count(cacheKey);
+        localHits.computeIfAbsent(name, cacheName -> Counter.builder("cache.hotkeys.local.hits")
+                        .tag("cache", cacheName)
+                        .description("Cache reads answered from the local copy of hot keys")
+                        .register(meterRegistry))
+                .increment();
+        return localValue.value;
+    }
+
+    /**
+     * Counts a read that went to Redis and keeps the value locally if the key is hot.
+     */
+    public void recordRead(String name, byte[] key, byte[] value, long readGeneration) {
+        if (!enabled) {
+            return;
+        }
+        CacheKey cacheKey = new CacheKey(name, key);
+        boolean hot = count(cacheKey);
+        if (!hot || value == null || maxLocalEntries <= 0 || generation.get() != readGeneration) {
+            return;
+        }
+        if (localValues.size() >= maxLocalEntries && !localValues.containsKey(cacheKey)) {
+            long now = System.nanoTime();
+            localValues.values().removeIf(localValue -> localValue.expiresAt - now <= 0);
+            if (localValues.size() >= maxLocalEntries) {
+                return;
+            }
+        }
+        localValues.put(cacheKey, new LocalValue(value, System.nanoTime() + localTtlNanos));
+    }
+
+    public void invalidate(String name, byte[] key) {
+        generation.incrementAndGet();
+        if (!localValues.isEmpty()) {
+            localValues.remove(new CacheKey(name, key));
+        }
+    }
+
+    public void invalidateAll(String name) {
+        generation.incrementAndGet();
+        localValues.keySet().removeIf(cacheKey -> cacheKey.name().equals(name));
+    }
+
+    /**
+     * Returns up to top-N candidate keys, most read first. The rate is the reads per second over the last full window,
+     * or over the current one while the key is new.
+     */
+    public List<HotKey> topKeys() {
+        long now = System.nanoTime();
+        rollWindow(now);
+        double elapsedSeconds = Math.max(now - windowStart.get(), 1) / 1e9;
+        double windowSeconds = windowNanos / 1e9;
+        return candidates.entrySet().stream()
+                .map(entry -> {
+                    Candidate candidate = entry.getValue();
+                    long previous = candidate.previousWindowReads;
+                    double rate = previous > 0
+                            ? previous / windowSeconds
+                            : candidate.reads.sum() / elapsedSeconds;
+                    LocalValue localValue = localValues.get(entry.getKey());
+                    return new HotKey(entry.getKey().name(), entry.getKey().displayKey(),
+                            sketch.estimate(entry.getKey().hash()), rate,
+                            localValue != null && localValue.expiresAt - now > 0);
+                })
+                .sorted(Comparator.comparingDouble(HotKey::readsPerSecond).reversed())
+                .limit(topN)
+                .toList();
+    }
+
+    /**
+     * Counts the read and returns whether the key is hot.
+     */
+    private boolean count(CacheKey cacheKey) {
+        rollWindow(System.nanoTime());
+        int estimate = sketch.increment(cacheKey.hash());
+        Candidate candidate = candidates.get(cacheKey);
+        if (candidate == null) {
+            if (estimate < threshold) {
+                return false;
+            }
+            candidate = addCandidate(cacheKey, estimate);
+            if (candidate == null) {
+                return false;
+            }
+        }
+        candidate.reads.increment();
+        return estimate >= threshold;
+    }
+
+    private Candidate addCandidate(CacheKey cacheKey, int estimate) {
+        if (candidates.size() >= maxCandidates) {
+            // The coldest candidate makes room, unless the new key is colder still.
+            Map.Entry<CacheKey, Candidate> coldest = null;
+            int coldestEstimate = Integer.MAX_VALUE;
+            for (Map.Entry<CacheKey, Candidate> entry : candidates.entrySet()) {
+                int candidateEstimate = sketch.estimate(entry.getKey().hash());
+                if (candidateEstimate < coldestEstimate) {
+                    coldest = entry;
+                    coldestEstimate = candidateEstimate;
+                }
+            }
+            if (coldest == null || coldestEstimate >= estimate) {
+                return null;
+            }
+            candidates.remove(coldest.getKey(), coldest.getValue());
+            localValues.remove(coldest.getKey());
+        }
+        return candidates.computeIfAbsent(cacheKey, key -> new Candidate());
+    }
+
+    private void rollWindow(long now) {
+        long start = windowStart.get();
+        if (now - start < windowNanos || !windowStart.compareAndSet(start, now)) {
+            return;
+        }
+        sketch.halve();
+        candidates.entrySet().removeIf(entry -> {
+            Candidate candidate = entry.getValue();
+            candidate.previousWindowReads = candidate.reads.sumThenReset();
+            return candidate.previousWindowReads == 0 && sketch.estimate(entry.getKey().hash()) < threshold;
+        });
+    }
+
+    public record HotKey(String cache, String key, int estimatedReads, double readsPerSecond, boolean local) {
+    }
+
+    private static final class Candidate {
+
+        private final LongAdder reads = new LongAdder();
+        private volatile long previousWindowReads;
+    }
+
+    private record LocalValue(byte[] value, long expiresAt) {
+    }
+
+    private record CacheKey(String name, ByteBuffer key, long hash) {
+
+        CacheKey(String name, byte[] key) {
+            this(name, ByteBuffer.wrap(key), name.hashCode() * 31L + Arrays.hashCode(key));
+        }
+
+        String displayKey() {
+            return StandardCharsets.UTF_8.decode(key.duplicate()).toString();
+        }
+    }
+}
@@ -0,0 +1,226 @@
+package com.example.demo.caches;
+
+import com.example.demo.models.User;
+
+import java.util.*;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.IntFunction;
+
+/**
+ * Read-only list of cached users backed by the encoded segments. The size comes from the segment headers,
+ * so {@link #size()} and {@link #isEmpty()} decode nothing, and {@link #get(int)} or a {@link #subList(int, int)}
+ * decodes only the segments it touches. Iterating over the whole list decodes all remaining segments in parallel first.
+ * Decoded segments replace their encoded bytes, and the list is safe to share between threads.
+ * A segment that cannot be decoded is replaced by the reloader. If the reloaded segment holds a different number
+ * of users than its header said, the size of the list changes as if the list had been read a moment later.
+ */
+public class LazyUserList extends AbstractList<User> implements RandomAccess {
+
+    private final UserListSegmentCodec segmentCodec;
+    private final AtomicReferenceArray<byte[]> encodedSegments;
+    private final AtomicReferenceArray<List<User>> decodedSegments;
+    private final IntFunction<List<User>> reloader;
+    /**
+     * Index of the first user of each segment, followed by the size of the list. Replaced as a whole when a reload
+     * changes the size of a segment.
+     */
+    private volatile int[] offsets;
+
+    public LazyUserList(UserListSegmentCodec segmentCodec, List<byte[]> encodedSegments, List<List<User>> decodedSegments) {
+        this(segmentCodec, encodedSegments, decodedSegments, segment -> {
+            throw new IllegalStateException("Cached user list segment " + segment + " cannot be decoded.");
+        });
+    }
+
+    /**
+     * @param encodedSegments segments as read from the cache, {@code null} where a decoded segment is given instead
+     * @param decodedSegments segments that are already decoded, {@code null} where an encoded segment is given instead
+     * @param reloader        loads the users of a segment by its index in the list, when its encoded bytes cannot be decoded
+     */
+    public LazyUserList(UserListSegmentCodec segmentCodec, List<byte[]> encodedSegments, List<List<User>> decodedSegments,
+                        IntFunction<List<User>> reloader) {
+        int numberOfSegments = encodedSegments.size();
+        this.segmentCodec = segmentCodec;
+        this.encodedSegments = new AtomicReferenceArray<>(numberOfSegments);
+        this.decodedSegments = new AtomicReferenceArray<>(numberOfSegments);
+        this.reloader = reloader;
+        int[] offsets = new int[numberOfSegments + 1];
+        for (int i = 0; i < numberOfSegments; i++) {
+            List<User> decoded = decodedSegments.get(i);
+            int count;
+            if (decoded != null) {
+                this.decodedSegments.set(i, decoded);
+                count = decoded.size();
+            } else {
+                this.encodedSegments.set(i, encodedSegments.get(i));
+                count = segmentCodec.count(encodedSegments.get(i));
+                if (count < 0) {
+                    throw new IllegalArgumentException("Segment " + i + " is neither decoded nor readable.");
+                }
+            }
+            offsets[i + 1] = Math.addExact(offsets[i], count);
+        }
+        this.offsets = offsets;
+    }
+
+    @Override
+    public int size() {
+        int[] current = offsets;
+        return current[current.length - 1];
+    }
+
+    @Override
+    public User get(int index) {
+        int[] current = offsets;
+        Objects.checkIndex(index, current[current.length - 1]);
+        int segment = segmentOf(current, index);
+        List<User> users = segment(segment);
+        if (offsets != current) {
+            // Decoding the segment reloaded it with another size, so the index may now fall into another segment.
+            return get(index);
+        }
+        return users.get(index - current[segment]);
+    }
+
+    @Override
+    public Iterator<User> iterator() {
+        decodeAll();
+        return super.iterator();
+    }
+
+    @Override
+    public Spliterator<User> spliterator() {
+        decodeAll();
+        return super.spliterator();
+    }
+
+    @Override
+    public void forEach(Consumer<? super User> action) {
+        decodeAll();
+        super.forEach(action);
+    }
+
+    /**
+     * Returns a read-only view that applies the mapper on access and keeps the size and emptiness checks free.
+     */
+    public <T> List<T> map(Function<? super User, ? extends T> mapper) {
+        return new MappedList<>(mapper);
+    }
+
+    /**
+     * Decodes all segments that are still encoded, in parallel.
+     */
+    public void decodeAll() {
+        List<Integer> pending = new ArrayList<>();
+        List<byte[]> pendingSegments = new ArrayList<>();
+        for (int i = 0; i < encodedSegments.length(); i++) {
+            byte[] encoded = encodedSegments.get(i);
+            if (encoded != null) {
+                pending.add(i);
+                pendingSegments.add(encoded);
+            }
+        }
+        if (pending.isEmpty()) {
+            return;
+        }
+        List<List<User>> decoded = segmentCodec.decodeAll(pendingSegments);
+        for (int i = 0; i < pending.size(); i++) {
+            publish(pending.get(i), decoded.get(i));
+        }
+    }
+
+    private List<User> segment(int segment) {
+        List<User> decoded = decodedSegments.get(segment);
+        if (decoded != null) {
+            return decoded;
+        }
+        byte[] encoded = encodedSegments.get(segment);
+        if (encoded == null) {
+            // Another thread has just decoded it.
+            return decodedSegments.get(segment);
+        }
+        return publish(segment, segmentCodec.decode(encoded));
+    }
+
+    private List<User> publish(int segment, List<User> users) {
+        if (users == null || users.size() != count(offsets, segment)) {
+            return reload(segment);
+        }
+        decodedSegments.compareAndSet(segment, null, users);
+        encodedSegments.set(segment, null);
+        return decodedSegments.get(segment);
+    }
+
+    private synchronized List<User> reload(int segment) {
+        List<User> decoded = decodedSegments.get(segment);
+        if (decoded != null) {
+            return decoded;
+        }
+        List<User> users = reloader.apply(segment);
+        decodedSegments.set(segment, users);
+        encodedSegments.set(segment, null);
+        int difference = users.size() - count(offsets, segment);
+        if (difference != 0) {
+            int[] resized = offsets.clone();
+            for (int i = segment + 1; i < resized.length; i++) {
+                resized[i] += difference;
+            }
+            offsets = resized;
+        }
+        return users;
+    }
+
+    private static int count(int[] offsets, int segment) {
+        return offsets[segment + 1] - offsets[segment];
+    }
+
+    /**
+     * Finds the last segment starting at or before the index, skipping empty segments.
+     */
+    private static int segmentOf(int[] offsets, int index) {
+        int low = 0;
+        int high = offsets.length - 2;
+        while (low < high) {
+            int middle = (low + high + 1) >>> 1;
+            if (offsets[middle] <= index) {
+                low = middle;
+            } else {
+                high = middle - 1;
+            }
+        }
+        return low;
+    }
+
+    private class MappedList<T> extends AbstractList<T> implements RandomAccess {
+
+        private final Function<? super User, ? extends T> mapper;
+
+        private MappedList(Function<? super User, ? extends T> mapper) {
+            this.mapper = mapper;
+        }
+
+        @Override
+        public T get(int index) {
+            return mapper.apply(LazyUserList.this.get(index));
+        }
+
+        @Override
+        public int size() {
+            return LazyUserList.this.size();
+        }
+
+        @Override
+        public Iterator<T> iterator() {
+            decodeAll();
+            return super.iterator();
+        }
+
+        @Override
+        public Spliterator<T> spliterator() {
+            decodeAll();
+            return super.spliterator();
+        }
+    }
+}
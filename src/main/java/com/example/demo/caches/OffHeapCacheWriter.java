@@ -0,0 +1,168 @@
+package com.example.demo.caches;
+
+import com.example.demo.configs.CacheProperties;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.data.redis.cache.CacheStatistics;
+import org.springframework.data.redis.cache.CacheStatisticsCollector;
+import org.springframework.data.redis.cache.RedisCacheConfiguration;
+import org.springframework.data.redis.cache.RedisCacheWriter;
+
+import java.nio.ByteBuffer;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Predicate;
+
+/**
+ * {@link PolicyRedisCacheWriter} that keeps entries in an in-process {@link OffHeapStore} instead of Redis,
+ * for single-node deployments. Keys and values are encoded exactly as for Redis, so the cache manager,
+ * {@link UserCache} and {@link UserListCache} work unchanged on top of it.
+ * The TTL of a policy applies, while its maximum entry count does not: the store is bounded by its capacity in bytes.
+ */
+public class OffHeapCacheWriter extends PolicyRedisCacheWriter implements AutoCloseable {
+
+    private final OffHeapStore store;
+    private final RedisCacheConfiguration cacheConfiguration;
+    private final CacheProperties cacheProperties;
+
+    public OffHeapCacheWriter(OffHeapStore store,
+                              RedisCacheConfiguration cacheConfiguration,
+                              CacheProperties cacheProperties,
+                              MeterRegistry meterRegistry) {
+        super(cacheConfiguration, cacheProperties, meterRegistry);
+        this.store = store;
+        this.cacheConfiguration = cacheConfiguration;
+        this.cacheProperties = cacheProperties;
+    }
+
+    @Override
+    public void put(String name, byte[] key, byte[] value, Duration ttl) {
+        store.put(key, value, ttlMillis(effectiveTtl(cacheProperties.getPolicy(name), ttl)));
+    }
+
+    @Override
+    public void putExpiring(String name, byte[] key, byte[] value, Duration ttl) {
+        store.put(key, value, ttlMillis(ttl));
+    }
+
+    @Override
+    public void putAllExpiring(String name, Map<byte[], byte[]> entries, Duration ttl) {
+        entries.forEach((key, value) -> putExpiring(name, key, value, ttl));
+    }
+
+    @Override
+    public void putAll(String name, Map<byte[], byte[]> entries) {
+        entries.forEach((key, value) -> put(name, key, value, Duration.ZERO));
+    }
+
+    @Override
+    public byte[] get(String name, byte[] key) {
+        return store.get(key);
+    }
+
+    @Override
+    public List<byte[]> getAll(String name, List<byte[]> keys) {
+        List<byte[]> values = new ArrayList<>(keys.size());
+        for (byte[] key : keys) {
+            values.add(store.get(key));
+        }
+        return values;
+    }
+
+    @Override
+    public byte[] putIfAbsent(String name, byte[] key, byte[] value, Duration ttl) {
+        return store.putIfAbsent(key, value, ttlMillis(effectiveTtl(cacheProperties.getPolicy(name), ttl)));
+    }
+
+    @Override
+    public void remove(String name, byte[] key) {
+        store.remove(key);
+    }
+
+    @Override
+    public void removeAll(String name, List<byte[]> keys) {
+        keys.forEach(store::remove);
+    }
+
+    @Override
+    public void clean(String name, byte[] pattern) {
+        store.removeIf(key -> matches(pattern, key));
+    }
+
+    /**
+     * Number of live entries of the cache.
+     */
+    @Override
+    public long countEntries(String name) {
+        return store.count(hasPrefix(name));
+    }
+
+    /**
+     * Exact bytes held by the keys and values of the cache, the sample size is not needed.
+     */
+    @Override
+    public long estimateMemoryUsage(String name, int sampleSize) {
+        return store.bytes(hasPrefix(name));
+    }
+
+    @Override
+    public void clearStatistics(String name) {
+        // No statistics are collected, the store publishes its own metrics.
+    }
+
+    @Override
+    public CacheStatistics getCacheStatistics(String cacheName) {
+        return CacheStatisticsCollector.none().getCacheStatistics(cacheName);
+    }
+
+    @Override
+    public RedisCacheWriter withStatisticsCollector(CacheStatisticsCollector cacheStatisticsCollector) {
+        return this;
+    }
+
+    @Override
+    public void close() {
+        store.close();
+    }
+
+    private Predicate<ByteBuffer> hasPrefix(String name) {
+        ByteBuffer prefix = cacheConfiguration.getKeySerializationPair().write(cacheConfiguration.getKeyPrefixFor(name));
+        return key -> key.remaining() >= prefix.remaining()
+                && key.slice(key.position(), prefix.remaining()).equals(prefix);
+    }
+
+    private static long ttlMillis(Duration ttl) {
+        return ttl == null || ttl.isNegative() ? 0 : ttl.toMillis();
+    }
+
+    /**
+     * Matches a key against a Redis glob pattern, supporting {@code *} and {@code ?}.
+     */
+    static boolean matches(byte[] pattern, ByteBuffer key) {
+        int keyLength = key.remaining();
+        int keyStart = key.position();
+        int p = 0;
+        int k = 0;
+        int starPattern = -1;
+        int starKey = 0;
+        while (k < keyLength) {
+            if (p < pattern.length && pattern[p] == '*') {
+                starPattern = p++;
+                starKey = k;
+            } else if (p < pattern.length && (pattern[p] == '?' || pattern[p] == key.get(keyStart + k))) {
+                p++;
+                k++;
+            } else if (starPattern >= 0) {
+                p = starPattern + 1;
+                k = ++starKey;
+            } else {
+                return false;
+            }
+        }
+        while (p < pattern.length && pattern[p] == '*') {
+            p++;
+        }
+        return p == pattern.length;
+    }
+}
@@ -0,0 +1,401 @@
+package com.example.demo.caches;
+
+import com.example.demo.configs.CacheProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.StampedLock;
+import java.util.function.Predicate;
+
+/**
+ * Byte-array key-value store that keeps its values outside the Java heap, in direct or memory-mapped buffers,
+ * so it can hold gigabytes without growing the heap the collector has to scan. Only the key index lives on the heap.
+ * Values are appended to a ring of fixed-size segments. Once the ring is full, the oldest segment is reused:
+ * its entries are evicted, except those read since they were written, which are moved to the front once.
+ * Reads copy the value out without locking, and count as misses if the segment was reused meanwhile.
+ */
+public class OffHeapStore implements AutoCloseable {
+
+    private static final int MAX_SEGMENT_SIZE = Integer.MAX_VALUE - 8;
+    private static final int MIN_SEGMENTS = 2;
+
+    private final int segmentSize;
+    private final Segment[] segments;
+    private final FileChannel channel;
+
+    private final Map<ByteBuffer, Entry> index = new ConcurrentHashMap<>();
+    private final ReentrantLock writeLock = new ReentrantLock();
+    private final AtomicLong usedBytes = new AtomicLong();
+    private int activeSegment;
+    private volatile boolean closed;
+
+    private final Counter hits;
+    private final Counter misses;
+    private final Counter evictions;
+    private final Counter rejections;
+
+    public OffHeapStore(CacheProperties.OffHeap offHeap, MeterRegistry meterRegistry) {
+        long segmentBytes = offHeap.getSegmentSize().toBytes();
+        if (segmentBytes <= 0 || segmentBytes > MAX_SEGMENT_SIZE) {
+            throw new IllegalArgumentException("Segment size must be between 1 byte and 2 GB.");
+        }
+        long segmentCount = offHeap.getCapacity().toBytes() / segmentBytes;
+        if (segmentCount < MIN_SEGMENTS) {
+            throw new IllegalArgumentException("Capacity must hold at least " + MIN_SEGMENTS + " segments.");
+        }
+        if (segmentCount > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Capacity holds too many segments, use larger ones.");
+        }
+        this.segmentSize = (int) segmentBytes;
+        this.segments = new Segment[(int) segmentCount];
+        for (int i = 0; i < segments.length; i++) {
+            segments[i] = new Segment();
+        }
+        this.channel = offHeap.getStorage() == CacheProperties.OffHeap.Storage.MAPPED
+                ? openFile(offHeap.getDirectory())
+                : null;
+
+        Gauge.builder("cache.offheap.capacity", this, store -> (double) store.segments.length * store.segmentSize)
+                .description("Bytes the off-heap cache can hold")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+        Gauge.builder("cache.offheap.allocated", this, OffHeapStore::allocatedBytes)
+                .description("Bytes of off-heap buffers allocated so far")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+        Gauge.builder("cache.offheap.used", usedBytes, AtomicLong::get)
+                .description("Bytes held by live entries of the off-heap cache")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+        Gauge.builder("cache.offheap.entries", index, Map::size)
+                .description("Entries held by the off-heap cache")
+                .register(meterRegistry);
+        this.hits = Counter.builder("cache.offheap.requests")
+                .tag("result", "hit")
+                .register(meterRegistry);
+        this.misses = Counter.builder("cache.offheap.requests")
+                .tag("result", "miss")
+                .register(meterRegistry);
+        this.evictions = Counter.builder("cache.offheap.evictions")
+                .description("Entries evicted to make room for new ones")
+                .register(meterRegistry);
+        this.rejections = Counter.builder("cache.offheap.rejections")
+                .description("Values not cached because they are larger than a segment")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Returns a copy of the value, or {@code null} if the key is missing or expired.
+     */
+    public byte[] get(byte[] key) {
+        byte[] value = read(ByteBuffer.wrap(key));
+        (value != null ? hits : misses).increment();
+        return value;
+    }
+
+    /**
+     * Stores the value, replacing any previous one. A TTL of zero or less means no expiration.
+     */
+    public void put(byte[] key, byte[] value, long ttlMillis) {
+        ByteBuffer cacheKey = ByteBuffer.wrap(key);
+        if (value.length > segmentSize) {
+            rejections.increment();
+            remove(key);
+            return;
+        }
+        writeLock.lock();
+        try {
+            append(cacheKey, value, expiresAt(ttlMillis));
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * Stores the value unless the key holds one already, and returns the existing value or {@code null}.
+     */
+    public byte[] putIfAbsent(byte[] key, byte[] value, long ttlMillis) {
+        ByteBuffer cacheKey = ByteBuffer.wrap(key);
+        writeLock.lock();
+        try {
+            byte[] existing = read(cacheKey);
+            if (existing != null) {
+                return existing;
+            }
+            if (value.length > segmentSize) {
+                rejections.increment();
+                return null;
+            }
+            append(cacheKey, value, expiresAt(ttlMillis));
+            return null;
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    public void remove(byte[] key) {
+        Entry entry = index.remove(ByteBuffer.wrap(key));
+        if (entry != null) {
+            usedBytes.addAndGet(-entry.length);
+        }
+    }
+
+    /**
+     * Removes every key accepted by the filter and returns how many were removed.
+     */
+    public int removeIf(Predicate<ByteBuffer> keyFilter) {
+        int removed = 0;
+        for (Map.Entry<ByteBuffer, Entry> mapping : index.entrySet()) {
+            if (keyFilter.test(mapping.getKey().duplicate()) && index.remove(mapping.getKey(), mapping.getValue())) {
+                usedBytes.addAndGet(-mapping.getValue().length);
+                removed++;
+            }
+        }
+        return removed;
+    }
+
+    /**
+     * Number of live entries whose key is accepted by the filter.
+     */
+    public long count(Predicate<ByteBuffer> keyFilter) {
+        long now = System.currentTimeMillis();
+        return index.entrySet().stream()
+                .filter(mapping -> !mapping.getValue().isExpired(now) && keyFilter.test(mapping.getKey().duplicate()))
+                .count();
+    }
+
+    /**
+     * Bytes held by the keys and values of live entries whose key is accepted by the filter.
+     */
+    public long bytes(Predicate<ByteBuffer> keyFilter) {
+        long now = System.currentTimeMillis();
+        return index.entrySet().stream()
+                .filter(mapping -> !mapping.getValue().isExpired(now) && keyFilter.test(mapping.getKey().duplicate()))
+                .mapToLong(mapping -> mapping.getKey().remaining() + mapping.getValue().length)
+                .sum();
+    }
+
+    @Override
+    public void close() {
+        writeLock.lock();
+        try {
+            closed = true;
+            index.clear();
+            usedBytes.set(0);
+            for (Segment segment : segments) {
+                long stamp = segment.lock.writeLock();
+                segment.generation++;
+                segment.buffer = null;
+                segment.lock.unlockWrite(stamp);
+            }
+            if (channel != null) {
+                channel.close();
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    private byte[] read(ByteBuffer cacheKey) {
+        Entry entry = index.get(cacheKey);
+        if (entry == null) {
+            return null;
+        }
+        if (entry.isExpired(System.currentTimeMillis())) {
+            if (index.remove(cacheKey, entry)) {
+                usedBytes.addAndGet(-entry.length);
+            }
+            return null;
+        }
+        Segment segment = segments[entry.segment];
+        long stamp = segment.lock.tryOptimisticRead();
+        ByteBuffer buffer = segment.buffer;
+        if (stamp == 0 || segment.generation != entry.generation || buffer == null) {
+            return null;
+        }
+        byte[] value = new byte[entry.length];
+        buffer.get(entry.offset, value);
+        if (!segment.lock.validate(stamp)) {
+            // The segment was reused while copying, so the copy may be torn.
+            return null;
+        }
+        if (!entry.accessed) {
+            entry.accessed = true;
+        }
+        return value;
+    }
+
+    /**
+     * Writes the value into the active segment and points the key at it. Must hold the write lock.
+     */
+    private void append(ByteBuffer cacheKey, byte[] value, long expiresAt) {
+        if (closed) {
+            return;
+        }
+        Segment segment = segments[activeSegment];
+        if (segment.buffer == null || segment.writeOffset + value.length > segmentSize) {
+            segment = advance(value.length);
+        }
+        Entry entry = write(segment, cacheKey, value, expiresAt);
+        Entry previous = index.put(cacheKey, entry);
+        usedBytes.addAndGet(previous == null ? entry.length : entry.length - previous.length);
+    }
+
+    private Entry write(Segment segment, ByteBuffer cacheKey, byte[] value, long expiresAt) {
+        int offset = segment.writeOffset;
+        segment.buffer.put(offset, value);
+        segment.writeOffset += value.length;
+        segment.keys.add(cacheKey);
+        return new Entry(activeSegment, segment.generation, offset, value.length, expiresAt);
+    }
+
+    /**
+     * Moves to the next segment of the ring, reusing it if it holds entries, and leaves room for at least
+     * {@code required} bytes. Must hold the write lock.
+     */
+    private Segment advance(int required) {
+        Segment current = segments[activeSegment];
+        if (current.buffer == null) {
+            current.buffer = allocate(activeSegment);
+            return current;
+        }
+        activeSegment = (activeSegment + 1) % segments.length;
+        Segment next = segments[activeSegment];
+        if (next.buffer == null) {
+            next.buffer = allocate(activeSegment);
+            return next;
+        }
+
+        // Entries read since they were written get a second chance, as long as they fill at most half the segment
+        // and leave room for the value being written.
+        int survivorLimit = Math.min(segmentSize / 2, segmentSize - required);
+        long now = System.currentTimeMillis();
+        List<ByteBuffer> survivorKeys = new ArrayList<>();
+        List<Entry> survivorEntries = new ArrayList<>();
+        List<byte[]> survivorValues = new ArrayList<>();
+        int survivorBytes = 0;
+        Set<ByteBuffer> visitedKeys = new HashSet<>();
+        for (ByteBuffer key : next.keys) {
+            Entry entry = index.get(key);
+            if (entry == null || entry.segment != activeSegment || entry.generation != next.generation
+                    || !visitedKeys.add(key)) {
+                continue;
+            }
+            if (entry.accessed && !entry.isExpired(now) && survivorBytes + entry.length <= survivorLimit) {
+                byte[] value = new byte[entry.length];
+                next.buffer.get(entry.offset, value);
+                survivorKeys.add(key);
+                survivorEntries.add(entry);
+                survivorValues.add(value);
+                survivorBytes += entry.length;
+            } else if (index.remove(key, entry)) {
+                usedBytes.addAndGet(-entry.length);
+                if (!entry.isExpired(now)) {
+                    evictions.increment();
+                }
+            }
+        }
+
+        long stamp = next.lock.writeLock();
+        next.generation++;
+        next.lock.unlockWrite(stamp);
+        next.writeOffset = 0;
+        next.keys.clear();
+
+        for (int i = 0; i < survivorKeys.size(); i++) {
+            Entry old = survivorEntries.get(i);
+            Entry moved = write(next, survivorKeys.get(i), survivorValues.get(i), old.expiresAt);
+            // A concurrent removal wins over the move.
+            if (!index.replace(survivorKeys.get(i), old, moved)) {
+                next.keys.remove(next.keys.size() - 1);
+            }
+        }
+        return next;
+    }
+
+    private ByteBuffer allocate(int segment) {
+        if (channel == null) {
+            return ByteBuffer.allocateDirect(segmentSize);
+        }
+        try {
+            return channel.map(FileChannel.MapMode.READ_WRITE, (long) segment * segmentSize, segmentSize);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private double allocatedBytes() {
+        long allocated = 0;
+        for (Segment segment : segments) {
+            if (segment.buffer != null) {
+                allocated += segmentSize;
+            }
+        }
+        return allocated;
+    }
+
+    private static long expiresAt(long ttlMillis) {
+        return ttlMillis > 0 ? System.currentTimeMillis() + ttlMillis : 0;
+    }
+
+    private static FileChannel openFile(String directory) {
+        try {
+            Path file = directory == null || directory.isBlank()
+                    ? Files.createTempFile("offheap-cache-", ".bin")
+                    : Files.createTempFile(Path.of(directory), "offheap-cache-", ".bin");
+            return FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE,
+                    StandardOpenOption.DELETE_ON_CLOSE);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static final class Segment {
+
+        private final StampedLock lock = new StampedLock();
+        private final List<ByteBuffer> keys = new ArrayList<>();
+        private volatile ByteBuffer buffer;
+        private volatile long generation;
+        private int writeOffset;
+    }
+
+    private static final class Entry {
+
+        private final int segment;
+        private final long generation;
+        private final int offset;
+        private final int length;
+        private final long expiresAt;
+        private volatile boolean accessed;
+
+        private Entry(int segment, long generation, int offset, int length, long expiresAt) {
+            this.segment = segment;
+            this.generation = generation;
+            this.offset = offset;
+            this.length = length;
+            this.expiresAt = expiresAt;
+        }
+
+        private boolean isExpired(long now) {
+            return expiresAt != 0 && expiresAt - now <= 0;
+        }
+    }
+}
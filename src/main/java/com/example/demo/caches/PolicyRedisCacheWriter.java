@@ -0,0 +1,543 @@
+package com.example.demo.caches;
+
+import com.example.demo.configs.CacheProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.data.redis.cache.CacheStatistics;
+import org.springframework.data.redis.cache.CacheStatisticsCollector;
+import org.springframework.data.redis.cache.RedisCacheConfiguration;
+import org.springframework.data.redis.cache.RedisCacheWriter;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.connection.RedisPipelineException;
+import org.springframework.data.redis.connection.RedisStringCommands.SetOption;
+import org.springframework.data.redis.connection.ReturnType;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.data.redis.core.types.Expiration;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Consumer;
+
+/**
+ * {@link RedisCacheWriter} that applies the {@link CacheProperties.Policy} of a cache:
+ * a jittered TTL and a maximum entry count enforced through an LRU or LFU sorted-set index.
+ * Caches without a policy are passed through to the default non-locking writer.
+ * The scripts are sent by their SHA1 digest and only sent in full if the server does not have them cached.
+ * They only touch the keys they declare, and evicted entries are deleted by the writer afterwards. Still, a script
+ * updates an entry together with the index keys of its cache, which live in other hash slots, so caches with a policy
+ * need a standalone Redis server, optionally with replicas and Sentinel, rather than Redis Cluster.
+ */
+public class PolicyRedisCacheWriter implements RedisCacheWriter {
+
+    // The index keys live outside the cache prefix, so index updates on reads do not look like cache writes
+    // to clients tracking that prefix.
+    private static final String INDEX_PREFIX = "__index:";
+    private static final String ACCESS_INDEX_SUFFIX = ":access";
+    private static final String EXPIRY_INDEX_SUFFIX = ":expiry";
+
+    // KEYS: entry, access index, expiry index. ARGV: value, ttl millis, now millis, max entries, eviction.
+    // Returns the evicted keys, already dropped from both indexes, for the caller to delete.
+    @SuppressWarnings("rawtypes")
+    private static final RedisScript<List> PUT_SCRIPT = RedisScript.of("""
+            local ttl = tonumber(ARGV[2])
+            local now = tonumber(ARGV[3])
+            local max = tonumber(ARGV[4])
+            if ttl > 0 then
+                redis.call('SET', KEYS[1], ARGV[1], 'PX', ttl)
+                redis.call('ZADD', KEYS[3], now + ttl, KEYS[1])
+            else
+                redis.call('SET', KEYS[1], ARGV[1])
+                redis.call('ZREM', KEYS[3], KEYS[1])
+            end
+            if ARGV[5] == 'LFU' then
+                redis.call('ZINCRBY', KEYS[2], 1, KEYS[1])
+            else
+                redis.call('ZADD', KEYS[2], now, KEYS[1])
+            end
+            local expired = redis.call('ZRANGEBYSCORE', KEYS[3], '-inf', now)
+            for _, key in ipairs(expired) do
+                redis.call('ZREM', KEYS[2], key)
+            end
+            redis.call('ZREMRANGEBYSCORE', KEYS[3], '-inf', now)
+            local evicted = {}
+            if max <= 0 then
+                return evicted
+            end
+            local excess = redis.call('ZCARD', KEYS[2]) - max
+            if excess <= 0 then
+                return evicted
+            end
+            local candidates = redis.call('ZRANGE', KEYS[2], 0, excess)
+            for _, key in ipairs(candidates) do
+                if #evicted < excess and key ~= KEYS[1] then
+                    redis.call('ZREM', KEYS[2], key)
+                    redis.call('ZREM', KEYS[3], key)
+                    table.insert(evicted, key)
+                end
+            end
+            return evicted
+            """, List.class);
+
+    // KEYS: entry, access index. ARGV: now millis, eviction, LFU increment.
+    private static final RedisScript<byte[]> GET_SCRIPT = RedisScript.of("""
+            local value = redis.call('GET', KEYS[1])
+            if value and redis.call('ZSCORE', KEYS[2], KEYS[1]) then
+                if ARGV[2] == 'LFU' then
+                    redis.call('ZINCRBY', KEYS[2], ARGV[3], KEYS[1])
+                else
+                    redis.call('ZADD', KEYS[2], 'XX', ARGV[1], KEYS[1])
+                end
+            end
+            return value
+            """, byte[].class);
+
+    // KEYS: access index. ARGV: now millis, eviction, then pairs of entry and read count.
+    // Only entries still in the index are touched, so reads of evicted entries do not bring them back.
+    private static final RedisScript<Long> RECORD_SCRIPT = RedisScript.of("""
+            for i = 3, #ARGV, 2 do
+                if redis.call('ZSCORE', KEYS[1], ARGV[i]) then
+                    if ARGV[2] == 'LFU' then
+                        redis.call('ZINCRBY', KEYS[1], ARGV[i + 1], ARGV[i])
+                    else
+                        redis.call('ZADD', KEYS[1], 'XX', ARGV[1], ARGV[i])
+                    end
+                end
+            end
+            return 0
+            """, Long.class);
+
+    private final RedisConnectionFactory connectionFactory;
+    private final RedisCacheWriter delegate;
+    private final RedisCacheConfiguration cacheConfiguration;
+    private final CacheProperties cacheProperties;
+    private final MeterRegistry meterRegistry;
+
+    public PolicyRedisCacheWriter(RedisConnectionFactory connectionFactory,
+                                  RedisCacheConfiguration cacheConfiguration,
+                                  CacheProperties cacheProperties,
+                                  MeterRegistry meterRegistry) {
+        this(connectionFactory, RedisCacheWriter.nonLockingRedisCacheWriter(connectionFactory),
+                cacheConfiguration, cacheProperties, meterRegistry);
+    }
+
+    /**
+     * For writers that keep their entries somewhere other than Redis and override every operation.
+     */
+    protected PolicyRedisCacheWriter(RedisCacheConfiguration cacheConfiguration,
+                                     CacheProperties cacheProperties,
+                                     MeterRegistry meterRegistry) {
+        this(null, null, cacheConfiguration, cacheProperties, meterRegistry);
+    }
+
+    private PolicyRedisCacheWriter(RedisConnectionFactory connectionFactory,
+                                   RedisCacheWriter delegate,
+                                   RedisCacheConfiguration cacheConfiguration,
+                                   CacheProperties cacheProperties,
+                                   MeterRegistry meterRegistry) {
+        this.connectionFactory = connectionFactory;
+        this.delegate = delegate;
+        this.cacheConfiguration = cacheConfiguration;
+        this.cacheProperties = cacheProperties;
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    public void put(String name, byte[] key, byte[] value, Duration ttl) {
+        CacheProperties.Policy policy = cacheProperties.getPolicy(name);
+        if (policy == null) {
+            delegate.put(name, key, value, ttl);
+            return;
+        }
+        List<byte[]> evicted;
+        try (RedisConnection connection = connectionFactory.getConnection()) {
+            evicted = evictedKeys(evalPut(connection, name, policy, key, value, ttl));
+        } catch (RuntimeException e) {
+            if (!isNoScript(e)) {
+                throw e;
+            }
+            try (RedisConnection connection = connectionFactory.getConnection()) {
+                loadScripts(connection);
+                evicted = evictedKeys(evalPut(connection, name, policy, key, value, ttl));
+            }
+        }
+        deleteEvicted(name, evicted);
+    }
+
+    /**
+     * Writes an entry that expires after exactly the given time, outside the sizing policy of the cache.
+     * Meant for short-lived markers such as remembered misses.
+     */
+    public void putExpiring(String name, byte[] key, byte[] value, Duration ttl) {
+        delegate.put(name, key, value, ttl);
+    }
+
+    /**
+     * Writes all entries in one pipelined round trip, each expiring after exactly the given time,
+     * outside the sizing policy of the cache like {@link #putExpiring(String, byte[], byte[], Duration)}.
+     */
+    public void putAllExpiring(String name, Map<byte[], byte[]> entries, Duration ttl) {
+        if (entries.isEmpty()) {
+            return;
+        }
+        pipelined(connection -> entries.forEach((key, value) ->
+                connection.stringCommands().set(key, value, Expiration.from(ttl), SetOption.upsert())));
+    }
+
+    /**
+     * Writes all entries in one pipelined round trip, applying the policy of the cache to each of them.
+     */
+    public void putAll(String name, Map<byte[], byte[]> entries) {
+        if (entries.isEmpty()) {
+            return;
+        }
+        CacheProperties.Policy policy = cacheProperties.getPolicy(name);
+        List<Object> results = pipelined(connection -> entries.forEach((key, value) -> {
+            if (policy == null) {
+                connection.stringCommands().set(key, value);
+            } else {
+                evalPut(connection, name, policy, key, value, Duration.ZERO);
+            }
+        }));
+        if (policy != null) {
+            List<byte[]> evicted = new ArrayList<>();
+            results.forEach(result -> evicted.addAll(evictedKeys(result)));
+            deleteEvicted(name, evicted);
+        }
+    }
+
+    @Override
+    public byte[] get(String name, byte[] key) {
+        CacheProperties.Policy policy = cacheProperties.getPolicy(name);
+        if (policy == null || !isAccessSampled(policy)) {
+            return delegate.get(name, key);
+        }
+        try (RedisConnection connection = connectionFactory.getConnection()) {
+            return evalGet(connection, name, policy, key, System.currentTimeMillis());
+        } catch (RuntimeException e) {
+            if (!isNoScript(e)) {
+                throw e;
+            }
+            try (RedisConnection connection = connectionFactory.getConnection()) {
+                loadScripts(connection);
+                return evalGet(connection, name, policy, key, System.currentTimeMillis());
+            }
+        }
+    }
+
+    /**
+     * Reads all keys in one pipelined round trip, recording sampled hits in the access index like {@link #get(String, byte[])}.
+     * The result has one element per key, {@code null} for a miss.
+     */
+    public List<byte[]> getAll(String name, List<byte[]> keys) {
+        if (keys.isEmpty()) {
+            return List.of();
+        }
+        CacheProperties.Policy policy = cacheProperties.getPolicy(name);
+        long now = System.currentTimeMillis();
+        List<Object> results = pipelined(connection -> {
+            for (byte[] key : keys) {
+                if (policy == null || !isAccessSampled(policy)) {
+                    connection.stringCommands().get(key);
+                } else {
+                    evalGet(connection, name, policy, key, now);
+                }
+            }
+        });
+        List<byte[]> values = new ArrayList<>(keys.size());
+        for (Object result : results) {
+            values.add(result instanceof byte[] bytes ? bytes : null);
+        }
+        return values;
+    }
+
+    /**
+     * Whether reads of the cache update its access index, i.e. it has a policy with a non-zero access sample rate.
+     */
+    public boolean recordsAccesses(String name) {
+        CacheProperties.Policy policy = cacheProperties.getPolicy(name);
+        return policy != null && policy.getAccessSampleRate() > 0;
+    }
+
+    /**
+     * Records reads that were answered without Redis, e.g. from a local copy, in the access index of the cache,
+     * so locally served entries are not evicted as if nobody read them. Counts are added as they are, since they
+     * are exact rather than sampled.
+     */
+    public void recordAccesses(String name, Map<byte[], Long> readCounts) {
+        CacheProperties.Policy policy = cacheProperties.getPolicy(name);
+        if (policy == null || readCounts.isEmpty()) {
+            return;
+        }
+        List<byte[]> args = new ArrayList<>(2 + readCounts.size() * 2);
+        args.add(toBytes(System.currentTimeMillis()));
+        args.add(toBytes(policy.getEviction().name()));
+        readCounts.forEach((key, count) -> {
+            args.add(key);
+            args.add(toBytes(count));
+        });
+        byte[][] keysAndArgs = new byte[args.size() + 1][];
+        keysAndArgs[0] = accessIndexKey(name);
+        for (int i = 0; i < args.size(); i++) {
+            keysAndArgs[i + 1] = args.get(i);
+        }
+        try (RedisConnection connection = connectionFactory.getConnection()) {
+            try {
+                connection.scriptingCommands().evalSha(RECORD_SCRIPT.getSha1(), ReturnType.INTEGER, 1, keysAndArgs);
+            } catch (RuntimeException e) {
+                if (!isNoScript(e)) {
+                    throw e;
+                }
+                loadScripts(connection);
+                connection.scriptingCommands().evalSha(RECORD_SCRIPT.getSha1(), ReturnType.INTEGER, 1, keysAndArgs);
+            }
+        }
+    }
+
+    @Override
+    public byte[] putIfAbsent(String name, byte[] key, byte[] value, Duration ttl) {
+        return delegate.putIfAbsent(name, key, value, effectiveTtl(cacheProperties.getPolicy(name), ttl));
+    }
+
+    @Override
+    public void remove(String name, byte[] key) {
+        CacheProperties.Policy policy = cacheProperties.getPolicy(name);
+        if (policy == null) {
+            delegate.remove(name, key);
+            return;
+        }
+        try (RedisConnection connection = connectionFactory.getConnection()) {
+            connection.openPipeline();
+            connection.keyCommands().del(key);
+            connection.zSetCommands().zRem(accessIndexKey(name), key);
+            connection.zSetCommands().zRem(expiryIndexKey(name), key);
+            connection.closePipeline();
+        }
+    }
+
+    /**
+     * Removes all keys in one pipelined round trip.
+     */
+    public void removeAll(String name, List<byte[]> keys) {
+        if (keys.isEmpty()) {
+            return;
+        }
+        byte[][] keyArray = keys.toArray(byte[][]::new);
+        CacheProperties.Policy policy = cacheProperties.getPolicy(name);
+        try (RedisConnection connection = connectionFactory.getConnection()) {
+            connection.openPipeline();
+            connection.keyCommands().del(keyArray);
+            if (policy != null) {
+                connection.zSetCommands().zRem(accessIndexKey(name), keyArray);
+                connection.zSetCommands().zRem(expiryIndexKey(name), keyArray);
+            }
+            connection.closePipeline();
+        }
+    }
+
+    @Override
+    public void clean(String name, byte[] pattern) {
+        delegate.clean(name, pattern);
+        if (cacheProperties.getPolicy(name) != null
+                && Arrays.equals(pattern, serializeKey(cacheConfiguration.getKeyPrefixFor(name) + "*"))) {
+            try (RedisConnection connection = connectionFactory.getConnection()) {
+                connection.keyCommands().del(accessIndexKey(name), expiryIndexKey(name));
+            }
+        }
+    }
+
+    /**
+     * Number of entries tracked by the access index, or -1 if the cache has no policy.
+     */
+    public long countEntries(String name) {
+        if (cacheProperties.getPolicy(name) == null) {
+            return -1;
+        }
+        try (RedisConnection connection = connectionFactory.getConnection()) {
+            Long count = connection.zSetCommands().zCard(accessIndexKey(name));
+            return count == null ? 0 : count;
+        }
+    }
+
+    /**
+     * Estimates the memory used by a cache from the MEMORY USAGE of a sample of its most recently indexed entries.
+     */
+    public long estimateMemoryUsage(String name, int sampleSize) {
+        if (cacheProperties.getPolicy(name) == null) {
+            return -1;
+        }
+        byte[] accessIndexKey = accessIndexKey(name);
+        try (RedisConnection connection = connectionFactory.getConnection()) {
+            Long count = connection.zSetCommands().zCard(accessIndexKey);
+            if (count == null || count == 0) {
+                return 0;
+            }
+            Set<byte[]> sample = connection.zSetCommands().zRevRange(accessIndexKey, 0, sampleSize - 1);
+            if (sample == null || sample.isEmpty()) {
+                return 0;
+            }
+            long sampledBytes = 0;
+            for (byte[] key : sample) {
+                sampledBytes += memoryUsage(connection, key);
+            }
+            long indexBytes = memoryUsage(connection, accessIndexKey) + memoryUsage(connection, expiryIndexKey(name));
+            return sampledBytes * count / sample.size() + indexBytes;
+        }
+    }
+
+    @Override
+    public void clearStatistics(String name) {
+        delegate.clearStatistics(name);
+    }
+
+    @Override
+    public CacheStatistics getCacheStatistics(String cacheName) {
+        return delegate.getCacheStatistics(cacheName);
+    }
+
+    @Override
+    public RedisCacheWriter withStatisticsCollector(CacheStatisticsCollector cacheStatisticsCollector) {
+        return new PolicyRedisCacheWriter(connectionFactory, delegate.withStatisticsCollector(cacheStatisticsCollector),
+                cacheConfiguration, cacheProperties, meterRegistry);
+    }
+
+    private Object evalPut(RedisConnection connection, String name, CacheProperties.Policy policy,
+                           byte[] key, byte[] value, Duration ttl) {
+        Duration effectiveTtl = effectiveTtl(policy, ttl);
+        long ttlMillis = effectiveTtl == null || effectiveTtl.isNegative() ? 0 : effectiveTtl.toMillis();
+        return connection.scriptingCommands().evalSha(PUT_SCRIPT.getSha1(), ReturnType.MULTI, 3,
+                key, accessIndexKey(name), expiryIndexKey(name),
+                value, toBytes(ttlMillis), toBytes(System.currentTimeMillis()), toBytes(policy.getMaxEntries()),
+                toBytes(policy.getEviction().name()));
+    }
+
+    private byte[] evalGet(RedisConnection connection, String name, CacheProperties.Policy policy, byte[] key, long now) {
+        // A sampled LFU hit counts for all the reads the sample stands for, so frequencies stay comparable.
+        long increment = Math.max(1, Math.round(1 / policy.getAccessSampleRate()));
+        return connection.scriptingCommands().evalSha(GET_SCRIPT.getSha1(), ReturnType.VALUE, 2,
+                key, accessIndexKey(name), toBytes(now), toBytes(policy.getEviction().name()), toBytes(increment));
+    }
+
+    /**
+     * Runs the commands in one pipeline. If the server has lost the scripts, e.g. after a restart or a failover,
+     * they are loaded and the pipeline is sent once more, which at worst counts some accesses twice.
+     */
+    private List<Object> pipelined(Consumer<RedisConnection> commands) {
+        try (RedisConnection connection = connectionFactory.getConnection()) {
+            try {
+                connection.openPipeline();
+                commands.accept(connection);
+                return connection.closePipeline();
+            } catch (RuntimeException e) {
+                if (!isNoScript(e)) {
+                    throw e;
+                }
+            }
+            loadScripts(connection);
+            connection.openPipeline();
+            commands.accept(connection);
+            return connection.closePipeline();
+        }
+    }
+
+    private static void loadScripts(RedisConnection connection) {
+        connection.scriptingCommands().scriptLoad(PUT_SCRIPT.getScriptAsString().getBytes(StandardCharsets.UTF_8));
+        connection.scriptingCommands().scriptLoad(GET_SCRIPT.getScriptAsString().getBytes(StandardCharsets.UTF_8));
+        connection.scriptingCommands().scriptLoad(RECORD_SCRIPT.getScriptAsString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static boolean isNoScript(Throwable e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause.getMessage() != null && cause.getMessage().contains("NOSCRIPT")) {
+                return true;
+            }
+            if (cause instanceof RedisPipelineException pipelineException) {
+                for (Object result : pipelineException.getPipelineResult()) {
+                    if (result instanceof Throwable failure && isNoScript(failure)) {
+                        return true;
+                    }
+                }
+            }
+        }
+        return false;
+    }
+
+    private static boolean isAccessSampled(CacheProperties.Policy policy) {
+        double rate = policy.getAccessSampleRate();
+        return rate >= 1 || rate > 0 && ThreadLocalRandom.current().nextDouble() < rate;
+    }
+
+    protected Duration effectiveTtl(CacheProperties.Policy policy, Duration ttl) {
+        if (policy == null || policy.getTtl() == null || policy.getTtl().isZero()) {
+            return ttl;
+        }
+        long ttlMillis = policy.getTtl().toMillis();
+        double jitter = Math.min(Math.max(policy.getTtlJitter(), 0), 1);
+        if (jitter == 0) {
+            return policy.getTtl();
+        }
+        double factor = 1 + ThreadLocalRandom.current().nextDouble(-jitter, jitter);
+        return Duration.ofMillis(Math.max(1, Math.round(ttlMillis * factor)));
+    }
+
+    private static List<byte[]> evictedKeys(Object result) {
+        List<byte[]> keys = new ArrayList<>();
+        if (result instanceof List<?> list) {
+            for (Object key : list) {
+                if (key instanceof byte[] bytes) {
+                    keys.add(bytes);
+                }
+            }
+        }
+        return keys;
+    }
+
+    /**
+     * Deletes the entries a put evicted from the indexes. An entry written again in between is deleted as well,
+     * which costs its next reader a miss.
+     */
+    private void deleteEvicted(String name, List<byte[]> evicted) {
+        if (evicted.isEmpty()) {
+            return;
+        }
+        try (RedisConnection connection = connectionFactory.getConnection()) {
+            connection.keyCommands().del(evicted.toArray(byte[][]::new));
+        }
+        Counter.builder("cache.redis.evictions")
+                .tag("cache", name)
+                .description("Entries evicted to keep the cache within its maximum size")
+                .register(meterRegistry)
+                .increment(evicted.size());
+    }
+
+    private static long memoryUsage(RedisConnection connection, byte[] key) {
+        Object usage = connection.execute("MEMORY", "USAGE".getBytes(StandardCharsets.UTF_8), key);
+        return usage instanceof Number number ? number.longValue() : 0;
+    }
+
+    private byte[] accessIndexKey(String name) {
+        return serializeKey(INDEX_PREFIX + name + ACCESS_INDEX_SUFFIX);
+    }
+
+    private byte[] expiryIndexKey(String name) {
+        return serializeKey(INDEX_PREFIX + name + EXPIRY_INDEX_SUFFIX);
+    }
+
+    private byte[] serializeKey(String key) {
+        ByteBuffer buffer = cacheConfiguration.getKeySerializationPair().write(key);
+        byte[] bytes = new byte[buffer.remaining()];
+        buffer.get(bytes);
+        return bytes;
+    }
+
+    private static byte[] toBytes(Object value) {
+        return String.valueOf(value).getBytes(StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,40 @@
+package com.example.demo.caches;
+
+import org.springframework.data.redis.cache.RedisCacheConfiguration;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Encodes keys and values the same way {@link org.springframework.data.redis.cache.RedisCache} does,
+ * so entries accessed directly through a connection stay interchangeable with the cache abstraction.
+ */
+public class RedisCacheCodec {
+
+    private final RedisCacheConfiguration cacheConfiguration;
+
+    public RedisCacheCodec(RedisCacheConfiguration cacheConfiguration) {
+        this.cacheConfiguration = cacheConfiguration;
+    }
+
+    public byte[] serializeKey(String cacheName, Object key) {
+        return toBytes(cacheConfiguration.getKeySerializationPair().write(cacheConfiguration.getKeyPrefixFor(cacheName) + key));
+    }
+
+    public byte[] serializeValue(Object value) {
+        return toBytes(cacheConfiguration.getValueSerializationPair().write(value));
+    }
+
+    public Object deserializeValue(byte[] value) {
+        return value == null ? null : deserializeValue(ByteBuffer.wrap(value));
+    }
+
+    public Object deserializeValue(ByteBuffer value) {
+        return cacheConfiguration.getValueSerializationPair().read(value);
+    }
+
+    private static byte[] toBytes(ByteBuffer buffer) {
+        byte[] bytes = new byte[buffer.remaining()];
+        buffer.get(bytes);
+        return bytes;
+    }
+}
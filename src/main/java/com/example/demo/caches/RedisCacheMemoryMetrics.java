@@ -0,0 +1,61 @@
+package com.example.demo.caches;
+
+import com.example.demo.configs.CacheProperties;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Publishes the entry count and the estimated Redis memory usage of every cache that has a sizing policy.
+ * Values are refreshed in the background so that scraping the gauges never waits for Redis.
+ */
+@Component
+public class RedisCacheMemoryMetrics {
+
+    private static final Logger LOG = LoggerFactory.getLogger(RedisCacheMemoryMetrics.class);
+
+    private final PolicyRedisCacheWriter redisCacheWriter;
+    private final CacheProperties cacheProperties;
+    private final int sampleSize;
+
+    private final Map<String, AtomicLong> entries = new ConcurrentHashMap<>();
+    private final Map<String, AtomicLong> memoryUsage = new ConcurrentHashMap<>();
+
+    public RedisCacheMemoryMetrics(PolicyRedisCacheWriter redisCacheWriter,
+                                   CacheProperties cacheProperties,
+                                   MeterRegistry meterRegistry,
+                                   @Value("${cache.memory-metrics.sample-size:100}") int sampleSize) {
+        this.redisCacheWriter = redisCacheWriter;
+        this.cacheProperties = cacheProperties;
+        this.sampleSize = sampleSize;
+        for (String cacheName : cacheProperties.getPolicies().keySet()) {
+            Gauge.builder("cache.redis.entries", entries.computeIfAbsent(cacheName, name -> new AtomicLong()), AtomicLong::get)
+                    .tag("cache", cacheName)
+                    .register(meterRegistry);
+            Gauge.builder("cache.redis.memory", memoryUsage.computeIfAbsent(cacheName, name -> new AtomicLong()), AtomicLong::get)
+                    .tag("cache", cacheName)
+                    .baseUnit("bytes")
+                    .register(meterRegistry);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${cache.memory-metrics.interval:PT1M}")
+    public void refresh() {
+        for (String cacheName : cacheProperties.getPolicies().keySet()) {
+            try {
+                entries.get(cacheName).set(redisCacheWriter.countEntries(cacheName));
+                memoryUsage.get(cacheName).set(redisCacheWriter.estimateMemoryUsage(cacheName, sampleSize));
+            } catch (RuntimeException e) {
+                LOG.debug("Failed to refresh memory metrics of cache {}: {}", cacheName, e.getMessage());
+            }
+        }
+    }
+}
@@ -0,0 +1,453 @@
+package com.example.demo.caches;
+
+import com.example.demo.configs.CacheProperties;
+import com.example.demo.jfr.CacheEvent;
+import com.example.demo.timing.RequestTimings;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.data.redis.cache.RedisCacheConfiguration;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+
+import java.nio.ByteBuffer;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * {@link PolicyRedisCacheWriter} that never lets a slow or unavailable Redis fail the caller.
+ * Every call runs through a {@link CacheCircuitBreaker}. While Redis is unhealthy, reads are answered from a bounded
+ * local copy of recently seen values, bounded by count and total size, or as misses, and writes are skipped.
+ * Evictions that could not be applied, and the keys of writes that could not be applied, are remembered and removed
+ * in the background once the circuit closes, so no entry stays stale in Redis after an outage
+ * and no request waits for the replay.
+ * Keys found hot by a {@link HotKeyTracker} are answered from its short-lived local copy without calling Redis,
+ * and so are keys held by the {@link ClientSideCache}, which Redis invalidates as soon as they change.
+ * Reads served from either are counted and added to the access index of the cache in the background,
+ * so the most read keys are not the first ones a policy evicts.
+ * Every entry access emits a {@link CacheEvent} for Flight Recorder.
+ */
+public class ResilientRedisCacheWriter extends PolicyRedisCacheWriter implements AutoCloseable {
+
+    private static final long LOCAL_READ_FLUSH_MILLIS = 1000;
+    private static final int LOCAL_READ_MAX_KEYS = 10_000;
+
+    private final RedisCacheConfiguration cacheConfiguration;
+    private final CacheCircuitBreaker circuitBreaker;
+    private final HotKeyTracker hotKeyTracker;
+    private final ClientSideCache clientSideCache;
+    private final int staleCopyMaxEntries;
+    private final long staleCopyMaxBytes;
+    private final int pendingInvalidationsMaxEntries;
+    private final ScheduledExecutorService background;
+    private final Map<CacheKey, LongAdder> localReads = new ConcurrentHashMap<>();
+
+    private final LinkedHashMap<CacheKey, byte[]> staleCopy = new LinkedHashMap<>(16, 0.75f, true);
+    private long staleCopyBytes;
+    private final Set<CacheKey> pendingRemovals = new LinkedHashSet<>();
+    private final Map<String, byte[]> pendingCleans = new LinkedHashMap<>();
+
+    public ResilientRedisCacheWriter(RedisConnectionFactory connectionFactory,
+                                     RedisCacheConfiguration cacheConfiguration,
+                                     CacheProperties cacheProperties,
+                                     CacheCircuitBreaker circuitBreaker,
+                                     MeterRegistry meterRegistry) {
+        this(connectionFactory, cacheConfiguration, cacheProperties, circuitBreaker,
+                new HotKeyTracker(cacheProperties.getHotKeys(), meterRegistry), meterRegistry);
+    }
+
+    public ResilientRedisCacheWriter(RedisConnectionFactory connectionFactory,
+                                     RedisCacheConfiguration cacheConfiguration,
+                                     CacheProperties cacheProperties,
+                                     CacheCircuitBreaker circuitBreaker,
+                                     HotKeyTracker hotKeyTracker,
+                                     MeterRegistry meterRegistry) {
+        this(connectionFactory, cacheConfiguration, cacheProperties, circuitBreaker, hotKeyTracker,
+                ClientSideCache.disabled(cacheConfiguration, meterRegistry), meterRegistry);
+    }
+
+    public ResilientRedisCacheWriter(RedisConnectionFactory connectionFactory,
+                                     RedisCacheConfiguration cacheConfiguration,
+                                     CacheProperties cacheProperties,
+                                     CacheCircuitBreaker circuitBreaker,
+                                     HotKeyTracker hotKeyTracker,
+                                     ClientSideCache clientSideCache,
+                                     MeterRegistry meterRegistry) {
+        super(connectionFactory, cacheConfiguration, cacheProperties, meterRegistry);
+        this.cacheConfiguration = cacheConfiguration;
+        this.circuitBreaker = circuitBreaker;
+        this.hotKeyTracker = hotKeyTracker;
+        this.clientSideCache = clientSideCache;
+        this.staleCopyMaxEntries = cacheProperties.getResilience().getStaleCopyMaxEntries();
+        this.staleCopyMaxBytes = cacheProperties.getResilience().getStaleCopyMaxSize().toBytes();
+        this.pendingInvalidationsMaxEntries = cacheProperties.getResilience().getPendingInvalidationsMaxEntries();
+        this.background = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "redis-cache-background");
+            thread.setDaemon(true);
+            return thread;
+        });
+        // The circuit closes on the thread of a request, which should not pay for the replay.
+        circuitBreaker.onClose(() -> background.execute(this::replayInvalidations));
+        background.scheduleWithFixedDelay(this::flushLocalReads,
+                LOCAL_READ_FLUSH_MILLIS, LOCAL_READ_FLUSH_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public byte[] get(String name, byte[] key) {
+        CacheEvent event = new CacheEvent();
+        event.begin();
+        byte[] localValue = getLocal(name, key);
+        if (localValue != null) {
+            event.commitRead(name, key, localValue);
+            return localValue;
+        }
+        long generation = hotKeyTracker.generation();
+        long trackingGeneration = clientSideCache.generation();
+        byte[] value = callRedis(() -> {
+            byte[] remoteValue = super.get(name, key);
+            rememberValue(name, key, remoteValue);
+            hotKeyTracker.recordRead(name, key, remoteValue, generation);
+            clientSideCache.put(name, key, remoteValue, trackingGeneration);
+            return remoteValue;
+        }, () -> staleValue(name, key));
+        event.commitRead(name, key, value);
+        return value;
+    }
+
+    @Override
+    public List<byte[]> getAll(String name, List<byte[]> keys) {
+        List<CacheEvent> events = CacheEvent.beginAll(keys.size());
+        List<byte[]> values = new ArrayList<>(keys.size());
+        List<byte[]> remoteKeys = new ArrayList<>(keys.size());
+        for (byte[] key : keys) {
+            byte[] localValue = getLocal(name, key);
+            values.add(localValue);
+            if (localValue == null) {
+                remoteKeys.add(key);
+            }
+        }
+        if (remoteKeys.isEmpty()) {
+            commitReads(events, name, keys, values);
+            return values;
+        }
+        long generation = hotKeyTracker.generation();
+        long trackingGeneration = clientSideCache.generation();
+        List<byte[]> remoteValues = callRedis(() -> {
+            List<byte[]> fetched = super.getAll(name, remoteKeys);
+            for (int i = 0; i < remoteKeys.size(); i++) {
+                rememberValue(name, remoteKeys.get(i), fetched.get(i));
+                hotKeyTracker.recordRead(name, remoteKeys.get(i), fetched.get(i), generation);
+                clientSideCache.put(name, remoteKeys.get(i), fetched.get(i), trackingGeneration);
+            }
+            return fetched;
+        }, () -> remoteKeys.stream()
+                .map(key -> staleValue(name, key))
+                .toList());
+        int next = 0;
+        for (int i = 0; i < values.size(); i++) {
+            if (values.get(i) == null) {
+                values.set(i, remoteValues.get(next++));
+            }
+        }
+        commitReads(events, name, keys, values);
+        return values;
+    }
+
+    @Override
+    public void put(String name, byte[] key, byte[] value, Duration ttl) {
+        invalidateLocal(name, key);
+        rememberValue(name, key, value);
+        CacheEvent event = new CacheEvent();
+        event.begin();
+        runRedis(() -> super.put(name, key, value, ttl), () -> addPendingRemoval(new CacheKey(name, key)));
+        event.commit(name, CacheEvent.PUT, key, value);
+    }
+
+    @Override
+    public void putExpiring(String name, byte[] key, byte[] value, Duration ttl) {
+        invalidateLocal(name, key);
+        CacheEvent event = new CacheEvent();
+        event.begin();
+        runRedis(() -> super.putExpiring(name, key, value, ttl), () -> addPendingRemoval(new CacheKey(name, key)));
+        event.commit(name, CacheEvent.PUT, key, value);
+    }
+
+    @Override
+    public void putAllExpiring(String name, Map<byte[], byte[]> entries, Duration ttl) {
+        entries.keySet().forEach(key -> invalidateLocal(name, key));
+        List<CacheEvent> events = CacheEvent.beginAll(entries.size());
+        runRedis(() -> super.putAllExpiring(name, entries, ttl),
+                () -> entries.keySet().forEach(key -> addPendingRemoval(new CacheKey(name, key))));
+        commitWrites(events, name, entries);
+    }
+
+    @Override
+    public void putAll(String name, Map<byte[], byte[]> entries) {
+        entries.forEach((key, value) -> {
+            invalidateLocal(name, key);
+            rememberValue(name, key, value);
+        });
+        List<CacheEvent> events = CacheEvent.beginAll(entries.size());
+        runRedis(() -> super.putAll(name, entries),
+                () -> entries.keySet().forEach(key -> addPendingRemoval(new CacheKey(name, key))));
+        commitWrites(events, name, entries);
+    }
+
+    @Override
+    public byte[] putIfAbsent(String name, byte[] key, byte[] value, Duration ttl) {
+        invalidateLocal(name, key);
+        CacheEvent event = new CacheEvent();
+        event.begin();
+        byte[] existing = callRedis(() -> {
+            byte[] remoteValue = super.putIfAbsent(name, key, value, ttl);
+            rememberValue(name, key, remoteValue == null ? value : remoteValue);
+            return remoteValue;
+        }, () -> {
+            addPendingRemoval(new CacheKey(name, key));
+            return null;
+        });
+        event.commit(name, existing == null ? CacheEvent.PUT : CacheEvent.HIT, key, existing == null ? value : existing);
+        return existing;
+    }
+
+    @Override
+    public void remove(String name, byte[] key) {
+        CacheKey cacheKey = new CacheKey(name, key);
+        invalidateLocal(name, key);
+        forgetValue(cacheKey);
+        CacheEvent event = new CacheEvent();
+        event.begin();
+        runRedis(() -> super.remove(name, key), () -> addPendingRemoval(cacheKey));
+        event.commit(name, CacheEvent.EVICT, key, null);
+    }
+
+    @Override
+    public void removeAll(String name, List<byte[]> keys) {
+        List<CacheKey> cacheKeys = keys.stream()
+                .map(key -> new CacheKey(name, key))
+                .toList();
+        keys.forEach(key -> invalidateLocal(name, key));
+        cacheKeys.forEach(this::forgetValue);
+        List<CacheEvent> events = CacheEvent.beginAll(keys.size());
+        runRedis(() -> super.removeAll(name, keys), () -> cacheKeys.forEach(this::addPendingRemoval));
+        for (int i = 0; i < events.size(); i++) {
+            events.get(i).commit(name, CacheEvent.EVICT, keys.get(i), null);
+        }
+    }
+
+    @Override
+    public void clean(String name, byte[] pattern) {
+        hotKeyTracker.invalidateAll(name);
+        clientSideCache.invalidateAll(name);
+        forgetValues(name);
+        CacheEvent event = new CacheEvent();
+        event.begin();
+        runRedis(() -> super.clean(name, pattern), () -> addPendingClean(name, pattern));
+        event.commit(name, CacheEvent.CLEAN, pattern, null);
+    }
+
+    @Override
+    public long countEntries(String name) {
+        return callRedis(() -> super.countEntries(name), () -> -1L);
+    }
+
+    @Override
+    public long estimateMemoryUsage(String name, int sampleSize) {
+        return callRedis(() -> super.estimateMemoryUsage(name, sampleSize), () -> -1L);
+    }
+
+    private void replayInvalidations() {
+        Map<String, byte[]> cleans;
+        List<CacheKey> removals;
+        synchronized (pendingRemovals) {
+            cleans = new LinkedHashMap<>(pendingCleans);
+            removals = new ArrayList<>(pendingRemovals);
+            pendingCleans.clear();
+            pendingRemovals.clear();
+        }
+        cleans.forEach((name, pattern) ->
+                runRedis(() -> super.clean(name, pattern), () -> addPendingClean(name, pattern)));
+        Map<String, List<byte[]>> keysByName = new LinkedHashMap<>();
+        for (CacheKey cacheKey : removals) {
+            keysByName.computeIfAbsent(cacheKey.name(), name -> new ArrayList<>()).add(cacheKey.key().array());
+        }
+        keysByName.forEach((name, keys) -> runRedis(() -> super.removeAll(name, keys),
+                () -> keys.forEach(key -> addPendingRemoval(new CacheKey(name, key)))));
+    }
+
+    /**
+     * Adds the reads served locally since the last flush to the access indexes, one script call per cache.
+     * Reads that cannot be recorded while Redis is unhealthy are dropped.
+     */
+    void flushLocalReads() {
+        Map<String, Map<byte[], Long>> readsByName = new HashMap<>();
+        for (CacheKey cacheKey : localReads.keySet()) {
+            LongAdder reads = localReads.remove(cacheKey);
+            if (reads != null) {
+                readsByName.computeIfAbsent(cacheKey.name(), name -> new LinkedHashMap<>())
+                        .put(cacheKey.key().array(), reads.sum());
+            }
+        }
+        readsByName.forEach((name, reads) -> runRedis(() -> recordAccesses(name, reads), () -> {}));
+    }
+
+    @Override
+    public void close() {
+        background.shutdownNow();
+    }
+
+    /**
+     * Returns the value of the key held by the client-side cache or the hot key copy, or {@code null} if neither has it.
+     */
+    private byte[] getLocal(String name, byte[] key) {
+        byte[] value = clientSideCache.get(name, key);
+        if (value == null) {
+            value = hotKeyTracker.getLocal(name, key);
+        }
+        if (value != null) {
+            recordLocalRead(name, key);
+        }
+        return value;
+    }
+
+    private void recordLocalRead(String name, byte[] key) {
+        if (!recordsAccesses(name)) {
+            return;
+        }
+        CacheKey cacheKey = new CacheKey(name, key);
+        LongAdder reads = localReads.get(cacheKey);
+        if (reads == null) {
+            // Beyond the limit further keys are not counted until the next flush, like unsampled reads.
+            if (localReads.size() >= LOCAL_READ_MAX_KEYS) {
+                return;
+            }
+            reads = localReads.computeIfAbsent(cacheKey, k -> new LongAdder());
+        }
+        reads.increment();
+    }
+
+    private void invalidateLocal(String name, byte[] key) {
+        hotKeyTracker.invalidate(name, key);
+        clientSideCache.invalidate(name, key);
+    }
+
+    private static void commitWrites(List<CacheEvent> events, String name, Map<byte[], byte[]> entries) {
+        if (events.isEmpty()) {
+            return;
+        }
+        int i = 0;
+        for (Map.Entry<byte[], byte[]> entry : entries.entrySet()) {
+            events.get(i++).commit(name, CacheEvent.PUT, entry.getKey(), entry.getValue());
+        }
+    }
+
+    private static void commitReads(List<CacheEvent> events, String name, List<byte[]> keys, List<byte[]> values) {
+        for (int i = 0; i < events.size(); i++) {
+            events.get(i).commitRead(name, keys.get(i), values.get(i));
+        }
+    }
+
+    /**
+     * Calls Redis through the circuit breaker, attributing the time to the cache stage of the current request.
+     */
+    private <T> T callRedis(Supplier<T> action, Supplier<T> fallback) {
+        try (RequestTimings.Scope ignored = RequestTimings.stage(RequestTimings.Stage.CACHE)) {
+            return circuitBreaker.call(action, fallback);
+        }
+    }
+
+    private void runRedis(Runnable action, Runnable fallback) {
+        try (RequestTimings.Scope ignored = RequestTimings.stage(RequestTimings.Stage.CACHE)) {
+            circuitBreaker.run(action, fallback);
+        }
+    }
+
+    private void addPendingRemoval(CacheKey cacheKey) {
+        synchronized (pendingRemovals) {
+            if (pendingCleans.containsKey(cacheKey.name())) {
+                return;
+            }
+            if (pendingRemovals.size() < pendingInvalidationsMaxEntries) {
+                pendingRemovals.add(cacheKey);
+                return;
+            }
+        }
+        // Too many missed evictions to track one by one, so the whole cache is cleared once Redis is back.
+        addPendingClean(cacheKey.name(), null);
+    }
+
+    private void addPendingClean(String name, byte[] pattern) {
+        synchronized (pendingRemovals) {
+            pendingCleans.put(name, pattern != null ? pattern : pendingCleans.getOrDefault(name, cleanPattern(name)));
+            pendingRemovals.removeIf(cacheKey -> cacheKey.name().equals(name));
+        }
+    }
+
+    private byte[] cleanPattern(String name) {
+        ByteBuffer buffer = cacheConfiguration.getKeySerializationPair().write(cacheConfiguration.getKeyPrefixFor(name) + "*");
+        byte[] bytes = new byte[buffer.remaining()];
+        buffer.get(bytes);
+        return bytes;
+    }
+
+    private void rememberValue(String name, byte[] key, byte[] value) {
+        if (staleCopyMaxEntries <= 0 || value == null) {
+            return;
+        }
+        CacheKey cacheKey = new CacheKey(name, key);
+        synchronized (staleCopy) {
+            if (value.length > staleCopyMaxBytes) {
+                forgetValue(cacheKey);
+                return;
+            }
+            byte[] previous = staleCopy.put(cacheKey, value);
+            staleCopyBytes += value.length - (previous == null ? 0 : previous.length);
+            Iterator<byte[]> eldest = staleCopy.values().iterator();
+            while (staleCopy.size() > staleCopyMaxEntries || staleCopyBytes > staleCopyMaxBytes) {
+                staleCopyBytes -= eldest.next().length;
+                eldest.remove();
+            }
+        }
+    }
+
+    private byte[] staleValue(String name, byte[] key) {
+        if (staleCopyMaxEntries <= 0) {
+            return null;
+        }
+        synchronized (staleCopy) {
+            return staleCopy.get(new CacheKey(name, key));
+        }
+    }
+
+    private void forgetValue(CacheKey cacheKey) {
+        synchronized (staleCopy) {
+            byte[] previous = staleCopy.remove(cacheKey);
+            if (previous != null) {
+                staleCopyBytes -= previous.length;
+            }
+        }
+    }
+
+    private void forgetValues(String name) {
+        synchronized (staleCopy) {
+            Iterator<Map.Entry<CacheKey, byte[]>> entries = staleCopy.entrySet().iterator();
+            while (entries.hasNext()) {
+                Map.Entry<CacheKey, byte[]> entry = entries.next();
+                if (entry.getKey().name().equals(name)) {
+                    staleCopyBytes -= entry.getValue().length;
+                    entries.remove();
+                }
+            }
+        }
+    }
+
+    private record CacheKey(String name, ByteBuffer key) {
+
+        CacheKey(String name, byte[] key) {
+            this(name, ByteBuffer.wrap(key));
+        }
+    }
+}
@@ -0,0 +1,32 @@
+package com.example.demo.caches;
+
+import com.example.demo.timing.RequestTimings;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.data.redis.serializer.SerializationException;
+
+/**
+ * Attributes the time another serializer spends encoding and decoding cache values to the serialization stage
+ * of the current request.
+ */
+public class TimingRedisSerializer implements RedisSerializer<Object> {
+
+    private final RedisSerializer<Object> delegate;
+
+    public TimingRedisSerializer(RedisSerializer<Object> delegate) {
+        this.delegate = delegate;
+    }
+
+    @Override
+    public byte[] serialize(Object value) throws SerializationException {
+        try (RequestTimings.Scope ignored = RequestTimings.stage(RequestTimings.Stage.SERIALIZATION)) {
+            return delegate.serialize(value);
+        }
+    }
+
+    @Override
+    public Object deserialize(byte[] bytes) throws SerializationException {
+        try (RequestTimings.Scope ignored = RequestTimings.stage(RequestTimings.Stage.SERIALIZATION)) {
+            return delegate.deserialize(bytes);
+        }
+    }
+}
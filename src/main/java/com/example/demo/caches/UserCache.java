@@ -0,0 +1,203 @@
+package com.example.demo.caches;
+
+import com.example.demo.configs.CacheConfig;
+import com.example.demo.models.User;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.Cache;
+import org.springframework.cache.support.SimpleValueWrapper;
+import org.springframework.data.redis.cache.RedisCacheConfiguration;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.*;
+
+/**
+ * Direct access to the per-id entries of the {@code users} cache, including batch and negative lookups.
+ * Keys and values are encoded exactly like {@link org.springframework.data.redis.cache.RedisCache} does,
+ * so entries written here are visible through the cache abstraction and vice versa.
+ */
+@Component
+public class UserCache {
+
+    public static final String CACHE_NAME = "users";
+    private static final String MISSING_KEY_PREFIX = "missing:";
+    private static final byte[] MISSING_VALUE = "1".getBytes(StandardCharsets.UTF_8);
+
+    private final RedisCacheConfiguration redisCacheConfiguration;
+    private final RedisCacheCodec redisCacheCodec;
+    private final PolicyRedisCacheWriter redisCacheWriter;
+    private final CacheConfig cacheConfig;
+    private final Duration negativeTtl;
+
+    private final Counter batchHits;
+    private final Counter batchMisses;
+    private final DistributionSummary batchHitRatio;
+
+    public UserCache(RedisCacheConfiguration redisCacheConfiguration,
+                     RedisCacheCodec redisCacheCodec,
+                     PolicyRedisCacheWriter redisCacheWriter,
+                     CacheConfig cacheConfig,
+                     MeterRegistry meterRegistry,
+                     @Value("${cache.users.negative-ttl:PT30S}") Duration negativeTtl) {
+        this.redisCacheConfiguration = redisCacheConfiguration;
+        this.redisCacheCodec = redisCacheCodec;
+        this.redisCacheWriter = redisCacheWriter;
+        this.cacheConfig = cacheConfig;
+        this.negativeTtl = negativeTtl;
+        this.batchHits = Counter.builder("users.cache.batch.requests")
+                .tag("result", "hit")
+                .register(meterRegistry);
+        this.batchMisses = Counter.builder("users.cache.batch.requests")
+                .tag("result", "miss")
+                .register(meterRegistry);
+        this.batchHitRatio = DistributionSummary.builder("users.cache.batch.hit.ratio")
+                .description("Share of ids per batch lookup that were served from the cache")
+                .register(meterRegistry);
+    }
+
+    public boolean isEnabled() {
+        return cacheConfig.isCacheEnabled();
+    }
+
+    /**
+     * Looks up a single user together with its negative entry in one round trip.
+     * Returns {@code null} on a miss and a wrapper of {@code null} if the user is known not to exist.
+     */
+    public Cache.ValueWrapper get(Long id) {
+        List<byte[]> values = redisCacheWriter.getAll(CACHE_NAME, List.of(serializeKey(id), serializeMissingKey(id)));
+        if (redisCacheCodec.deserializeValue(values.get(0)) instanceof User user) {
+            return new SimpleValueWrapper(user);
+        }
+        if (values.get(1) != null) {
+            return new SimpleValueWrapper(null);
+        }
+        return null;
+    }
+
+    /**
+     * Looks up only the negative entry of the id. Returns a wrapper of {@code null} if the user is known not to exist,
+     * {@code null} otherwise.
+     */
+    public Cache.ValueWrapper getMissing(Long id) {
+        return redisCacheWriter.get(CACHE_NAME, serializeMissingKey(id)) != null ? new SimpleValueWrapper(null) : null;
+    }
+
+    /**
+     * Fetches all given ids together with their negative entries in one pipelined round trip.
+     * Ids that are not cached are absent from the result, ids known not to exist map to a wrapper of {@code null}.
+     */
+    public Map<Long, Cache.ValueWrapper> getAll(Collection<Long> ids) {
+        List<Long> distinctIds = ids.stream()
+                .filter(Objects::nonNull)
+                .distinct()
+                .toList();
+        Map<Long, Cache.ValueWrapper> entries = new HashMap<>();
+        if (distinctIds.isEmpty()) {
+            return entries;
+        }
+
+        List<byte[]> keys = new ArrayList<>(distinctIds.size() * 2);
+        for (Long id : distinctIds) {
+            keys.add(serializeKey(id));
+            keys.add(serializeMissingKey(id));
+        }
+        List<byte[]> values = redisCacheWriter.getAll(CACHE_NAME, keys);
+        for (int i = 0; i < distinctIds.size(); i++) {
+            if (redisCacheCodec.deserializeValue(values.get(2 * i)) instanceof User user) {
+                entries.put(distinctIds.get(i), new SimpleValueWrapper(user));
+            } else if (values.get(2 * i + 1) != null) {
+                entries.put(distinctIds.get(i), new SimpleValueWrapper(null));
+            }
+        }
+
+        batchHits.increment(entries.size());
+        batchMisses.increment(distinctIds.size() - entries.size());
+        batchHitRatio.record((double) entries.size() / distinctIds.size());
+        return entries;
+    }
+
+    /**
+     * Writes all given users in one pipelined round trip, subject to the sizing policy of the cache.
+     */
+    public void putAll(Collection<User> users) {
+        Map<byte[], byte[]> entries = new LinkedHashMap<>();
+        for (User user : users) {
+            entries.put(serializeKey(user.getId()), redisCacheCodec.serializeValue(user));
+        }
+        redisCacheWriter.putAll(CACHE_NAME, entries);
+    }
+
+    public void put(User user) {
+        redisCacheWriter.put(CACHE_NAME, serializeKey(user.getId()), redisCacheCodec.serializeValue(user), redisCacheConfiguration.getTtl());
+    }
+
+    /**
+     * Remembers for a short time that no user with the given id exists.
+     */
+    public void putMissing(Long id) {
+        redisCacheWriter.putExpiring(CACHE_NAME, serializeMissingKey(id), MISSING_VALUE, negativeTtl);
+    }
+
+    /**
+     * Remembers for a short time that no users with the given ids exist, in one pipelined round trip.
+     */
+    public void putAllMissing(Collection<Long> ids) {
+        Map<byte[], byte[]> entries = new LinkedHashMap<>();
+        ids.stream()
+                .filter(Objects::nonNull)
+                .distinct()
+                .forEach(id -> entries.put(serializeMissingKey(id), MISSING_VALUE));
+        redisCacheWriter.putAllExpiring(CACHE_NAME, entries, negativeTtl);
+    }
+
+    public void evict(Long id) {
+        evictAll(List.of(id));
+    }
+
+    public void evictAll(Collection<Long> ids) {
+        List<Long> distinctIds = ids.stream()
+                .filter(Objects::nonNull)
+                .distinct()
+                .toList();
+        if (distinctIds.isEmpty()) {
+            return;
+        }
+        List<byte[]> keys = new ArrayList<>(distinctIds.size() * 2);
+        for (Long id : distinctIds) {
+            keys.add(serializeKey(id));
+            keys.add(serializeMissingKey(id));
+        }
+        redisCacheWriter.removeAll(CACHE_NAME, keys);
+    }
+
+    public void evictMissing(Long id) {
+        redisCacheWriter.remove(CACHE_NAME, serializeMissingKey(id));
+    }
+
+    public void evictAllMissing(Collection<Long> ids) {
+        List<byte[]> keys = ids.stream()
+                .filter(Objects::nonNull)
+                .distinct()
+                .map(this::serializeMissingKey)
+                .toList();
+        if (!keys.isEmpty()) {
+            redisCacheWriter.removeAll(CACHE_NAME, keys);
+        }
+    }
+
+    public void clear() {
+        redisCacheWriter.clean(CACHE_NAME, redisCacheCodec.serializeKey(CACHE_NAME, "*"));
+    }
+
+    private byte[] serializeKey(Long id) {
+        return redisCacheCodec.serializeKey(CACHE_NAME, id);
+    }
+
+    private byte[] serializeMissingKey(Long id) {
+        return redisCacheCodec.serializeKey(CACHE_NAME, MISSING_KEY_PREFIX + id);
+    }
+}
@@ -0,0 +1,78 @@
+package com.example.demo.caches;
+
+import com.example.demo.models.User;
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.function.Consumer;
+
+/**
+ * Keeps the user id bloom filter and the per-id cache entries in line with entity writes, whichever service makes them.
+ * Everything that would be wrong after a rollback is deferred until the transaction commits.
+ */
+public class UserCacheEntityListener {
+
+    private static final Logger LOG = LoggerFactory.getLogger(UserCacheEntityListener.class);
+
+    private final ObjectProvider<UserIdBloomFilter> userIdBloomFilter;
+    private final ObjectProvider<UserCache> userCache;
+
+    public UserCacheEntityListener(ObjectProvider<UserIdBloomFilter> userIdBloomFilter,
+                                   ObjectProvider<UserCache> userCache) {
+        this.userIdBloomFilter = userIdBloomFilter;
+        this.userCache = userCache;
+    }
+
+    @PostPersist
+    public void onPersist(User user) {
+        Long id = user.getId();
+        userIdBloomFilter.ifAvailable(bloomFilter -> bloomFilter.add(id));
+        afterCommit(() -> updateCache(cache -> cache.evictMissing(id)));
+    }
+
+    @PostUpdate
+    public void onUpdate(User user) {
+        Long id = user.getId();
+        afterCommit(() -> updateCache(cache -> cache.evict(id)));
+    }
+
+    @PostRemove
+    public void onRemove(User user) {
+        Long id = user.getId();
+        afterCommit(() -> {
+            userIdBloomFilter.ifAvailable(bloomFilter -> bloomFilter.remove(id));
+            updateCache(cache -> cache.evict(id));
+        });
+    }
+
+    private void updateCache(Consumer<UserCache> action) {
+        UserCache cache = userCache.getIfAvailable();
+        if (cache == null || !cache.isEnabled()) {
+            return;
+        }
+        try {
+            action.accept(cache);
+        } catch (RuntimeException e) {
+            LOG.warn("Failed to update the users cache after an entity write: {}", e.getMessage());
+        }
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+}
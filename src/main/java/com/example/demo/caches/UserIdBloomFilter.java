@@ -0,0 +1,132 @@
+package com.example.demo.caches;
+
+import com.example.demo.repositories.UserRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.stream.Stream;
+
+/**
+ * Bloom filter of the ids of all existing users, as far as this node knows them.
+ * The filter is seeded from the database on startup and rebuilt periodically, in between it only sees the writes
+ * this node makes. Users written by other nodes since the last rebuild are missing from it, so a negative answer
+ * is only a hint that lets a lookup skip the cache, while the database still decides.
+ */
+@Component
+public class UserIdBloomFilter {
+
+    private static final Logger LOG = LoggerFactory.getLogger(UserIdBloomFilter.class);
+
+    private final UserRepository userRepository;
+    private final boolean enabled;
+    private final long expectedInsertions;
+    private final double falsePositiveProbability;
+    private final Counter negatives;
+    private final Counter falseNegatives;
+
+    private volatile CountingBloomFilter filter;
+    private volatile CountingBloomFilter rebuildingFilter;
+
+    public UserIdBloomFilter(UserRepository userRepository,
+                             MeterRegistry meterRegistry,
+                             @Value("${cache.users.bloom-filter.enabled:true}") boolean enabled,
+                             @Value("${cache.users.bloom-filter.expected-insertions:1000000}") long expectedInsertions,
+                             @Value("${cache.users.bloom-filter.false-positive-probability:0.01}") double falsePositiveProbability) {
+        this.userRepository = userRepository;
+        this.enabled = enabled;
+        this.expectedInsertions = expectedInsertions;
+        this.falsePositiveProbability = falsePositiveProbability;
+        this.negatives = Counter.builder("users.bloom.filter.negatives")
+                .description("Lookups of ids unknown to the filter, sent to the database without a cache read")
+                .register(meterRegistry);
+        this.falseNegatives = Counter.builder("users.bloom.filter.false.negatives")
+                .description("Ids unknown to the filter that turned out to exist")
+                .register(meterRegistry);
+        Gauge.builder("users.bloom.filter.size", this, bloomFilter -> {
+                    CountingBloomFilter current = bloomFilter.filter;
+                    return current == null ? 0 : current.sizeInBytes();
+                })
+                .baseUnit("bytes")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Returns {@code false} if this node has not seen a user with the given id. Answers {@code true} until the filter is seeded.
+     */
+    public boolean mightContain(Long id) {
+        CountingBloomFilter current = filter;
+        if (current == null || current.mightContain(id)) {
+            return true;
+        }
+        negatives.increment();
+        return false;
+    }
+
+    /**
+     * Adds an id that {@link #mightContain(Long)} denied but the database found, so the next lookup reads the cache again.
+     */
+    public void addFalseNegative(Long id) {
+        falseNegatives.increment();
+        add(id);
+    }
+
+    public void add(Long id) {
+        CountingBloomFilter current = filter;
+        if (current != null) {
+            current.add(id);
+        }
+        CountingBloomFilter rebuilding = rebuildingFilter;
+        if (rebuilding != null) {
+            rebuilding.add(id);
+        }
+    }
+
+    public void remove(Long id) {
+        CountingBloomFilter current = filter;
+        if (current != null) {
+            current.remove(id);
+        }
+        CountingBloomFilter rebuilding = rebuildingFilter;
+        if (rebuilding != null) {
+            rebuilding.remove(id);
+        }
+    }
+
+    /**
+     * Drops the filter so every lookup goes to the cache and the database until the next rebuild.
+     */
+    public void reset() {
+        filter = null;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(fixedDelayString = "${cache.users.bloom-filter.refresh-interval:PT10M}",
+            initialDelayString = "${cache.users.bloom-filter.refresh-interval:PT10M}")
+    @Transactional(readOnly = true)
+    public void rebuild() {
+        if (!enabled) {
+            return;
+        }
+        long startTime = System.nanoTime();
+        CountingBloomFilter newFilter = new CountingBloomFilter(expectedInsertions, falsePositiveProbability);
+        rebuildingFilter = newFilter;
+        try (Stream<Long> ids = userRepository.streamAllIds()) {
+            ids.forEach(newFilter::add);
+            filter = newFilter;
+            LOG.info("User id bloom filter was rebuilt in {} milliseconds.", (System.nanoTime() - startTime) / 1_000_000);
+        } catch (RuntimeException e) {
+            LOG.warn("Failed to rebuild the user id bloom filter: {}", e.getMessage(), e);
+        } finally {
+            rebuildingFilter = null;
+        }
+    }
+}
@@ -0,0 +1,187 @@
+package com.example.demo.caches;
+
+import com.example.demo.models.User;
+import com.example.demo.repositories.UserRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.redis.cache.RedisCacheConfiguration;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+import java.util.stream.LongStream;
+
+/**
+ * Cached list of all users, split into segments by id range so no single Redis value holds the whole table.
+ * A small manifest under the {@code all} key records which segments exist. Segments are fetched in one
+ * pipelined round trip and decoded on demand, and a write drops only the segment its id falls into,
+ * which the next read reloads. Writers do not put the segment back themselves, since two of them could finish
+ * in the wrong order and leave the older snapshot cached.
+ * A segment whose header is unreadable is reloaded before the list is returned, and one whose users turn out
+ * not to decode is reloaded when it is first read, so a corrupt entry never fails the caller.
+ */
+@Component
+public class UserListCache {
+
+    private static final Logger LOG = LoggerFactory.getLogger(UserListCache.class);
+
+    private static final String MANIFEST_KEY = "all";
+    private static final String SEGMENT_KEY_PREFIX = "all:segment:";
+
+    private final UserRepository userRepository;
+    private final RedisCacheConfiguration redisCacheConfiguration;
+    private final RedisCacheCodec redisCacheCodec;
+    private final PolicyRedisCacheWriter redisCacheWriter;
+    private final UserListSegmentCodec segmentCodec;
+    private final int segmentSize;
+
+    public UserListCache(UserRepository userRepository,
+                         RedisCacheConfiguration redisCacheConfiguration,
+                         RedisCacheCodec redisCacheCodec,
+                         PolicyRedisCacheWriter redisCacheWriter,
+                         UserListSegmentCodec segmentCodec,
+                         @Value("${cache.users.list.segment-size:1000}") int segmentSize) {
+        if (segmentSize <= 0) {
+            throw new IllegalArgumentException("Segment size must be positive.");
+        }
+        this.userRepository = userRepository;
+        this.redisCacheConfiguration = redisCacheConfiguration;
+        this.redisCacheCodec = redisCacheCodec;
+        this.redisCacheWriter = redisCacheWriter;
+        this.segmentCodec = segmentCodec;
+        this.segmentSize = segmentSize;
+    }
+
+    /**
+     * Returns all users ordered by id. Segments missing from the cache are reloaded from the database and written back,
+     * and the whole list is rebuilt if the manifest is missing. On a hit the result is a {@link LazyUserList},
+     * which decodes segments only when their users are read.
+     */
+    public List<User> getUsers() {
+        UserListManifest manifest = getManifest();
+        if (manifest == null || manifest.segmentSize() != segmentSize) {
+            return rebuild();
+        }
+
+        List<Long> segments = LongStream.rangeClosed(manifest.firstSegment(), manifest.lastSegment())
+                .boxed()
+                .toList();
+        List<byte[]> values = redisCacheWriter.getAll(UserCache.CACHE_NAME, segments.stream()
+                .map(this::serializeSegmentKey)
+                .toList());
+
+        // Segments are only reloaded when missing, the others stay encoded until the caller reads them.
+        List<List<User>> reloadedUsers = new ArrayList<>(Collections.nCopies(segments.size(), null));
+        Map<byte[], byte[]> reloadedSegments = new LinkedHashMap<>();
+        for (int i = 0; i < segments.size(); i++) {
+            int count = segmentCodec.count(values.get(i));
+            if (count < 0 || count > segmentSize) {
+                List<User> segmentUsers = loadSegment(segments.get(i));
+                reloadedUsers.set(i, segmentUsers);
+                reloadedSegments.put(serializeSegmentKey(segments.get(i)), segmentCodec.encode(segmentUsers));
+            }
+        }
+        redisCacheWriter.putAll(UserCache.CACHE_NAME, reloadedSegments);
+        return new LazyUserList(segmentCodec, values, reloadedUsers, index -> reloadSegment(segments.get(index)));
+    }
+
+    /**
+     * Drops the segment containing the given id. Does nothing if the list is not cached,
+     * and drops the manifest if the id lies outside the cached segments so the next read rebuilds it.
+     */
+    public void invalidate(Long id) {
+        invalidateAll(List.of(id));
+    }
+
+    /**
+     * Drops every segment containing one of the given ids in one pipelined round trip.
+     * Drops the manifest instead if any id lies outside the cached segments.
+     */
+    public void invalidateAll(Collection<Long> ids) {
+        UserListManifest manifest = getManifest();
+        if (manifest == null) {
+            return;
+        }
+        Set<Long> segments = new TreeSet<>();
+        ids.stream()
+                .filter(Objects::nonNull)
+                .forEach(id -> segments.add(segmentOf(id)));
+        if (manifest.segmentSize() != segmentSize || !segments.stream().allMatch(manifest::contains)) {
+            redisCacheWriter.remove(UserCache.CACHE_NAME, serializeManifestKey());
+            return;
+        }
+        if (!segments.isEmpty()) {
+            redisCacheWriter.removeAll(UserCache.CACHE_NAME, segments.stream()
+                    .map(this::serializeSegmentKey)
+                    .toList());
+        }
+    }
+
+    /**
+     * Removes the manifest and all segments it lists in one pipelined round trip.
+     */
+    public void evict() {
+        UserListManifest manifest = getManifest();
+        List<byte[]> keys = new ArrayList<>();
+        keys.add(serializeManifestKey());
+        if (manifest != null) {
+            LongStream.rangeClosed(manifest.firstSegment(), manifest.lastSegment())
+                    .forEach(segment -> keys.add(serializeSegmentKey(segment)));
+        }
+        redisCacheWriter.removeAll(UserCache.CACHE_NAME, keys);
+    }
+
+    private List<User> rebuild() {
+        List<User> users = userRepository.findAll(Sort.by("id"));
+        long firstSegment = users.isEmpty() ? 0 : segmentOf(users.get(0).getId());
+        long lastSegment = users.isEmpty() ? -1 : segmentOf(users.get(users.size() - 1).getId());
+
+        Map<Long, ArrayList<User>> usersBySegment = new TreeMap<>();
+        LongStream.rangeClosed(firstSegment, lastSegment).forEach(segment -> usersBySegment.put(segment, new ArrayList<>()));
+        users.forEach(user -> usersBySegment.get(segmentOf(user.getId())).add(user));
+
+        Map<byte[], byte[]> entries = new LinkedHashMap<>();
+        usersBySegment.forEach((segment, segmentUsers) ->
+                entries.put(serializeSegmentKey(segment), segmentCodec.encode(segmentUsers)));
+        redisCacheWriter.putAll(UserCache.CACHE_NAME, entries);
+        // The manifest goes last, so readers never see it before the segments it lists.
+        redisCacheWriter.put(UserCache.CACHE_NAME, serializeManifestKey(),
+                redisCacheCodec.serializeValue(new UserListManifest(segmentSize, firstSegment, lastSegment)),
+                redisCacheConfiguration.getTtl());
+        return users;
+    }
+
+    /**
+     * Replaces a segment that could not be decoded with its current users from the database.
+     */
+    private List<User> reloadSegment(long segment) {
+        LOG.warn("Cached user list segment {} could not be decoded, reloading it from the database.", segment);
+        List<User> users = loadSegment(segment);
+        redisCacheWriter.put(UserCache.CACHE_NAME, serializeSegmentKey(segment), segmentCodec.encode(users),
+                redisCacheConfiguration.getTtl());
+        return users;
+    }
+
+    private List<User> loadSegment(long segment) {
+        long from = segment * segmentSize;
+        return new ArrayList<>(userRepository.findAllByIdBetweenOrderByIdAsc(from, from + segmentSize - 1));
+    }
+
+    private UserListManifest getManifest() {
+        byte[] value = redisCacheWriter.get(UserCache.CACHE_NAME, serializeManifestKey());
+        return redisCacheCodec.deserializeValue(value) instanceof UserListManifest manifest ? manifest : null;
+    }
+
+    private long segmentOf(Long id) {
+        return Math.floorDiv(id, segmentSize);
+    }
+
+    private byte[] serializeManifestKey() {
+        return redisCacheCodec.serializeKey(UserCache.CACHE_NAME, MANIFEST_KEY);
+    }
+
+    private byte[] serializeSegmentKey(long segment) {
+        return redisCacheCodec.serializeKey(UserCache.CACHE_NAME, SEGMENT_KEY_PREFIX + segment);
+    }
+}
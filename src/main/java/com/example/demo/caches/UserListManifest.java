@@ -0,0 +1,13 @@
+package com.example.demo.caches;
+
+/**
+ * Describes how the cached user list is split: users with ids in
+ * {@code [segment * segmentSize, (segment + 1) * segmentSize)} are stored in one segment,
+ * for every segment from {@code firstSegment} to {@code lastSegment}.
+ */
+public record UserListManifest(int segmentSize, long firstSegment, long lastSegment) {
+
+    public boolean contains(long segment) {
+        return segment >= firstSegment && segment <= lastSegment;
+    }
+}
@@ -0,0 +1,112 @@
+package com.example.demo.caches;
+
+import com.example.demo.models.User;
+import com.example.demo.timing.RequestTimings;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.stream.IntStream;
+
+/**
+ * Encodes and decodes the segments of the cached user list. A segment is a short header holding its number of users,
+ * followed by the users encoded by {@link RedisCacheCodec}, so the size of a list is known without decoding it.
+ * Each segment is an independent value, so several of them are decoded at once on a dedicated fork-join pool,
+ * and a full decode costs roughly the list length divided by the cores.
+ */
+@Component
+public class UserListSegmentCodec {
+
+    private static final byte SEGMENT_MARKER = 0x1E;
+    private static final byte VERSION = 0x01;
+    private static final int HEADER_LENGTH = 6;
+
+    private final RedisCacheCodec redisCacheCodec;
+    private final int parallelThreshold;
+    private final ForkJoinPool pool;
+
+    public UserListSegmentCodec(RedisCacheCodec redisCacheCodec,
+                                @Value("${cache.users.list.decode-parallelism:0}") int parallelism,
+                                @Value("${cache.users.list.parallel-decode-threshold:4}") int parallelThreshold) {
+        this.redisCacheCodec = redisCacheCodec;
+        this.parallelThreshold = parallelThreshold;
+        int threads = parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors();
+        this.pool = threads > 1 ? new ForkJoinPool(threads, UserListSegmentCodec::newThread, null, false) : null;
+    }
+
+    public byte[] encode(List<User> users) {
+        byte[] payload = redisCacheCodec.serializeValue(users);
+        return ByteBuffer.allocate(HEADER_LENGTH + payload.length)
+                .put(SEGMENT_MARKER)
+                .put(VERSION)
+                .putInt(users.size())
+                .put(payload)
+                .array();
+    }
+
+    /**
+     * Returns the number of users in the segment without decoding it, or -1 if the segment is missing
+     * or was written in another format.
+     */
+    public int count(byte[] segment) {
+        if (segment == null || segment.length < HEADER_LENGTH
+                || segment[0] != SEGMENT_MARKER || segment[1] != VERSION) {
+            return -1;
+        }
+        return ByteBuffer.wrap(segment, 2, 4).getInt();
+    }
+
+    /**
+     * Returns the users of the segment, or {@code null} if the segment is missing or unreadable.
+     */
+    @SuppressWarnings("unchecked")
+    public List<User> decode(byte[] segment) {
+        if (count(segment) < 0) {
+            return null;
+        }
+        Object users;
+        try {
+            users = redisCacheCodec.deserializeValue(ByteBuffer.wrap(segment, HEADER_LENGTH, segment.length - HEADER_LENGTH));
+        } catch (RuntimeException e) {
+            return null;
+        }
+        return users instanceof List<?> ? (List<User>) users : null;
+    }
+
+    /**
+     * Decodes the given segments in their order, in parallel unless there are fewer than the threshold.
+     */
+    public List<List<User>> decodeAll(List<byte[]> segments) {
+        // Workers do not see the caller's request timings, so the caller's wait is what counts as serialization.
+        try (RequestTimings.Scope ignored = RequestTimings.stage(RequestTimings.Stage.SERIALIZATION)) {
+            if (pool == null || segments.size() < parallelThreshold) {
+                List<List<User>> decoded = new ArrayList<>(segments.size());
+                segments.forEach(segment -> decoded.add(decode(segment)));
+                return decoded;
+            }
+            return pool.submit(() -> IntStream.range(0, segments.size())
+                            .parallel()
+                            .mapToObj(i -> decode(segments.get(i)))
+                            .toList())
+                    .join();
+        }
+    }
+
+    @PreDestroy
+    public void close() {
+        if (pool != null) {
+            pool.shutdownNow();
+        }
+    }
+
+    private static ForkJoinWorkerThread newThread(ForkJoinPool pool) {
+        ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+        thread.setName("user-list-decode-" + thread.getPoolIndex());
+        return thread;
+    }
+}
@@ -1,9 +1,36 @@
 package com.example.demo.configs;
 
+import com.example.demo.caches.CacheCircuitBreaker;
+import com.example.demo.caches.ClientSideCache;
+import com.example.demo.caches.CompressingRedisSerializer;
+import com.example.demo.caches.HotKeyTracker;
+import com.example.demo.caches.OffHeapCacheWriter;
+import com.example.demo.caches.OffHeapStore;
+import com.example.demo.caches.PolicyRedisCacheWriter;
+import com.example.demo.caches.RedisCacheCodec;
+import com.example.demo.caches.ResilientRedisCacheWriter;
+import com.example.demo.caches.TimingRedisSerializer;
+import com.example.demo.models.NameInterner;
+import io.lettuce.core.ClientOptions;
+import io.lettuce.core.RedisURI;
+import io.lettuce.core.SocketOptions;
+import io.lettuce.core.TimeoutOptions;
+import io.lettuce.core.protocol.CommandType;
+import io.lettuce.core.protocol.RedisCommand;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.boot.actuate.data.redis.RedisHealthIndicator;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.autoconfigure.cache.CacheType;
+import org.springframework.boot.autoconfigure.data.redis.LettuceClientConfigurationBuilderCustomizer;
+import org.springframework.boot.autoconfigure.data.redis.RedisProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.CachingConfigurer;
 import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.cache.interceptor.CacheErrorHandler;
+import org.springframework.cache.interceptor.LoggingCacheErrorHandler;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.data.redis.cache.RedisCacheConfiguration;
@@ -11,27 +38,169 @@ import org.springframework.data.redis.cache.RedisCacheManager;
 import org.springframework.data.redis.connection.RedisConnectionFactory;
 import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer;
 import org.springframework.data.redis.serializer.RedisSerializationContext;
+import org.springframework.data.redis.serializer.RedisSerializer;
+
+import java.time.Duration;
+import java.util.EnumSet;
+import java.util.Set;
 
 @Configuration
 @EnableCaching
-public class CacheConfig {
+@EnableConfigurationProperties(CacheProperties.class)
+public class CacheConfig implements CachingConfigurer {
 
     @Value("${spring.cache.type}")
     private CacheType cacheType;
 
     @Bean
-    public CacheManager cacheManager(RedisConnectionFactory redisConnectionFactory) {
+    public RedisCacheConfiguration redisCacheConfiguration(CacheProperties cacheProperties, MeterRegistry meterRegistry) {
+        RedisSerializer<Object> valueSerializer = new GenericJackson2JsonRedisSerializer();
+        CacheProperties.Compression compression = cacheProperties.getCompression();
+        if (compression.isEnabled()) {
+            valueSerializer = new CompressingRedisSerializer(valueSerializer,
+                    compression.getThreshold(), compression.getLevel(), meterRegistry);
+        }
+        valueSerializer = new TimingRedisSerializer(valueSerializer);
         RedisSerializationContext.SerializationPair<Object> jsonSerializer =
-                RedisSerializationContext.SerializationPair.fromSerializer(new GenericJackson2JsonRedisSerializer());
+                RedisSerializationContext.SerializationPair.fromSerializer(valueSerializer);
 
-        RedisCacheConfiguration cacheConfiguration = RedisCacheConfiguration.defaultCacheConfig()
+        return RedisCacheConfiguration.defaultCacheConfig()
                 .serializeValuesWith(jsonSerializer);
+    }
+
+    @Bean
+    public RedisCacheCodec redisCacheCodec(RedisCacheConfiguration redisCacheConfiguration) {
+        return new RedisCacheCodec(redisCacheConfiguration);
+    }
+
+    @Bean
+    public CacheCircuitBreaker cacheCircuitBreaker(CacheProperties cacheProperties, MeterRegistry meterRegistry) {
+        CacheProperties.Resilience resilience = cacheProperties.getResilience();
+        return new CacheCircuitBreaker(resilience.getFailureThreshold(), resilience.getOpenDuration(), meterRegistry);
+    }
 
-        return RedisCacheManager.builder(redisConnectionFactory)
-                .cacheDefaults(cacheConfiguration)
+    @Bean
+    public HotKeyTracker hotKeyTracker(CacheProperties cacheProperties, MeterRegistry meterRegistry) {
+        return new HotKeyTracker(cacheProperties.getHotKeys(), meterRegistry);
+    }
+
+    /**
+     * Opens its own RESP3 connection to the Redis server of the cache, since tracking messages are pushed
+     * on the connection that asked for them and the pooled connections of the connection factory come and go.
+     */
+    @Bean(initMethod = "start", destroyMethod = "close")
+    public ClientSideCache clientSideCache(CacheProperties cacheProperties,
+                                           RedisProperties redisProperties,
+                                           RedisCacheConfiguration redisCacheConfiguration,
+                                           MeterRegistry meterRegistry) {
+        RedisURI.Builder redisUri = RedisURI.builder()
+                .withHost(redisProperties.getHost())
+                .withPort(redisProperties.getPort())
+                .withDatabase(redisProperties.getDatabase())
+                .withSsl(redisProperties.getSsl().isEnabled());
+        if (redisProperties.getPassword() != null) {
+            if (redisProperties.getUsername() != null) {
+                redisUri.withAuthentication(redisProperties.getUsername(), redisProperties.getPassword());
+            } else {
+                redisUri.withPassword(redisProperties.getPassword().toCharArray());
+            }
+        }
+        if (redisProperties.getTimeout() != null) {
+            redisUri.withTimeout(redisProperties.getTimeout());
+        }
+        CacheProperties.ClientSide clientSide = cacheType == CacheType.REDIS
+                && cacheProperties.getBackend() == CacheProperties.Backend.REDIS
+                ? cacheProperties.getClientSide()
+                : new CacheProperties.ClientSide();
+        return new ClientSideCache(clientSide, redisUri.build(), redisCacheConfiguration, meterRegistry);
+    }
+
+    /**
+     * Writes to Redis, or with cache.backend=off-heap to an in-process off-heap store, so single-node deployments
+     * can run without Redis. The backend is read at runtime rather than through a condition, since AOT processing
+     * fixes conditions at build time.
+     */
+    @Bean
+    public PolicyRedisCacheWriter redisCacheWriter(RedisConnectionFactory redisConnectionFactory,
+                                                   RedisCacheConfiguration redisCacheConfiguration,
+                                                   CacheProperties cacheProperties,
+                                                   CacheCircuitBreaker cacheCircuitBreaker,
+                                                   HotKeyTracker hotKeyTracker,
+                                                   ClientSideCache clientSideCache,
+                                                   MeterRegistry meterRegistry) {
+        if (cacheProperties.getBackend() == CacheProperties.Backend.OFF_HEAP) {
+            return new OffHeapCacheWriter(new OffHeapStore(cacheProperties.getOffHeap(), meterRegistry),
+                    redisCacheConfiguration, cacheProperties, meterRegistry);
+        }
+        return new ResilientRedisCacheWriter(redisConnectionFactory, redisCacheConfiguration, cacheProperties,
+                cacheCircuitBreaker, hotKeyTracker, clientSideCache, meterRegistry);
+    }
+
+    /**
+     * Replaces the auto-configured Redis health check, which would report the application down when an off-heap
+     * deployment has no Redis to reach. Off-heap, the check reports unknown, which leaves the overall status alone.
+     */
+    @Bean
+    public HealthIndicator redisHealthIndicator(RedisConnectionFactory redisConnectionFactory,
+                                                CacheProperties cacheProperties) {
+        if (cacheProperties.getBackend() == CacheProperties.Backend.OFF_HEAP) {
+            return () -> Health.unknown()
+                    .withDetail("backend", "off-heap")
+                    .build();
+        }
+        return new RedisHealthIndicator(redisConnectionFactory);
+    }
+
+    /**
+     * Applies the tight command timeout to ordinary cache commands and the longer one to commands that walk a whole cache.
+     * The client-wide spring.data.redis.timeout must be at least the maintenance timeout, since it bounds both.
+     */
+    @Bean
+    public LettuceClientConfigurationBuilderCustomizer redisTimeoutCustomizer(CacheProperties cacheProperties,
+                                                                             RedisProperties redisProperties) {
+        CacheProperties.Resilience resilience = cacheProperties.getResilience();
+        Set<CommandType> maintenanceCommands = EnumSet.of(CommandType.KEYS, CommandType.SCAN, CommandType.MEMORY,
+                CommandType.FLUSHALL, CommandType.FLUSHDB, CommandType.INFO);
+        TimeoutOptions timeoutOptions = TimeoutOptions.builder()
+                .timeoutSource(new TimeoutOptions.TimeoutSource() {
+                    @Override
+                    public long getTimeout(RedisCommand<?, ?, ?> command) {
+                        Duration timeout = maintenanceCommands.contains(command.getType())
+                                ? resilience.getMaintenanceTimeout()
+                                : resilience.getCommandTimeout();
+                        return timeout.toMillis();
+                    }
+                })
+                .build();
+        ClientOptions.Builder clientOptions = ClientOptions.builder().timeoutOptions(timeoutOptions);
+        if (redisProperties.getConnectTimeout() != null) {
+            clientOptions.socketOptions(SocketOptions.builder().connectTimeout(redisProperties.getConnectTimeout()).build());
+        }
+        return builder -> builder.clientOptions(clientOptions.build());
+    }
+
+    @Override
+    public CacheErrorHandler errorHandler() {
+        // Cache failures that get past the writer, e.g. values that no longer deserialize, fall back to the database.
+        return new LoggingCacheErrorHandler();
+    }
+
+    @Bean
+    public CacheManager cacheManager(PolicyRedisCacheWriter redisCacheWriter,
+                                     RedisCacheConfiguration redisCacheConfiguration) {
+        return RedisCacheManager.builder(redisCacheWriter)
+                .cacheDefaults(redisCacheConfiguration)
                 .build();
     }
 
+    /**
+     * Publishes the hit rate and size of the name pool used when users are loaded and decoded from the cache.
+     */
+    @Bean
+    public NameInterner nameInterner() {
+        return NameInterner.shared();
+    }
+
     @Bean
     public boolean isCacheEnabled() {
         return cacheType != CacheType.NONE;
@@ -0,0 +1,223 @@
+package com.example.demo.configs;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+@Data
+@ConfigurationProperties(prefix = "cache")
+public class CacheProperties {
+
+    /**
+     * Where cache entries are kept. The off-heap store serves single-node deployments without Redis.
+     */
+    private Backend backend = Backend.REDIS;
+
+    /**
+     * Sizing policies by cache name. Caches without a policy never expire and are not bounded.
+     */
+    private Map<String, Policy> policies = new HashMap<>();
+
+    private Compression compression = new Compression();
+
+    private Resilience resilience = new Resilience();
+
+    private HotKeys hotKeys = new HotKeys();
+
+    private ClientSide clientSide = new ClientSide();
+
+    private OffHeap offHeap = new OffHeap();
+
+    public Policy getPolicy(String cacheName) {
+        return policies.get(cacheName);
+    }
+
+    @Data
+    public static class Policy {
+
+        /**
+         * Time to live of an entry, zero or absent for no expiration.
+         */
+        private Duration ttl;
+
+        /**
+         * Relative random spread applied to the TTL, e.g. 0.1 for +/-10%, so entries written together do not expire together.
+         */
+        private double ttlJitter;
+
+        /**
+         * Maximum number of entries, zero for unbounded.
+         */
+        private long maxEntries;
+
+        /**
+         * Which entries are evicted first once the maximum is exceeded.
+         */
+        private Eviction eviction = Eviction.LRU;
+
+        /**
+         * Share of reads that update the access index, e.g. 0.1 for one in ten. Reads that are not sampled are plain GETs,
+         * a sampled LFU read counts as 1/rate reads. Zero leaves the index to writes, which makes LRU evict in write order.
+         */
+        private double accessSampleRate = 1;
+    }
+
+    @Data
+    public static class Compression {
+
+        private boolean enabled = true;
+
+        /**
+         * Serialized values of at least this many bytes are compressed, smaller ones are stored as is.
+         */
+        private int threshold = 1024;
+
+        /**
+         * Deflate level from 1 (fastest) to 9 (smallest).
+         */
+        private int level = 1;
+    }
+
+    @Data
+    public static class Resilience {
+
+        /**
+         * Timeout of ordinary cache commands. Keep it well below the latency of the database query the cache saves.
+         */
+        private Duration commandTimeout = Duration.ofMillis(200);
+
+        /**
+         * Timeout of maintenance commands that scan or measure a whole cache, such as KEYS, SCAN and MEMORY.
+         */
+        private Duration maintenanceTimeout = Duration.ofSeconds(2);
+
+        /**
+         * Consecutive failures after which the circuit opens and cache calls are bypassed.
+         */
+        private int failureThreshold = 5;
+
+        /**
+         * How long the circuit stays open before a single trial call is let through.
+         */
+        private Duration openDuration = Duration.ofSeconds(10);
+
+        /**
+         * Maximum number of values kept in memory to answer reads while the circuit is open, zero to disable.
+         */
+        private int staleCopyMaxEntries = 10_000;
+
+        /**
+         * Maximum total size of the values kept to answer reads while the circuit is open.
+         * Values larger than this are never kept, and the least recently used ones are dropped to stay within it.
+         */
+        private DataSize staleCopyMaxSize = DataSize.ofMegabytes(32);
+
+        /**
+         * Maximum number of evictions remembered while the circuit is open and replayed once it closes.
+         * If more are missed, the affected caches are cleared instead.
+         */
+        private int pendingInvalidationsMaxEntries = 10_000;
+    }
+
+    @Data
+    public static class HotKeys {
+
+        private boolean enabled = true;
+
+        /**
+         * Period over which reads are counted. The counts are halved at the end of each window.
+         */
+        private Duration window = Duration.ofSeconds(10);
+
+        /**
+         * Estimated reads within about a window from which a key counts as hot and is kept locally.
+         */
+        private int threshold = 100;
+
+        /**
+         * Number of hot keys reported by the hotkeys actuator endpoint.
+         */
+        private int topN = 10;
+
+        /**
+         * How long a hot value is served locally before it is read from Redis again.
+         * Bounds how stale a value written by another instance can be.
+         */
+        private Duration localTtl = Duration.ofSeconds(1);
+
+        /**
+         * Maximum number of hot values held locally, zero to only detect hot keys.
+         */
+        private int maxLocalEntries = 64;
+    }
+
+    @Data
+    public static class ClientSide {
+
+        /**
+         * Keeps values read from Redis in memory until Redis reports that their key has changed.
+         */
+        private boolean enabled = false;
+
+        /**
+         * Caches whose values are kept locally. Each one is tracked by its key prefix.
+         */
+        private Set<String> caches = Set.of("users");
+
+        /**
+         * Maximum number of values held locally.
+         */
+        private int maxEntries = 10_000;
+
+        /**
+         * Delay before connecting again if the tracking connection could not be opened at startup.
+         * Later reconnects are handled by the client.
+         */
+        private Duration retryInterval = Duration.ofSeconds(10);
+    }
+
+    /**
+     * In-process cache used instead of Redis when cache.backend is off-heap. Values are kept outside the Java heap,
+     * so direct storage needs -XX:MaxDirectMemorySize of at least the capacity.
+     */
+    @Data
+    public static class OffHeap {
+
+        /**
+         * Total size of the buffers holding values. The oldest values are evicted once it is used up.
+         */
+        private DataSize capacity = DataSize.ofMegabytes(256);
+
+        /**
+         * Size of each buffer. A value larger than a segment is not cached.
+         */
+        private DataSize segmentSize = DataSize.ofMegabytes(16);
+
+        private Storage storage = Storage.DIRECT;
+
+        /**
+         * Directory of the file backing mapped storage, the temporary directory if absent.
+         */
+        private String directory;
+
+        public enum Storage {
+            DIRECT,
+            MAPPED
+        }
+    }
+
+    public enum Backend {
+        REDIS,
+        OFF_HEAP
+    }
+
+    public enum Eviction {
+        LRU,
+        LFU
+    }
+}
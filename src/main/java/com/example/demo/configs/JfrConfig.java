@@ -0,0 +1,46 @@
+package com.example.demo.configs;
+
+import com.example.demo.jfr.JfrMetricsConsumer;
+import com.example.demo.jfr.UserQueryEventAspect;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.event.EventListener;
+
+import java.time.Duration;
+
+/**
+ * Flight Recorder events for the cache and the user services. The events cost next to nothing until a recording
+ * enables them, either the built-in metrics stream or one started from outside with {@code jcmd <pid> JFR.start}.
+ */
+@Configuration
+public class JfrConfig {
+
+    @Value("${diagnostics.jfr.metrics.enabled:false}")
+    private boolean metricsEnabled;
+
+    @Bean
+    public UserQueryEventAspect userQueryEventAspect() {
+        return new UserQueryEventAspect();
+    }
+
+    @Bean(destroyMethod = "close")
+    public JfrMetricsConsumer jfrMetricsConsumer(
+            MeterRegistry meterRegistry,
+            @Value("${diagnostics.jfr.metrics.cache-event-threshold:PT0S}") Duration cacheEventThreshold,
+            @Value("${diagnostics.jfr.metrics.query-event-threshold:PT0S}") Duration queryEventThreshold) {
+        return new JfrMetricsConsumer(meterRegistry, cacheEventThreshold, queryEventThreshold);
+    }
+
+    /**
+     * Starts the metrics stream only once the application is ready, so its recording stays off the startup path.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void startJfrMetrics(ApplicationReadyEvent event) {
+        if (metricsEnabled) {
+            event.getApplicationContext().getBean(JfrMetricsConsumer.class).start();
+        }
+    }
+}
@@ -13,9 +13,11 @@ import org.springframework.boot.actuate.autoconfigure.metrics.export.simple.Simp
 import org.springframework.boot.autoconfigure.AutoConfigureAfter;
 import org.springframework.boot.autoconfigure.AutoConfigureBefore;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Profile;
+import org.springframework.context.event.EventListener;
 
 import java.net.InetAddress;
 import java.net.UnknownHostException;
@@ -74,7 +76,15 @@ public class MicrometerConfig {
                 .build();
         newRelicRegistry.config().meterFilter(MeterFilter.ignoreTags("plz_ignore_me"));
         newRelicRegistry.config().meterFilter(MeterFilter.denyNameStartsWith("jvm.threads"));
-        newRelicRegistry.start(new NamedThreadFactory("newrelic.micrometer.registry"));
         return newRelicRegistry;
     }
+
+    /**
+     * Starts publishing only once the application is ready, so the exporter thread and its HTTP client stay off the startup path.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void startNewRelicPublishing(ApplicationReadyEvent event) {
+        event.getApplicationContext().getBean(NewRelicRegistry.class)
+                .start(new NamedThreadFactory("newrelic.micrometer.registry"));
+    }
 }
@@ -0,0 +1,62 @@
+package com.example.demo.configs;
+
+import com.example.demo.caches.CacheCircuitBreaker;
+import com.example.demo.ratelimit.LocalRateLimiter;
+import com.example.demo.ratelimit.RateLimitInterceptor;
+import com.example.demo.ratelimit.RateLimiter;
+import com.example.demo.ratelimit.RedisRateLimiter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+/**
+ * Rate limiting is switched on and off and its mode is chosen at runtime rather than through conditions,
+ * since AOT processing fixes conditions at build time.
+ */
+@Configuration
+@EnableConfigurationProperties(RateLimitProperties.class)
+public class RateLimitConfig implements WebMvcConfigurer {
+
+    private final RateLimitProperties rateLimitProperties;
+    private final ObjectProvider<RateLimiter> rateLimiter;
+    private final ObjectProvider<MeterRegistry> meterRegistry;
+
+    public RateLimitConfig(RateLimitProperties rateLimitProperties,
+                           ObjectProvider<RateLimiter> rateLimiter,
+                           ObjectProvider<MeterRegistry> meterRegistry) {
+        this.rateLimitProperties = rateLimitProperties;
+        this.rateLimiter = rateLimiter;
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Bean
+    public RateLimiter rateLimiter(RedisConnectionFactory redisConnectionFactory,
+                                   CacheProperties cacheProperties,
+                                   MeterRegistry meterRegistry) {
+        LocalRateLimiter localRateLimiter = new LocalRateLimiter();
+        if (rateLimitProperties.getMode() == RateLimitProperties.Mode.REDIS
+                && cacheProperties.getBackend() == CacheProperties.Backend.REDIS) {
+            RateLimitProperties.Resilience resilience = rateLimitProperties.getResilience();
+            CacheCircuitBreaker circuitBreaker = new CacheCircuitBreaker("Redis rate limiter", "rate.limit.redis",
+                    resilience.getFailureThreshold(), resilience.getOpenDuration(), meterRegistry);
+            return new RedisRateLimiter(redisConnectionFactory, localRateLimiter, circuitBreaker);
+        }
+        return localRateLimiter;
+    }
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        if (!rateLimitProperties.isEnabled()) {
+            return;
+        }
+        rateLimitProperties.getLimits().forEach((name, limit) -> registry
+                .addInterceptor(new RateLimitInterceptor(name, limit, rateLimiter.getObject(),
+                        rateLimitProperties.getClientHeader(), meterRegistry.getObject()))
+                .addPathPatterns(limit.getPath()));
+    }
+}
@@ -0,0 +1,89 @@
+package com.example.demo.configs;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+@Data
+@ConfigurationProperties(prefix = "rate-limit")
+public class RateLimitProperties {
+
+    private boolean enabled = true;
+
+    /**
+     * Where the token buckets live. Local buckets limit each node separately, Redis buckets are shared by all nodes.
+     * Buckets are always local when cache.backend is off-heap, since such a deployment has no Redis.
+     */
+    private Mode mode = Mode.LOCAL;
+
+    /**
+     * Request header that carries the client address, e.g. X-Forwarded-For behind a trusted proxy.
+     * Blank to use the remote address of the connection.
+     */
+    private String clientHeader;
+
+    private Resilience resilience = new Resilience();
+
+    /**
+     * Token-bucket limits by name. Every client gets its own bucket per limit,
+     * and a limit with a total capacity also has one bucket shared by all clients.
+     */
+    private Map<String, Limit> limits = new LinkedHashMap<>();
+
+    @Data
+    public static class Limit {
+
+        /**
+         * HTTP method the limit applies to, blank for any method.
+         */
+        private String method;
+
+        /**
+         * Path pattern the limit applies to, e.g. /user/delete/*.
+         */
+        private String path;
+
+        /**
+         * Size of the bucket, i.e. the longest burst a client can send at once.
+         */
+        private long capacity;
+
+        /**
+         * Tokens added to the bucket per second, i.e. the sustained request rate of a client.
+         */
+        private double refillPerSecond;
+
+        /**
+         * Size of the bucket shared by all clients, i.e. the longest burst the endpoint takes at once,
+         * so bursts spread over many clients are limited too. Zero for no shared bucket.
+         */
+        private long totalCapacity;
+
+        /**
+         * Tokens added to the shared bucket per second, i.e. the sustained request rate of the endpoint.
+         */
+        private double totalRefillPerSecond;
+    }
+
+    @Data
+    public static class Resilience {
+
+        /**
+         * Consecutive Redis failures after which the shared buckets are bypassed and only local buckets are used.
+         */
+        private int failureThreshold = 5;
+
+        /**
+         * How long Redis is bypassed before a single trial call is let through.
+         */
+        private Duration openDuration = Duration.ofSeconds(10);
+    }
+
+    public enum Mode {
+        LOCAL,
+        REDIS
+    }
+}
@@ -0,0 +1,46 @@
+package com.example.demo.configs;
+
+import com.example.demo.timing.RequestTimingAspect;
+import com.example.demo.timing.RequestTimingInterceptor;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import java.time.Duration;
+
+/**
+ * Per-request breakdown of time spent in the database, the cache, serialization, services and rendering.
+ * The database stage is fed by {@link com.example.demo.timing.JdbcTimingSessionListener},
+ * registered through {@code spring.jpa.properties.hibernate.session.events.auto}.
+ */
+@Configuration
+public class RequestTimingConfig implements WebMvcConfigurer {
+
+    private final ObjectProvider<MeterRegistry> meterRegistry;
+    private final boolean enabled;
+    private final Duration slowThreshold;
+
+    public RequestTimingConfig(ObjectProvider<MeterRegistry> meterRegistry,
+                               @Value("${request-timing.enabled:true}") boolean enabled,
+                               @Value("${request-timing.slow-threshold:PT0.5S}") Duration slowThreshold) {
+        this.meterRegistry = meterRegistry;
+        this.enabled = enabled;
+        this.slowThreshold = slowThreshold;
+    }
+
+    @Bean
+    public RequestTimingAspect requestTimingAspect() {
+        return new RequestTimingAspect();
+    }
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        if (enabled) {
+            registry.addInterceptor(new RequestTimingInterceptor(meterRegistry.getObject(), slowThreshold));
+        }
+    }
+}
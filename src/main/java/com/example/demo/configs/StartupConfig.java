@@ -0,0 +1,50 @@
+package com.example.demo.configs;
+
+import com.example.demo.caches.RedisCacheMemoryMetrics;
+import com.example.demo.caches.UserIdBloomFilter;
+import jakarta.persistence.EntityManagerFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.LazyInitializationExcludeFilter;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.event.ContextRefreshedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+
+import javax.sql.DataSource;
+
+@Configuration
+public class StartupConfig {
+
+    private static final Logger LOG = LoggerFactory.getLogger(StartupConfig.class);
+
+    @Value("${startup.exit-after-refresh:false}")
+    private boolean exitAfterRefresh;
+
+    /**
+     * Keeps the beans every request needs, and the scheduled ones, eager when spring.main.lazy-initialization is on.
+     * A lazy @Scheduled bean would never be scheduled, and a lazy connection pool would only move its cost to the first request.
+     */
+    @Bean
+    public static LazyInitializationExcludeFilter eagerBeans() {
+        return LazyInitializationExcludeFilter.forBeanTypes(DataSource.class, EntityManagerFactory.class,
+                RedisConnectionFactory.class, UserIdBloomFilter.class, RedisCacheMemoryMetrics.class);
+    }
+
+    /**
+     * Ends a training run once the context is refreshed, so the JVM can write its class-data sharing archive.
+     * The property is checked at runtime rather than through a condition, since AOT processing fixes conditions at build time.
+     */
+    @EventListener(ContextRefreshedEvent.class)
+    public void exitAfterRefresh(ContextRefreshedEvent event) {
+        if (exitAfterRefresh) {
+            LOG.info("Training run finished, exiting.");
+            ApplicationContext context = event.getApplicationContext();
+            System.exit(SpringApplication.exit(context, () -> 0));
+        }
+    }
+}
@@ -21,7 +21,7 @@ public class UserController {
 
     @GetMapping("/")
     public String welcome() {
-        if (userService.listUsers().isEmpty()) {
+        if (userService.listUserViews().isEmpty()) {
             return "welcome";
         }
         return "redirect:/users";
@@ -29,7 +29,7 @@ public class UserController {
 
     @GetMapping("/users")
     public String users(Model model) {
-        model.addAttribute("users", userService.listUsers());
+        model.addAttribute("users", userService.listUserViews());
         return "users";
     }
 
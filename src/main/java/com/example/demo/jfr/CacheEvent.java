@@ -0,0 +1,85 @@
+package com.example.demo.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Flight Recorder event for one access to a Redis cache entry. Disabled unless a recording enables it,
+ * in which case the fields are only filled for events that will be committed.
+ */
+@Name(CacheEvent.NAME)
+@Label("Cache Access")
+@Description("Hit, miss, put or eviction of a cache entry")
+@Category({"Demo", "Cache"})
+@StackTrace(false)
+public class CacheEvent extends Event {
+
+    public static final String NAME = "com.example.demo.CacheAccess";
+
+    public static final String HIT = "hit";
+    public static final String MISS = "miss";
+    public static final String PUT = "put";
+    public static final String EVICT = "evict";
+    public static final String CLEAN = "clean";
+
+    @Label("Cache")
+    String cache;
+
+    @Label("Operation")
+    String operation;
+
+    @Label("Key")
+    String key;
+
+    @Label("Payload Size")
+    @DataAmount
+    int payloadSize;
+
+    /**
+     * Commits a read as a hit or a miss depending on the value, if the event is enabled and over its threshold.
+     */
+    public void commitRead(String cache, byte[] key, byte[] value) {
+        commit(cache, value != null ? HIT : MISS, key, value);
+    }
+
+    /**
+     * Commits the event if enabled and over its threshold.
+     */
+    public void commit(String cache, String operation, byte[] key, byte[] value) {
+        end();
+        if (!shouldCommit()) {
+            return;
+        }
+        this.cache = cache;
+        this.operation = operation;
+        this.key = key == null ? null : new String(key, StandardCharsets.UTF_8);
+        this.payloadSize = value == null ? 0 : value.length;
+        commit();
+    }
+
+    /**
+     * Begins one event per entry of a bulk operation, so that each covers the whole Redis call.
+     * Returns an empty list when the event is disabled, to avoid allocating events that are never committed.
+     */
+    public static List<CacheEvent> beginAll(int count) {
+        if (count == 0 || !new CacheEvent().isEnabled()) {
+            return List.of();
+        }
+        List<CacheEvent> events = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            CacheEvent event = new CacheEvent();
+            event.begin();
+            events.add(event);
+        }
+        return events;
+    }
+}
@@ -0,0 +1,88 @@
+package com.example.demo.jfr;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingStream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+
+/**
+ * In-process Flight Recorder stream that enables the cache and user query events and turns them into live metrics:
+ * {@code jfr.cache.operations} and {@code jfr.cache.payload.size} by cache and operation,
+ * {@code jfr.user.queries} and {@code jfr.user.query.rows} by service and query.
+ * Recordings started from outside, e.g. with {@code jcmd JFR.start}, see the same events whether or not it runs.
+ */
+public class JfrMetricsConsumer implements AutoCloseable {
+
+    private static final Logger LOG = LoggerFactory.getLogger(JfrMetricsConsumer.class);
+
+    private final MeterRegistry meterRegistry;
+    private final Duration cacheEventThreshold;
+    private final Duration queryEventThreshold;
+
+    private RecordingStream stream;
+
+    public JfrMetricsConsumer(MeterRegistry meterRegistry, Duration cacheEventThreshold, Duration queryEventThreshold) {
+        this.meterRegistry = meterRegistry;
+        this.cacheEventThreshold = cacheEventThreshold;
+        this.queryEventThreshold = queryEventThreshold;
+    }
+
+    public synchronized void start() {
+        if (stream != null) {
+            return;
+        }
+        stream = new RecordingStream();
+        stream.enable(CacheEvent.class).withThreshold(cacheEventThreshold);
+        stream.enable(UserQueryEvent.class).withThreshold(queryEventThreshold);
+        stream.onEvent(CacheEvent.NAME, this::recordCacheEvent);
+        stream.onEvent(UserQueryEvent.NAME, this::recordUserQueryEvent);
+        stream.onError(e -> LOG.warn("Flight Recorder metrics stream failed: {}", e.getMessage()));
+        stream.startAsync();
+    }
+
+    @Override
+    public synchronized void close() {
+        if (stream != null) {
+            stream.close();
+            stream = null;
+        }
+    }
+
+    private void recordCacheEvent(RecordedEvent event) {
+        String cache = event.getString("cache");
+        String operation = event.getString("operation");
+        Counter.builder("jfr.cache.operations")
+                .tag("cache", cache)
+                .tag("operation", operation)
+                .register(meterRegistry)
+                .increment();
+        DistributionSummary.builder("jfr.cache.payload.size")
+                .baseUnit("bytes")
+                .tag("cache", cache)
+                .tag("operation", operation)
+                .register(meterRegistry)
+                .record(event.getInt("payloadSize"));
+    }
+
+    private void recordUserQueryEvent(RecordedEvent event) {
+        String service = event.getString("service");
+        String query = event.getString("query");
+        Timer.builder("jfr.user.queries")
+                .tag("service", service)
+                .tag("query", query)
+                .tag("outcome", event.getBoolean("failed") ? "failure" : "success")
+                .register(meterRegistry)
+                .record(event.getDuration());
+        DistributionSummary.builder("jfr.user.query.rows")
+                .tag("service", service)
+                .tag("query", query)
+                .register(meterRegistry)
+                .record(event.getInt("rowCount"));
+    }
+}
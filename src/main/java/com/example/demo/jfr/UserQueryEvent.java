@@ -0,0 +1,46 @@
+package com.example.demo.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Flight Recorder event for one call to a {@link com.example.demo.services.UserService} implementation,
+ * with the number of users it returned. The duration is the one of the event itself.
+ */
+@Name(UserQueryEvent.NAME)
+@Label("User Query")
+@Description("Call to a user service with the number of rows it returned")
+@Category({"Demo", "Data Access"})
+@StackTrace(false)
+public class UserQueryEvent extends Event {
+
+    public static final String NAME = "com.example.demo.UserQuery";
+
+    @Label("Service")
+    String service;
+
+    @Label("Query")
+    String query;
+
+    @Label("Row Count")
+    int rowCount;
+
+    @Label("Failed")
+    boolean failed;
+
+    public void commit(String service, String query, int rowCount, boolean failed) {
+        end();
+        if (!shouldCommit()) {
+            return;
+        }
+        this.service = service;
+        this.query = query;
+        this.rowCount = rowCount;
+        this.failed = failed;
+        commit();
+    }
+}
@@ -0,0 +1,41 @@
+package com.example.demo.jfr;
+
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+
+import java.util.Collection;
+
+/**
+ * Emits a {@link UserQueryEvent} for every call to a {@link com.example.demo.services.UserService} implementation.
+ * While the event is disabled this costs an allocation the JIT usually removes and one check.
+ */
+@Aspect
+public class UserQueryEventAspect {
+
+    @Around("execution(public * com.example.demo.services.UserService+.*(..))")
+    public Object recordQuery(ProceedingJoinPoint joinPoint) throws Throwable {
+        UserQueryEvent event = new UserQueryEvent();
+        if (!event.isEnabled()) {
+            return joinPoint.proceed();
+        }
+        event.begin();
+        Object result = null;
+        boolean failed = true;
+        try {
+            result = joinPoint.proceed();
+            failed = false;
+            return result;
+        } finally {
+            event.commit(joinPoint.getTarget().getClass().getSimpleName(), joinPoint.getSignature().getName(),
+                    rowCount(result), failed);
+        }
+    }
+
+    private static int rowCount(Object result) {
+        if (result instanceof Collection<?> collection) {
+            return collection.size();
+        }
+        return result == null ? 0 : 1;
+    }
+}
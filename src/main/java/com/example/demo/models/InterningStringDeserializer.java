@@ -0,0 +1,33 @@
+package com.example.demo.models;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.deser.std.StdScalarDeserializer;
+import com.fasterxml.jackson.databind.deser.std.StringDeserializer;
+import com.fasterxml.jackson.databind.jsontype.TypeDeserializer;
+
+import java.io.IOException;
+
+/**
+ * Reads a string and replaces it with the canonical instance from {@link NameInterner#shared()}.
+ */
+public class InterningStringDeserializer extends StdScalarDeserializer<String> {
+
+    public InterningStringDeserializer() {
+        super(String.class);
+    }
+
+    @Override
+    public String deserialize(JsonParser parser, DeserializationContext context) throws IOException {
+        return NameInterner.shared().intern(StringDeserializer.instance.deserialize(parser, context));
+    }
+
+    /**
+     * Strings carry no type information even when default typing is on, so the typed path would skip this deserializer.
+     */
+    @Override
+    public Object deserializeWithType(JsonParser parser, DeserializationContext context,
+                                      TypeDeserializer typeDeserializer) throws IOException {
+        return deserialize(parser, context);
+    }
+}
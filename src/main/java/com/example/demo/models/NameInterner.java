@@ -0,0 +1,76 @@
+package com.example.demo.models;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Bounded pool of canonical name strings. First and last names repeat a lot, so users loaded by JPA or decoded
+ * from the cache share one instance per distinct name instead of each holding its own copy.
+ * Unlike {@link String#intern()}, the pool stops growing at a fixed number of entries, after which unseen names
+ * are returned as they are, and long strings are never pooled.
+ */
+public final class NameInterner implements MeterBinder {
+
+    public static final int DEFAULT_MAX_ENTRIES = 50_000;
+    public static final int MAX_LENGTH = 64;
+
+    private static final NameInterner SHARED = new NameInterner(DEFAULT_MAX_ENTRIES);
+
+    private final int maxEntries;
+    private final ConcurrentHashMap<String, String> pool = new ConcurrentHashMap<>();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    public NameInterner(int maxEntries) {
+        if (maxEntries <= 0) {
+            throw new IllegalArgumentException("Maximum number of entries must be positive.");
+        }
+        this.maxEntries = maxEntries;
+    }
+
+    /**
+     * The pool used by {@link User} on load and by its JSON deserialization, which are not Spring-managed.
+     */
+    public static NameInterner shared() {
+        return SHARED;
+    }
+
+    public String intern(String value) {
+        if (value == null || value.length() > MAX_LENGTH) {
+            return value;
+        }
+        String pooled = pool.get(value);
+        if (pooled != null) {
+            hits.increment();
+            return pooled;
+        }
+        misses.increment();
+        if (pool.size() >= maxEntries) {
+            return value;
+        }
+        pooled = pool.putIfAbsent(value, value);
+        return pooled == null ? value : pooled;
+    }
+
+    public int size() {
+        return pool.size();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder("users.names.intern.requests", hits, LongAdder::sum)
+                .tag("result", "hit")
+                .register(registry);
+        FunctionCounter.builder("users.names.intern.requests", misses, LongAdder::sum)
+                .tag("result", "miss")
+                .register(registry);
+        Gauge.builder("users.names.intern.pool.size", pool, ConcurrentHashMap::size)
+                .description("Distinct names held by the pool")
+                .register(registry);
+    }
+}
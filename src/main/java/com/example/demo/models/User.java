@@ -1,28 +1,53 @@
 package com.example.demo.models;
 
+import com.example.demo.caches.UserCacheEntityListener;
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
 import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 import java.io.Serializable;
 import java.util.Objects;
 
 @Entity
 @Table(name = "users")
+@EntityListeners(UserCacheEntityListener.class)
+@NamedQuery(name = User.LIST_ALL, query = "SELECT u FROM User u")
+@NamedQuery(name = User.LIST_ALL_VIEWS, query = "SELECT new com.example.demo.models.UserView(u.id, u.firstName, u.lastName, u.gender, u.email) FROM User u")
+@NamedQuery(name = User.LIST_ALL_IDS, query = "SELECT u.id FROM User u")
+@NamedQuery(name = User.FIND_ALL_BY_IDS, query = "SELECT u FROM User u WHERE u.id IN :ids")
+@NamedQuery(name = User.DELETE_ALL_BY_IDS, query = "DELETE FROM User u WHERE u.id IN :ids")
+@NamedQuery(name = User.DELETE_ALL, query = "DELETE FROM User u")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = User.CACHE_REGION)
 @Data
 @AllArgsConstructor
 @NoArgsConstructor
 public class User implements Cloneable, Serializable {
 
+    public static final String CACHE_REGION = "users";
+    public static final String QUERY_CACHE_REGION = "users-query";
+
+    public static final String LIST_ALL = "User.listAll";
+    public static final String LIST_ALL_VIEWS = "User.listAllViews";
+    public static final String LIST_ALL_IDS = "User.listAllIds";
+    public static final String FIND_ALL_BY_IDS = "User.findAllByIds";
+    public static final String DELETE_ALL_BY_IDS = "User.deleteAllByIds";
+    public static final String DELETE_ALL = "User.deleteAll";
+
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
 
     @Column(name = "first_name", nullable = false)
+    @JsonDeserialize(using = InterningStringDeserializer.class)
     private String firstName;
 
     @Column(name = "last_name", nullable = false)
+    @JsonDeserialize(using = InterningStringDeserializer.class)
     private String lastName;
 
     @Column(name = "gender", nullable = false)
@@ -32,6 +57,15 @@ public class User implements Cloneable, Serializable {
     @Column(name = "email")
     private String email;
 
+    /**
+     * Names have low cardinality, so loaded users share pooled instances instead of holding their own copies.
+     */
+    @PostLoad
+    void internNames() {
+        firstName = NameInterner.shared().intern(firstName);
+        lastName = NameInterner.shared().intern(lastName);
+    }
+
     @Override
     public boolean equals(Object obj) {
         if (this == obj) {
@@ -47,9 +81,17 @@ public class User implements Cloneable, Serializable {
                 gender == otherUser.gender;
     }
 
+    /**
+     * Same value as {@code Objects.hash(id, firstName, lastName, gender)}, without allocating its varargs array.
+     */
     @Override
     public int hashCode() {
-        return Objects.hash(id, firstName, lastName, gender);
+        int result = 1;
+        result = 31 * result + Objects.hashCode(id);
+        result = 31 * result + Objects.hashCode(firstName);
+        result = 31 * result + Objects.hashCode(lastName);
+        result = 31 * result + Objects.hashCode(gender);
+        return result;
     }
 
     @Override
@@ -0,0 +1,12 @@
+package com.example.demo.models;
+
+/**
+ * Immutable, detached snapshot of a user for rendering. It holds no persistence state,
+ * so views can be rendered after the transaction and its connection are gone.
+ */
+public record UserView(Long id, String firstName, String lastName, User.Gender gender, String email) {
+
+    public static UserView from(User user) {
+        return new UserView(user.getId(), user.getFirstName(), user.getLastName(), user.getGender(), user.getEmail());
+    }
+}
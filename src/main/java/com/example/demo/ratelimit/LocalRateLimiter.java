@@ -0,0 +1,79 @@
+package com.example.demo.ratelimit;
+
+import com.example.demo.configs.RateLimitProperties;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Token buckets kept in the memory of this node.
+ */
+public class LocalRateLimiter implements RateLimiter {
+
+    /**
+     * Once this many buckets exist, full ones are dropped. A full bucket behaves exactly like a missing one.
+     */
+    private static final int SWEEP_THRESHOLD = 10_000;
+
+    /**
+     * Sweeps run at most this often, and only on the one caller that gets the lock, since a sweep walks all buckets.
+     */
+    private static final long SWEEP_INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+    private final Map<String, Bucket> buckets = new ConcurrentHashMap<>();
+    private final ReentrantLock sweepLock = new ReentrantLock();
+    private volatile long nextSweepTime = System.nanoTime();
+
+    @Override
+    public long tryAcquire(String key, RateLimitProperties.Limit limit) {
+        long now = System.nanoTime();
+        if (buckets.size() > SWEEP_THRESHOLD && now - nextSweepTime >= 0 && sweepLock.tryLock()) {
+            try {
+                if (now - nextSweepTime >= 0) {
+                    buckets.values().removeIf(bucket -> bucket.isFull(now));
+                    nextSweepTime = System.nanoTime() + SWEEP_INTERVAL_NANOS;
+                }
+            } finally {
+                sweepLock.unlock();
+            }
+        }
+        return buckets.computeIfAbsent(key, k -> new Bucket(limit.getCapacity(), limit.getRefillPerSecond(), now))
+                .tryAcquire(now);
+    }
+
+    private static final class Bucket {
+
+        private final long capacity;
+        private final double refillPerNano;
+        private double tokens;
+        private long lastRefillTime;
+
+        private Bucket(long capacity, double refillPerSecond, long now) {
+            this.capacity = capacity;
+            this.refillPerNano = refillPerSecond / 1_000_000_000d;
+            this.tokens = capacity;
+            this.lastRefillTime = now;
+        }
+
+        synchronized long tryAcquire(long now) {
+            refill(now);
+            if (tokens >= 1) {
+                tokens -= 1;
+                return 0;
+            }
+            return (long) Math.ceil((1 - tokens) / refillPerNano / 1_000_000d);
+        }
+
+        synchronized boolean isFull(long now) {
+            refill(now);
+            return tokens >= capacity;
+        }
+
+        private void refill(long now) {
+            tokens = Math.min(capacity, tokens + (now - lastRefillTime) * refillPerNano);
+            lastRefillTime = now;
+        }
+    }
+}
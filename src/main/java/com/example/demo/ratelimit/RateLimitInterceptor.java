@@ -0,0 +1,95 @@
+package com.example.demo.ratelimit;
+
+import com.example.demo.configs.RateLimitProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.util.StringUtils;
+import org.springframework.web.servlet.HandlerInterceptor;
+
+/**
+ * Admits requests matching one limit while the client, and the endpoint as a whole if the limit has a total capacity,
+ * have tokens left, and rejects the rest with 429 and a Retry-After header before they reach the controller.
+ */
+public class RateLimitInterceptor implements HandlerInterceptor {
+
+    private final String name;
+    private final RateLimitProperties.Limit limit;
+    private final RateLimitProperties.Limit totalLimit;
+    private final RateLimiter rateLimiter;
+    private final String clientHeader;
+    private final Counter admitted;
+    private final Counter rejected;
+
+    public RateLimitInterceptor(String name,
+                                RateLimitProperties.Limit limit,
+                                RateLimiter rateLimiter,
+                                String clientHeader,
+                                MeterRegistry meterRegistry) {
+        if (limit.getCapacity() <= 0 || limit.getRefillPerSecond() <= 0) {
+            throw new IllegalArgumentException("Rate limit " + name + " needs a positive capacity and refill rate.");
+        }
+        if (limit.getTotalCapacity() < 0 || limit.getTotalCapacity() > 0 && limit.getTotalRefillPerSecond() <= 0) {
+            throw new IllegalArgumentException("Rate limit " + name + " needs a positive total refill rate for its total capacity.");
+        }
+        this.name = name;
+        this.limit = limit;
+        this.totalLimit = totalLimitOf(limit);
+        this.rateLimiter = rateLimiter;
+        this.clientHeader = clientHeader;
+        this.admitted = Counter.builder("rate.limit.requests")
+                .tag("limit", name)
+                .tag("result", "admitted")
+                .register(meterRegistry);
+        this.rejected = Counter.builder("rate.limit.requests")
+                .tag("limit", name)
+                .tag("result", "rejected")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        if (StringUtils.hasText(limit.getMethod()) && !limit.getMethod().equalsIgnoreCase(request.getMethod())) {
+            return true;
+        }
+        long waitMillis = rateLimiter.tryAcquire(name + ":" + clientOf(request), limit);
+        if (waitMillis <= 0 && totalLimit != null) {
+            // Client keys always carry a client after the name, so the shared bucket cannot collide with them.
+            waitMillis = rateLimiter.tryAcquire(name, totalLimit);
+        }
+        if (waitMillis <= 0) {
+            admitted.increment();
+            return true;
+        }
+        rejected.increment();
+        response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+        response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(Math.max(1, (waitMillis + 999) / 1000)));
+        return false;
+    }
+
+    private static RateLimitProperties.Limit totalLimitOf(RateLimitProperties.Limit limit) {
+        if (limit.getTotalCapacity() == 0) {
+            return null;
+        }
+        RateLimitProperties.Limit totalLimit = new RateLimitProperties.Limit();
+        totalLimit.setMethod(limit.getMethod());
+        totalLimit.setPath(limit.getPath());
+        totalLimit.setCapacity(limit.getTotalCapacity());
+        totalLimit.setRefillPerSecond(limit.getTotalRefillPerSecond());
+        return totalLimit;
+    }
+
+    private String clientOf(HttpServletRequest request) {
+        if (StringUtils.hasText(clientHeader)) {
+            String value = request.getHeader(clientHeader);
+            if (StringUtils.hasText(value)) {
+                int separator = value.indexOf(',');
+                return (separator < 0 ? value : value.substring(0, separator)).trim();
+            }
+        }
+        return request.getRemoteAddr();
+    }
+}
@@ -0,0 +1,12 @@
+package com.example.demo.ratelimit;
+
+import com.example.demo.configs.RateLimitProperties;
+
+public interface RateLimiter {
+
+    /**
+     * Takes one token from the bucket with the given key.
+     * Returns zero if the request is admitted, otherwise the number of milliseconds until a token is available.
+     */
+    long tryAcquire(String key, RateLimitProperties.Limit limit);
+}
@@ -0,0 +1,93 @@
+package com.example.demo.ratelimit;
+
+import com.example.demo.caches.CacheCircuitBreaker;
+import com.example.demo.configs.RateLimitProperties;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.connection.ReturnType;
+import org.springframework.data.redis.core.script.RedisScript;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Token buckets shared by all nodes through Redis. The refill runs in a Lua script against the Redis clock,
+ * so nodes with skewed clocks still agree. If Redis is unavailable the node falls back to its own buckets,
+ * and after repeated failures a circuit breaker keeps requests from waiting for Redis until it answers again.
+ * The script is sent by its SHA1 digest and only sent in full if the server does not have it cached.
+ */
+public class RedisRateLimiter implements RateLimiter {
+
+    private static final String KEY_PREFIX = "rate-limit::";
+
+    // KEYS: bucket. ARGV: capacity, refill per second. Returns the wait in millis, zero if admitted.
+    private static final RedisScript<Long> ACQUIRE_SCRIPT = RedisScript.of("""
+            local capacity = tonumber(ARGV[1])
+            local refill = tonumber(ARGV[2])
+            local time = redis.call('TIME')
+            local now = tonumber(time[1]) * 1000 + math.floor(tonumber(time[2]) / 1000)
+            local bucket = redis.call('HMGET', KEYS[1], 'tokens', 'timestamp')
+            local tokens = tonumber(bucket[1]) or capacity
+            local timestamp = tonumber(bucket[2]) or now
+            tokens = math.min(capacity, tokens + math.max(0, now - timestamp) * refill / 1000)
+            local wait = 0
+            if tokens >= 1 then
+                tokens = tokens - 1
+            else
+                wait = math.ceil((1 - tokens) * 1000 / refill)
+            end
+            redis.call('HSET', KEYS[1], 'tokens', tostring(tokens), 'timestamp', now)
+            redis.call('PEXPIRE', KEYS[1], math.ceil(capacity * 1000 / refill) + 1000)
+            return wait
+            """, Long.class);
+
+    private final RedisConnectionFactory connectionFactory;
+    private final RateLimiter fallback;
+    private final CacheCircuitBreaker circuitBreaker;
+
+    public RedisRateLimiter(RedisConnectionFactory connectionFactory, RateLimiter fallback, CacheCircuitBreaker circuitBreaker) {
+        this.connectionFactory = connectionFactory;
+        this.fallback = fallback;
+        this.circuitBreaker = circuitBreaker;
+    }
+
+    /**
+     * Failures are not logged per request, the circuit breaker logs when it opens and closes.
+     */
+    @Override
+    public long tryAcquire(String key, RateLimitProperties.Limit limit) {
+        return circuitBreaker.call(() -> acquire(key, limit), () -> fallback.tryAcquire(key, limit));
+    }
+
+    private long acquire(String key, RateLimitProperties.Limit limit) {
+        try (RedisConnection connection = connectionFactory.getConnection()) {
+            Long wait;
+            try {
+                wait = evalAcquire(connection, key, limit);
+            } catch (RuntimeException e) {
+                if (!isNoScript(e)) {
+                    throw e;
+                }
+                // The server has lost the script, e.g. after a restart or a failover.
+                connection.scriptingCommands().scriptLoad(ACQUIRE_SCRIPT.getScriptAsString().getBytes(StandardCharsets.UTF_8));
+                wait = evalAcquire(connection, key, limit);
+            }
+            return wait == null ? 0 : wait;
+        }
+    }
+
+    private static Long evalAcquire(RedisConnection connection, String key, RateLimitProperties.Limit limit) {
+        return connection.scriptingCommands().evalSha(ACQUIRE_SCRIPT.getSha1(), ReturnType.INTEGER, 1,
+                (KEY_PREFIX + key).getBytes(StandardCharsets.UTF_8),
+                String.valueOf(limit.getCapacity()).getBytes(StandardCharsets.UTF_8),
+                String.valueOf(limit.getRefillPerSecond()).getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static boolean isNoScript(Throwable e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause.getMessage() != null && cause.getMessage().contains("NOSCRIPT")) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -1,12 +1,24 @@
 package com.example.demo.repositories;
 
 import com.example.demo.models.User;
+import com.example.demo.models.UserView;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 
 import java.util.Collection;
+import java.util.List;
+import java.util.stream.Stream;
 
 public interface UserRepository extends JpaRepository<User, Long> {
 
     void deleteAllByIdIn(Collection<Long> id);
 
+    List<User> findAllByIdBetweenOrderByIdAsc(Long from, Long to);
+
+    @Query("SELECT new com.example.demo.models.UserView(u.id, u.firstName, u.lastName, u.gender, u.email) FROM User u")
+    List<UserView> findAllViews();
+
+    @Query("SELECT u.id FROM User u")
+    Stream<Long> streamAllIds();
+
 }
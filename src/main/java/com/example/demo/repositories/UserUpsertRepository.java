@@ -0,0 +1,156 @@
+package com.example.demo.repositories;
+
+import com.example.demo.caches.UserCache;
+import com.example.demo.caches.UserIdBloomFilter;
+import com.example.demo.models.User;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.JdbcUtils;
+import org.springframework.jdbc.support.MetaDataAccessException;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.sql.DatabaseMetaData;
+import java.util.Collection;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Inserts or updates users by id with the database's native upsert, sent as JDBC statement batches.
+ * Rows are written past Hibernate and its entity listeners, so once the transaction commits the second-level cache
+ * entries of the written ids and the query cache are evicted, the ids are added to the user id bloom filter
+ * and their negative entries are dropped from the users cache, whichever service called the upsert.
+ */
+@Repository
+public class UserUpsertRepository {
+
+    private static final Logger LOG = LoggerFactory.getLogger(UserUpsertRepository.class);
+
+    private static final String MYSQL_UPSERT = "INSERT INTO users (id, first_name, last_name, gender, email) " +
+            "VALUES (?, ?, ?, ?, ?) AS new ON DUPLICATE KEY UPDATE " +
+            "first_name = new.first_name, last_name = new.last_name, gender = new.gender, email = new.email";
+    private static final String H2_UPSERT = "MERGE INTO users (id, first_name, last_name, gender, email) " +
+            "KEY (id) VALUES (?, ?, ?, ?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final EntityManagerFactory entityManagerFactory;
+    private final ObjectProvider<UserIdBloomFilter> userIdBloomFilter;
+    private final ObjectProvider<UserCache> userCache;
+    private final int batchSize;
+
+    private volatile String upsertSql;
+
+    public UserUpsertRepository(JdbcTemplate jdbcTemplate,
+                                EntityManagerFactory entityManagerFactory,
+                                ObjectProvider<UserIdBloomFilter> userIdBloomFilter,
+                                ObjectProvider<UserCache> userCache,
+                                @Value("${users.upsert.batch-size:1000}") int batchSize) {
+        if (batchSize <= 0) {
+            throw new IllegalArgumentException("Batch size must be positive.");
+        }
+        this.jdbcTemplate = jdbcTemplate;
+        this.entityManagerFactory = entityManagerFactory;
+        this.userIdBloomFilter = userIdBloomFilter;
+        this.userCache = userCache;
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * Writes all given users, inserting the ids that do not exist yet and overwriting the ones that do.
+     * Running the same upsert twice leaves the table unchanged, so sync jobs can safely retry.
+     */
+    @Transactional
+    public void upsertAll(Collection<User> users) {
+        Objects.requireNonNull(users, "List of users cannot be null.");
+        for (User user : users) {
+            if (user == null) {
+                throw new NullPointerException("User cannot be null.");
+            }
+            if (user.getId() == null) {
+                throw new IllegalArgumentException("User's id cannot be null.");
+            }
+        }
+        if (users.isEmpty()) {
+            return;
+        }
+
+        jdbcTemplate.batchUpdate(getUpsertSql(), users, batchSize, (statement, user) -> {
+            statement.setLong(1, user.getId());
+            statement.setString(2, user.getFirstName());
+            statement.setString(3, user.getLastName());
+            statement.setString(4, user.getGender() == null ? null : user.getGender().name());
+            statement.setString(5, user.getEmail());
+        });
+
+        List<Long> ids = users.stream()
+                .map(User::getId)
+                .toList();
+        afterCommit(() -> {
+            evictSecondLevelCache(ids);
+            userIdBloomFilter.ifAvailable(bloomFilter -> ids.forEach(bloomFilter::add));
+            evictMissingEntries(ids);
+        });
+    }
+
+    private void evictMissingEntries(List<Long> ids) {
+        UserCache cache = userCache.getIfAvailable();
+        if (cache == null || !cache.isEnabled()) {
+            return;
+        }
+        try {
+            cache.evictAllMissing(ids);
+        } catch (RuntimeException e) {
+            LOG.warn("Failed to drop the negative cache entries of upserted users: {}", e.getMessage());
+        }
+    }
+
+    private void evictSecondLevelCache(List<Long> ids) {
+        SessionFactory sessionFactory = entityManagerFactory.unwrap(SessionFactory.class);
+        ids.forEach(id -> sessionFactory.getCache().evictEntityData(User.class, id));
+        sessionFactory.getCache().evictQueryRegion(User.QUERY_CACHE_REGION);
+    }
+
+    private String getUpsertSql() {
+        String sql = upsertSql;
+        if (sql == null) {
+            sql = resolveUpsertSql();
+            upsertSql = sql;
+        }
+        return sql;
+    }
+
+    private String resolveUpsertSql() {
+        String productName;
+        try {
+            productName = JdbcUtils.extractDatabaseMetaData(Objects.requireNonNull(jdbcTemplate.getDataSource()),
+                    DatabaseMetaData::getDatabaseProductName);
+        } catch (MetaDataAccessException e) {
+            throw new IllegalStateException("Failed to detect the database product.", e);
+        }
+        return switch (JdbcUtils.commonDatabaseName(productName)) {
+            case "MySQL" -> MYSQL_UPSERT;
+            case "H2" -> H2_UPSERT;
+            default -> throw new UnsupportedOperationException("Upsert is not supported on " + productName + ".");
+        };
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+}
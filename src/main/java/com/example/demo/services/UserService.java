@@ -1,6 +1,7 @@
 package com.example.demo.services;
 
 import com.example.demo.models.User;
+import com.example.demo.models.UserView;
 
 import java.util.List;
 
@@ -8,6 +9,8 @@ public interface UserService {
 
     List<User> listUsers();
 
+    List<UserView> listUserViews();
+
     User saveUser(User user);
 
     void deleteUser(Long id);
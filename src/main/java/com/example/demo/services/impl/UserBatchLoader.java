@@ -0,0 +1,318 @@
+package com.example.demo.services.impl;
+
+import com.example.demo.caches.UserCache;
+import com.example.demo.models.User;
+import com.example.demo.repositories.UserRepository;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.Cache;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Coalesces lookups of users by id across concurrent callers. Lookups are queued, and a loader thread
+ * fetches the ids of whatever arrived within {@code max-wait} of the first one, up to {@code max-batch-size} ids,
+ * with one cache multi-get and one {@code IN} query for the ids the cache did not have. Ids the query does not return
+ * are remembered as missing, so they are not queried again until their negative entry expires.
+ * Each caller gets only the users it asked for, as its own copies where other callers asked for them too,
+ * and a failed batch fails every caller in it.
+ * Batches are fetched by up to {@code fetch-threads} threads, so one slow query does not hold up the next batch;
+ * when all of them are busy, the loader thread fetches the batch itself.
+ * Disabled, when called inside a transaction, or for lookups larger than a batch, ids are fetched directly.
+ * A caller waits at most {@code timeout} for its batch. Lookups that reach the queue while the loader stops
+ * are fetched before it has stopped, so no caller is left waiting.
+ */
+@Component
+public class UserBatchLoader {
+
+    private static final long IDLE_POLL_MILLIS = 100;
+
+    private final UserRepository userRepository;
+    private final UserCache userCache;
+    private final boolean enabled;
+    private final int maxBatchSize;
+    private final Duration maxWait;
+    private final int fetchThreads;
+    private final Duration timeout;
+    private final BlockingQueue<PendingLoad> queue;
+
+    private final DistributionSummary batchSizes;
+    private final DistributionSummary callers;
+    private final Timer latency;
+
+    private volatile boolean running;
+    private Thread loader;
+    private ThreadPoolExecutor fetchers;
+
+    public UserBatchLoader(UserRepository userRepository,
+                           @Autowired(required = false) UserCache userCache,
+                           MeterRegistry meterRegistry,
+                           @Value("${users.batch-loader.enabled:true}") boolean enabled,
+                           @Value("${users.batch-loader.max-batch-size:100}") int maxBatchSize,
+                           @Value("${users.batch-loader.max-wait:PT0.002S}") Duration maxWait,
+                           @Value("${users.batch-loader.queue-capacity:10000}") int queueCapacity,
+                           @Value("${users.batch-loader.fetch-threads:4}") int fetchThreads,
+                           @Value("${users.batch-loader.timeout:PT10S}") Duration timeout) {
+        if (maxBatchSize <= 0) {
+            throw new IllegalArgumentException("Maximum batch size must be positive.");
+        }
+        if (maxWait.isNegative()) {
+            throw new IllegalArgumentException("Maximum wait cannot be negative.");
+        }
+        if (fetchThreads <= 0) {
+            throw new IllegalArgumentException("Number of fetch threads must be positive.");
+        }
+        this.userRepository = userRepository;
+        this.userCache = userCache;
+        this.enabled = enabled;
+        this.maxBatchSize = maxBatchSize;
+        this.maxWait = maxWait;
+        this.fetchThreads = fetchThreads;
+        this.timeout = timeout;
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        this.batchSizes = DistributionSummary.builder("users.batch.loader.batch.size")
+                .description("Distinct ids fetched together in one batch")
+                .register(meterRegistry);
+        this.callers = DistributionSummary.builder("users.batch.loader.callers")
+                .description("Lookups answered by one batch")
+                .register(meterRegistry);
+        this.latency = Timer.builder("users.batch.loader.latency")
+                .description("Time from queueing a lookup until its batch has been fetched")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        AtomicInteger threadNumber = new AtomicInteger();
+        fetchers = new ThreadPoolExecutor(fetchThreads, fetchThreads, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(fetchThreads), runnable -> {
+                    Thread thread = new Thread(runnable, "user-batch-fetch-" + threadNumber.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                }, new ThreadPoolExecutor.CallerRunsPolicy());
+        running = true;
+        loader = new Thread(this::runLoader, "user-batch-loader");
+        loader.setDaemon(true);
+        loader.start();
+    }
+
+    /**
+     * Stops accepting lookups and waits until the queued ones are answered.
+     */
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        running = false;
+        if (loader != null) {
+            loader.join();
+        }
+        dispatchRemaining();
+        if (fetchers != null) {
+            fetchers.shutdown();
+            fetchers.awaitTermination(timeout.toNanos(), TimeUnit.NANOSECONDS);
+        }
+    }
+
+    /**
+     * Returns the user with the given id, or {@code null} if there is none.
+     */
+    public User load(Long id) {
+        return loadAll(List.of(id)).get(id);
+    }
+
+    /**
+     * Returns the users with the given ids by id. Ids without a user are absent from the result.
+     */
+    public Map<Long, User> loadAll(Collection<Long> ids) {
+        try {
+            return loadAsync(ids).get(timeout.toNanos(), TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for the batched lookup.", e);
+        } catch (TimeoutException e) {
+            throw new IllegalStateException("The batched lookup did not finish within " + timeout + ".", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            if (e.getCause() instanceof Error cause) {
+                throw cause;
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    /**
+     * Queues the lookup and returns a future of the users with the given ids, completed once its batch is fetched.
+     */
+    public CompletableFuture<Map<Long, User>> loadAsync(Collection<Long> ids) {
+        Set<Long> distinctIds = new LinkedHashSet<>(ids);
+        distinctIds.remove(null);
+        if (distinctIds.isEmpty()) {
+            return CompletableFuture.completedFuture(new HashMap<>());
+        }
+        if (!running || distinctIds.size() >= maxBatchSize
+                || TransactionSynchronizationManager.isActualTransactionActive()) {
+            return fetchDirectly(distinctIds);
+        }
+        PendingLoad load = new PendingLoad(distinctIds);
+        if (!queue.offer(load)) {
+            // The loader is saturated, so the lookup runs on its own rather than piling up.
+            return fetchDirectly(distinctIds);
+        }
+        if (!running && queue.remove(load)) {
+            // The loader stopped while the lookup was queued and may not see it any more.
+            return fetchDirectly(distinctIds);
+        }
+        return load.result;
+    }
+
+    private CompletableFuture<Map<Long, User>> fetchDirectly(Collection<Long> ids) {
+        try {
+            return CompletableFuture.completedFuture(fetch(ids));
+        } catch (RuntimeException | Error e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    private void runLoader() {
+        while (running || !queue.isEmpty()) {
+            List<PendingLoad> batch = new ArrayList<>();
+            Set<Long> ids = new HashSet<>();
+            try {
+                PendingLoad first = queue.poll(IDLE_POLL_MILLIS, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                add(batch, ids, first);
+                long deadline = System.nanoTime() + maxWait.toNanos();
+                while (ids.size() < maxBatchSize) {
+                    long remaining = deadline - System.nanoTime();
+                    PendingLoad next = remaining > 0 ? queue.poll(remaining, TimeUnit.NANOSECONDS) : queue.poll();
+                    if (next == null) {
+                        break;
+                    }
+                    add(batch, ids, next);
+                }
+            } catch (InterruptedException e) {
+                running = false;
+            }
+            if (!batch.isEmpty()) {
+                fetchers.execute(() -> dispatch(batch, ids));
+            }
+        }
+    }
+
+    /**
+     * Fetches lookups that were queued after the loader had already seen an empty queue and stopped.
+     */
+    private void dispatchRemaining() {
+        List<PendingLoad> batch = new ArrayList<>();
+        Set<Long> ids = new HashSet<>();
+        PendingLoad load;
+        while ((load = queue.poll()) != null) {
+            add(batch, ids, load);
+            if (ids.size() >= maxBatchSize) {
+                dispatch(batch, ids);
+                batch = new ArrayList<>();
+                ids = new HashSet<>();
+            }
+        }
+        if (!batch.isEmpty()) {
+            dispatch(batch, ids);
+        }
+    }
+
+    private static void add(List<PendingLoad> batch, Set<Long> ids, PendingLoad load) {
+        batch.add(load);
+        ids.addAll(load.ids);
+    }
+
+    private void dispatch(List<PendingLoad> batch, Set<Long> ids) {
+        batchSizes.record(ids.size());
+        callers.record(batch.size());
+        Map<Long, User> users;
+        try {
+            users = fetch(ids);
+        } catch (RuntimeException | Error e) {
+            batch.forEach(load -> {
+                latency.record(System.nanoTime() - load.queuedAt, TimeUnit.NANOSECONDS);
+                load.result.completeExceptionally(e);
+            });
+            return;
+        }
+        Map<Long, Integer> requests = new HashMap<>();
+        batch.forEach(load -> load.ids.forEach(id -> requests.merge(id, 1, Integer::sum)));
+        for (PendingLoad load : batch) {
+            Map<Long, User> ownUsers = new HashMap<>();
+            for (Long id : load.ids) {
+                User user = users.get(id);
+                if (user != null) {
+                    // Callers may modify the users they get, so an id asked for more than once is not shared.
+                    ownUsers.put(id, requests.get(id) > 1 ? user.clone() : user);
+                }
+            }
+            latency.record(System.nanoTime() - load.queuedAt, TimeUnit.NANOSECONDS);
+            load.result.complete(ownUsers);
+        }
+    }
+
+    private Map<Long, User> fetch(Collection<Long> ids) {
+        if (userCache == null || !userCache.isEnabled()) {
+            Map<Long, User> users = new HashMap<>();
+            userRepository.findAllById(ids).forEach(user -> users.put(user.getId(), user));
+            return users;
+        }
+
+        Map<Long, User> users = new HashMap<>();
+        List<Long> missingIds = new ArrayList<>();
+        Map<Long, Cache.ValueWrapper> cachedUsers = userCache.getAll(ids);
+        for (Long id : ids) {
+            Cache.ValueWrapper cachedUser = cachedUsers.get(id);
+            if (cachedUser == null) {
+                missingIds.add(id);
+            } else if (cachedUser.get() instanceof User user) {
+                users.put(id, user);
+            }
+        }
+        if (!missingIds.isEmpty()) {
+            List<User> loadedUsers = userRepository.findAllById(missingIds);
+            userCache.putAll(loadedUsers);
+            loadedUsers.forEach(user -> users.put(user.getId(), user));
+            userCache.putAllMissing(missingIds.stream()
+                    .filter(id -> !users.containsKey(id))
+                    .toList());
+        }
+        return users;
+    }
+
+    private static final class PendingLoad {
+
+        private final Set<Long> ids;
+        private final CompletableFuture<Map<Long, User>> result = new CompletableFuture<>();
+        private final long queuedAt = System.nanoTime();
+
+        private PendingLoad(Set<Long> ids) {
+            this.ids = ids;
+        }
+    }
+}
@@ -0,0 +1,254 @@
+package com.example.demo.services.impl;
+
+import com.example.demo.models.User;
+import com.example.demo.repositories.UserRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+/**
+ * Group commit for single-user writes. Concurrent saves and deletes are queued, and a committer thread runs
+ * whatever arrived within {@code max-wait} of the first one, up to {@code max-batch-size} writes, in one transaction,
+ * so the database flushes its log once per batch instead of once per user.
+ * If the batch fails, its writes are retried one transaction each, so every caller gets its own result or error.
+ * Disabled, or when called inside a transaction, writes go straight to the repository.
+ * A caller waits at most {@code timeout} for its batch. Writes that reach the queue while the committer stops
+ * are committed one by one, so no caller is left waiting.
+ */
+@Component
+public class UserGroupCommitter {
+
+    private static final Logger LOG = LoggerFactory.getLogger(UserGroupCommitter.class);
+    private static final long IDLE_POLL_MILLIS = 100;
+
+    private final UserRepository userRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final boolean enabled;
+    private final int maxBatchSize;
+    private final Duration maxWait;
+    private final Duration timeout;
+    private final BlockingQueue<PendingWrite> queue;
+
+    private final DistributionSummary batchSizes;
+    private final Timer latency;
+    private final Counter fallbacks;
+
+    private volatile boolean running;
+    private Thread committer;
+
+    public UserGroupCommitter(UserRepository userRepository,
+                              PlatformTransactionManager transactionManager,
+                              MeterRegistry meterRegistry,
+                              @Value("${users.group-commit.enabled:false}") boolean enabled,
+                              @Value("${users.group-commit.max-batch-size:64}") int maxBatchSize,
+                              @Value("${users.group-commit.max-wait:PT0.002S}") Duration maxWait,
+                              @Value("${users.group-commit.queue-capacity:10000}") int queueCapacity,
+                              @Value("${users.group-commit.timeout:PT10S}") Duration timeout) {
+        if (maxBatchSize <= 0) {
+            throw new IllegalArgumentException("Maximum batch size must be positive.");
+        }
+        if (maxWait.isNegative()) {
+            throw new IllegalArgumentException("Maximum wait cannot be negative.");
+        }
+        this.userRepository = userRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.enabled = enabled;
+        this.maxBatchSize = maxBatchSize;
+        this.maxWait = maxWait;
+        this.timeout = timeout;
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        this.batchSizes = DistributionSummary.builder("users.group.commit.batch.size")
+                .description("Writes committed together in one transaction")
+                .register(meterRegistry);
+        this.latency = Timer.builder("users.group.commit.latency")
+                .description("Time from queueing a write until its batch has committed")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        this.fallbacks = Counter.builder("users.group.commit.fallbacks")
+                .description("Batches that failed and were retried one write per transaction")
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        running = true;
+        committer = new Thread(this::runCommitter, "user-group-commit");
+        committer.setDaemon(true);
+        committer.start();
+    }
+
+    /**
+     * Stops accepting writes and waits until the queued ones are committed.
+     */
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        running = false;
+        if (committer != null) {
+            committer.join();
+        }
+        commitRemaining();
+    }
+
+    public User save(User user) {
+        // An insert rolled back with its batch has already assigned the id, so it is restored before the retry.
+        Long originalId = user == null ? null : user.getId();
+        return (User) execute(() -> userRepository.save(user), () -> {
+            if (user != null) {
+                user.setId(originalId);
+            }
+        });
+    }
+
+    public void delete(Long id) {
+        execute(() -> {
+            userRepository.deleteById(id);
+            return null;
+        }, () -> {});
+    }
+
+    private Object execute(Supplier<Object> operation, Runnable onRollback) {
+        if (!running || TransactionSynchronizationManager.isActualTransactionActive()) {
+            return operation.get();
+        }
+        PendingWrite write = new PendingWrite(operation, onRollback);
+        if (!queue.offer(write)) {
+            // The committer is saturated, so the write commits on its own rather than piling up.
+            return operation.get();
+        }
+        if (!running && queue.remove(write)) {
+            // The committer stopped while the write was queued and may not see it any more.
+            return operation.get();
+        }
+        try {
+            return write.result.get(timeout.toNanos(), TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for the group commit.", e);
+        } catch (TimeoutException e) {
+            throw new IllegalStateException("The group commit did not finish within " + timeout
+                    + ", the write may still be committed.", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            if (e.getCause() instanceof Error cause) {
+                throw cause;
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    private void runCommitter() {
+        List<PendingWrite> batch = new ArrayList<>(maxBatchSize);
+        while (running || !queue.isEmpty()) {
+            try {
+                PendingWrite first = queue.poll(IDLE_POLL_MILLIS, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                long deadline = System.nanoTime() + maxWait.toNanos();
+                while (batch.size() < maxBatchSize) {
+                    long remaining = deadline - System.nanoTime();
+                    PendingWrite next = remaining > 0 ? queue.poll(remaining, TimeUnit.NANOSECONDS) : queue.poll();
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+            } catch (InterruptedException e) {
+                running = false;
+            }
+            if (!batch.isEmpty()) {
+                commit(batch);
+                batch.clear();
+            }
+        }
+    }
+
+    /**
+     * Commits writes that were queued after the committer had already seen an empty queue and stopped.
+     */
+    private void commitRemaining() {
+        PendingWrite write;
+        while ((write = queue.poll()) != null) {
+            commitAlone(write);
+        }
+    }
+
+    private void commit(List<PendingWrite> batch) {
+        batchSizes.record(batch.size());
+        try {
+            List<Object> results = transactionTemplate.execute(status -> batch.stream()
+                    .map(write -> write.operation.get())
+                    .toList());
+            for (int i = 0; i < batch.size(); i++) {
+                complete(batch.get(i), results.get(i));
+            }
+        } catch (RuntimeException | Error e) {
+            if (batch.size() > 1) {
+                LOG.debug("Group commit of {} writes failed, retrying them one by one: {}", batch.size(), e.getMessage());
+                fallbacks.increment();
+                batch.forEach(write -> write.onRollback.run());
+                batch.forEach(this::commitAlone);
+            } else {
+                fail(batch.get(0), e);
+            }
+        }
+    }
+
+    private void commitAlone(PendingWrite write) {
+        try {
+            complete(write, transactionTemplate.execute(status -> write.operation.get()));
+        } catch (RuntimeException | Error e) {
+            fail(write, e);
+        }
+    }
+
+    private void complete(PendingWrite write, Object result) {
+        latency.record(System.nanoTime() - write.queuedAt, TimeUnit.NANOSECONDS);
+        write.result.complete(result);
+    }
+
+    private void fail(PendingWrite write, Throwable error) {
+        latency.record(System.nanoTime() - write.queuedAt, TimeUnit.NANOSECONDS);
+        write.result.completeExceptionally(error);
+    }
+
+    private static final class PendingWrite {
+
+        private final Supplier<Object> operation;
+        private final Runnable onRollback;
+        private final CompletableFuture<Object> result = new CompletableFuture<>();
+        private final long queuedAt = System.nanoTime();
+
+        private PendingWrite(Supplier<Object> operation, Runnable onRollback) {
+            this.operation = operation;
+            this.onRollback = onRollback;
+        }
+    }
+}
@@ -1,51 +1,106 @@
 package com.example.demo.services.impl;
 
+import com.example.demo.caches.UserCache;
+import com.example.demo.caches.UserIdBloomFilter;
 import com.example.demo.models.User;
+import com.example.demo.models.UserView;
+import com.example.demo.repositories.UserUpsertRepository;
 import com.example.demo.services.UserService;
 import jakarta.persistence.EntityManager;
 import jakarta.persistence.PersistenceContext;
 import jakarta.persistence.TypedQuery;
-import jakarta.persistence.criteria.*;
+import org.hibernate.jpa.HibernateHints;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.Cache;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import java.util.Collection;
 import java.util.List;
+import java.util.Objects;
 
 @Service
 @Transactional
 public class UserServiceJpa implements UserService {
 
+    private static final Logger LOG = LoggerFactory.getLogger(UserServiceJpa.class);
+
     @PersistenceContext
     private EntityManager entityManager;
 
+    @Autowired(required = false)
+    private UserCache userCache;
+
+    @Autowired(required = false)
+    private UserIdBloomFilter userIdBloomFilter;
+
+    @Autowired
+    private UserUpsertRepository userUpsertRepository;
+
     private final Class<User> entityClass = User.class;
 
     @Override
+    @Transactional(readOnly = true)
     public List<User> listUsers() {
-        CriteriaBuilder criteriaBuilder = entityManager.getCriteriaBuilder();
-        CriteriaQuery<User> query = criteriaBuilder.createQuery(entityClass);
-        Root<User> root = query.from(entityClass);
-        query.select(root);
-        return entityManager.createQuery(query).getResultList();
+        TypedQuery<User> query = entityManager.createNamedQuery(User.LIST_ALL, entityClass);
+        return readOnly(cacheable(query)).getResultList();
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<UserView> listUserViews() {
+        return entityManager.createNamedQuery(User.LIST_ALL_VIEWS, UserView.class).getResultList();
     }
 
+    @Transactional(propagation = Propagation.SUPPORTS)
     public User findUser(Long id) {
-        return entityManager.find(entityClass, id);
+        validateId(id);
+        // Ids unknown to the bloom filter are rarely cached, so only their negative entry is read.
+        // The database still decides once that entry is missing or expired.
+        boolean knownId = mightExist(id);
+        Cache.ValueWrapper cachedUser = knownId ? getCachedUser(id) : getCachedMissing(id);
+        if (cachedUser != null) {
+            return (User) cachedUser.get();
+        }
+
+        User user = entityManager.find(entityClass, id);
+        if (user != null && !knownId) {
+            userIdBloomFilter.addFalseNegative(id);
+        }
+        if (isCacheEnabled()) {
+            try {
+                if (user == null) {
+                    userCache.putMissing(id);
+                } else {
+                    userCache.put(user);
+                }
+            } catch (RuntimeException e) {
+                LOG.warn("Failed to cache the lookup of user {}: {}", id, e.getMessage());
+            }
+        }
+        return user;
     }
 
+    @Transactional(readOnly = true)
     public List<User> findAllUsersByIds(Collection<Long> ids) {
-        CriteriaBuilder criteriaBuilder = entityManager.getCriteriaBuilder();
-        CriteriaQuery<User> query = criteriaBuilder.createQuery(entityClass);
-        Root<User> root = query.from(entityClass);
-        Predicate predicate = root.get("id").in(ids);
-        query.where(predicate);
-        return entityManager.createQuery(query).getResultList();
+        Objects.requireNonNull(ids, "List of ids cannot be null.");
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+        TypedQuery<User> query = entityManager.createNamedQuery(User.FIND_ALL_BY_IDS, entityClass)
+                .setParameter("ids", ids);
+        return readOnly(cacheable(query)).getResultList();
     }
 
+    @Transactional(readOnly = true)
     public List<Long> getAllUserIds() {
-        TypedQuery<Long> query = entityManager.createQuery("SELECT u.id FROM User u", Long.class);
-        return query.getResultList();
+        TypedQuery<Long> query = entityManager.createNamedQuery(User.LIST_ALL_IDS, Long.class);
+        return cacheable(query).getResultList();
     }
 
     @Override
@@ -62,6 +117,25 @@ public class UserServiceJpa implements UserService {
         }
     }
 
+    /**
+     * Inserts or updates the given users by id in statement batches, then writes them to the cache in one pipelined pass.
+     */
+    public void upsertUsers(Collection<User> users) {
+        Objects.requireNonNull(users, "List of users cannot be null.");
+        validateUsers(users);
+        // Pending entity writes must reach the database before the batches, which bypass the persistence context.
+        entityManager.flush();
+        userUpsertRepository.upsertAll(users);
+        List<User> upsertedUsers = users.stream()
+                .map(User::clone)
+                .toList();
+        afterCommit(() -> {
+            if (isCacheEnabled()) {
+                userCache.putAll(upsertedUsers);
+            }
+        });
+    }
+
     public User updateUser(User user) {
         validateUser(user);
         return entityManager.merge(user);
@@ -69,26 +143,111 @@ public class UserServiceJpa implements UserService {
 
     @Override
     public void deleteUser(Long id) {
-        User user = findUser(id);
+        validateId(id);
+        // A cached user cannot be removed because it is detached, only a negative entry saves the lookup.
+        Cache.ValueWrapper cachedUser = mightExist(id) ? getCachedUser(id) : getCachedMissing(id);
+        if (cachedUser != null && cachedUser.get() == null) {
+            return;
+        }
+        User user = entityManager.find(entityClass, id);
         if (user != null) {
             entityManager.remove(user);
         }
     }
 
     public void deleteAllUsersByIds(Collection<Long> ids) {
-        CriteriaBuilder criteriaBuilder = entityManager.getCriteriaBuilder();
-        CriteriaDelete<User> query = criteriaBuilder.createCriteriaDelete(entityClass);
-        Root<User> root = query.from(entityClass);
-        Predicate predicate = root.get("id").in(ids);
-        query.where(predicate);
-        entityManager.createQuery(query).executeUpdate();
+        Objects.requireNonNull(ids, "List of ids cannot be null.");
+        if (ids.isEmpty()) {
+            return;
+        }
+        entityManager.createNamedQuery(User.DELETE_ALL_BY_IDS)
+                .setParameter("ids", ids)
+                .executeUpdate();
+        // Bulk deletes bypass entity listeners. The ids stay in the bloom filter,
+        // since removing an id that never existed would turn other ids into false negatives.
+        afterCommit(() -> {
+            if (isCacheEnabled()) {
+                userCache.evictAll(ids);
+            }
+        });
     }
 
     public void deleteAllUsers() {
-        CriteriaBuilder criteriaBuilder = entityManager.getCriteriaBuilder();
-        CriteriaDelete<User> query = criteriaBuilder.createCriteriaDelete(entityClass);
-        query.from(entityClass);
-        entityManager.createQuery(query).executeUpdate();
+        entityManager.createNamedQuery(User.DELETE_ALL).executeUpdate();
+        afterCommit(() -> {
+            if (userIdBloomFilter != null) {
+                userIdBloomFilter.reset();
+            }
+            if (isCacheEnabled()) {
+                userCache.clear();
+            }
+        });
+    }
+
+    /**
+     * Serves the query from the Hibernate query cache. Bulk deletes and entity writes invalidate it through the table timestamps.
+     */
+    private static <T> TypedQuery<T> cacheable(TypedQuery<T> query) {
+        return query.setHint(HibernateHints.HINT_CACHEABLE, true)
+                .setHint(HibernateHints.HINT_CACHE_REGION, User.QUERY_CACHE_REGION);
+    }
+
+    /**
+     * Loads entities without dirty-checking snapshots, also when the caller joins an outer read-write transaction.
+     */
+    private static <T> TypedQuery<T> readOnly(TypedQuery<T> query) {
+        return query.setHint(HibernateHints.HINT_READ_ONLY, true);
+    }
+
+    private boolean mightExist(Long id) {
+        return userIdBloomFilter == null || userIdBloomFilter.mightContain(id);
+    }
+
+    private Cache.ValueWrapper getCachedUser(Long id) {
+        if (!isCacheEnabled()) {
+            return null;
+        }
+        try {
+            return userCache.get(id);
+        } catch (RuntimeException e) {
+            LOG.warn("Failed to read user {} from the cache: {}", id, e.getMessage());
+            return null;
+        }
+    }
+
+    private Cache.ValueWrapper getCachedMissing(Long id) {
+        if (!isCacheEnabled()) {
+            return null;
+        }
+        try {
+            return userCache.getMissing(id);
+        } catch (RuntimeException e) {
+            LOG.warn("Failed to read the negative entry of user {} from the cache: {}", id, e.getMessage());
+            return null;
+        }
+    }
+
+    private boolean isCacheEnabled() {
+        return userCache != null && userCache.isEnabled();
+    }
+
+    private void afterCommit(Runnable action) {
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                try {
+                    action.run();
+                } catch (RuntimeException e) {
+                    LOG.warn("Failed to update the users cache after a bulk write: {}", e.getMessage());
+                }
+            }
+        });
+    }
+
+    private void validateId(Long id) {
+        if (id == null) {
+            throw new IllegalArgumentException("User's id cannot be null.");
+        }
     }
 
     private void validateUser(User user) {
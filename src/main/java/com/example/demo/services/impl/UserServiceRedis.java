@@ -1,42 +1,114 @@
 package com.example.demo.services.impl;
 
+import com.example.demo.caches.LazyUserList;
+import com.example.demo.caches.UserCache;
+import com.example.demo.caches.UserListCache;
 import com.example.demo.models.User;
+import com.example.demo.models.UserView;
 import com.example.demo.repositories.UserRepository;
+import com.example.demo.repositories.UserUpsertRepository;
 import com.example.demo.services.UserService;
 import lombok.RequiredArgsConstructor;
 import org.springframework.cache.annotation.CacheEvict;
 import org.springframework.cache.annotation.CachePut;
-import org.springframework.cache.annotation.Cacheable;
 import org.springframework.stereotype.Service;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 
 @Service
 @RequiredArgsConstructor
 public class UserServiceRedis implements UserService {
 
     private final UserRepository userRepository;
+    private final UserUpsertRepository userUpsertRepository;
+    private final UserGroupCommitter userGroupCommitter;
+    private final UserBatchLoader userBatchLoader;
+    private final UserCache userCache;
+    private final UserListCache userListCache;
 
     @Override
-    @Cacheable(value = "users", key = "'all'", condition = "@cacheConfig.isCacheEnabled()")
     public List<User> listUsers() {
-        return userRepository.findAll();
+        if (!userCache.isEnabled()) {
+            return userRepository.findAll();
+        }
+        return userListCache.getUsers();
+    }
+
+    @Override
+    public List<UserView> listUserViews() {
+        if (!userCache.isEnabled()) {
+            return userRepository.findAllViews();
+        }
+        List<User> users = userListCache.getUsers();
+        if (users instanceof LazyUserList lazyUsers) {
+            return lazyUsers.map(UserView::from);
+        }
+        return users.stream()
+                .map(UserView::from)
+                .toList();
+    }
+
+    /**
+     * Looks up one user through the batch loader, so concurrent lookups share one cache round trip and one query.
+     */
+    public User findUser(Long id) {
+        if (id == null) {
+            throw new IllegalArgumentException("User's id cannot be null.");
+        }
+        return userBatchLoader.load(id);
+    }
+
+    public List<User> findAllUsersByIds(Collection<Long> ids) {
+        List<Long> distinctIds = ids.stream()
+                .filter(Objects::nonNull)
+                .distinct()
+                .toList();
+        Map<Long, User> users = userBatchLoader.loadAll(distinctIds);
+        return distinctIds.stream()
+                .map(users::get)
+                .filter(Objects::nonNull)
+                .toList();
     }
 
     @Override
     @CachePut(value = "users", key = "#user.id", condition = "@cacheConfig.isCacheEnabled()")
     public User saveUser(User user) {
-        return userRepository.save(user);
+        User savedUser = userGroupCommitter.save(user);
+        if (userCache.isEnabled()) {
+            userListCache.invalidate(savedUser.getId());
+        }
+        return savedUser;
+    }
+
+    /**
+     * Inserts or updates the given users by id, then rewrites their cache entries and drops the affected list segments
+     * in one pipelined pass each.
+     */
+    public void upsertUsers(Collection<User> users) {
+        userUpsertRepository.upsertAll(users);
+        if (userCache.isEnabled()) {
+            userCache.putAll(users);
+            userListCache.invalidateAll(users.stream()
+                    .map(User::getId)
+                    .toList());
+        }
     }
 
     @Override
     @CacheEvict(value = "users", key = "#id", condition = "@cacheConfig.isCacheEnabled()")
     public void deleteUser(Long id) {
-        userRepository.deleteById(id);
+        userGroupCommitter.delete(id);
+        if (userCache.isEnabled()) {
+            userListCache.invalidate(id);
+        }
     }
 
-    @CacheEvict(value = "users", key = "'all'", condition = "@cacheConfig.isCacheEnabled()")
     public void reloadUsers() {
-        // do nothing
+        if (userCache.isEnabled()) {
+            userListCache.evict();
+        }
     }
 }
@@ -1,7 +1,9 @@
 package com.example.demo.services.impl;
 
 import com.example.demo.models.User;
+import com.example.demo.models.UserView;
 import com.example.demo.repositories.UserRepository;
+import com.example.demo.repositories.UserUpsertRepository;
 import com.example.demo.services.UserService;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
@@ -10,6 +12,7 @@ import org.springframework.transaction.annotation.Transactional;
 import java.util.Collection;
 import java.util.List;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Service
 @Transactional
@@ -17,17 +20,25 @@ import java.util.stream.Collectors;
 public class UserServiceTransactional implements UserService {
 
     private final UserRepository userRepository;
+    private final UserUpsertRepository userUpsertRepository;
 
     @Override
+    @Transactional(readOnly = true)
     public List<User> listUsers() {
         return userRepository.findAll();
     }
 
+    @Override
+    @Transactional(readOnly = true)
+    public List<UserView> listUserViews() {
+        return userRepository.findAllViews();
+    }
+
+    @Transactional(readOnly = true)
     public List<Long> getAllUserIds() {
-        List<User> users = userRepository.findAll();
-        return users.stream()
-                .map(User::getId)
-                .collect(Collectors.toList());
+        try (Stream<Long> ids = userRepository.streamAllIds()) {
+            return ids.collect(Collectors.toList());
+        }
     }
 
     @Override
@@ -39,6 +50,10 @@ public class UserServiceTransactional implements UserService {
         userRepository.saveAll(users);
     }
 
+    public void upsertUsers(Collection<User> users) {
+        userUpsertRepository.upsertAll(users);
+    }
+
     @Override
     public void deleteUser(Long id) {
         userRepository.deleteById(id);
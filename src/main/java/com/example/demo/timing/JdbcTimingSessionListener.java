@@ -0,0 +1,77 @@
+package com.example.demo.timing;
+
+import org.hibernate.SessionEventListener;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+/**
+ * Attributes the time Hibernate spends acquiring connections and executing statements to the database stage,
+ * and second-level cache reads and writes to the cache stage. Registered for every session through
+ * {@code hibernate.session.events.auto}.
+ */
+public class JdbcTimingSessionListener implements SessionEventListener {
+
+    private final Deque<RequestTimings.Scope> scopes = new ArrayDeque<>();
+
+    @Override
+    public void jdbcConnectionAcquisitionStart() {
+        enter(RequestTimings.Stage.DB);
+    }
+
+    @Override
+    public void jdbcConnectionAcquisitionEnd() {
+        exit();
+    }
+
+    @Override
+    public void jdbcExecuteStatementStart() {
+        enter(RequestTimings.Stage.DB);
+    }
+
+    @Override
+    public void jdbcExecuteStatementEnd() {
+        exit();
+    }
+
+    @Override
+    public void jdbcExecuteBatchStart() {
+        enter(RequestTimings.Stage.DB);
+    }
+
+    @Override
+    public void jdbcExecuteBatchEnd() {
+        exit();
+    }
+
+    @Override
+    public void cacheGetStart() {
+        enter(RequestTimings.Stage.CACHE);
+    }
+
+    @Override
+    public void cacheGetEnd(boolean hit) {
+        exit();
+    }
+
+    @Override
+    public void cachePutStart() {
+        enter(RequestTimings.Stage.CACHE);
+    }
+
+    @Override
+    public void cachePutEnd() {
+        exit();
+    }
+
+    private void enter(RequestTimings.Stage stage) {
+        scopes.push(RequestTimings.stage(stage));
+    }
+
+    private void exit() {
+        RequestTimings.Scope scope = scopes.poll();
+        if (scope != null) {
+            scope.close();
+        }
+    }
+}
@@ -0,0 +1,20 @@
+package com.example.demo.timing;
+
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+
+/**
+ * Attributes the time spent in {@link com.example.demo.services.UserService} implementations to the service stage.
+ * Database, cache and serialization work inside them is attributed to those stages instead.
+ */
+@Aspect
+public class RequestTimingAspect {
+
+    @Around("execution(public * com.example.demo.services.UserService+.*(..))")
+    public Object timeService(ProceedingJoinPoint joinPoint) throws Throwable {
+        try (RequestTimings.Scope ignored = RequestTimings.stage(RequestTimings.Stage.SERVICE)) {
+            return joinPoint.proceed();
+        }
+    }
+}
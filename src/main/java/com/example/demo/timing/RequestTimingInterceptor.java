@@ -0,0 +1,94 @@
+package com.example.demo.timing;
+
+import io.micrometer.common.KeyValue;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.web.filter.ServerHttpObservationFilter;
+import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.servlet.HandlerMapping;
+import org.springframework.web.servlet.ModelAndView;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Times every handled request by stage. The breakdown is recorded in the {@code http.server.requests.stages} timer,
+ * added to the request's {@code http.server.requests} observation as high-cardinality key values, so traces carry it,
+ * and logged for requests slower than the threshold.
+ * Rendering is the time between the handler returning and the request completing.
+ */
+public class RequestTimingInterceptor implements HandlerInterceptor {
+
+    private static final Logger LOG = LoggerFactory.getLogger(RequestTimingInterceptor.class);
+    private static final String RENDER_SCOPE_ATTRIBUTE = RequestTimingInterceptor.class.getName() + ".RENDER_SCOPE";
+    private static final String UNKNOWN_URI = "UNKNOWN";
+
+    private final MeterRegistry meterRegistry;
+    private final long slowThresholdNanos;
+
+    public RequestTimingInterceptor(MeterRegistry meterRegistry, Duration slowThreshold) {
+        this.meterRegistry = meterRegistry;
+        this.slowThresholdNanos = slowThreshold.toNanos();
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        RequestTimings.start();
+        return true;
+    }
+
+    @Override
+    public void postHandle(HttpServletRequest request, HttpServletResponse response, Object handler,
+                           ModelAndView modelAndView) {
+        request.setAttribute(RENDER_SCOPE_ATTRIBUTE, RequestTimings.stage(RequestTimings.Stage.RENDER));
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+        if (request.getAttribute(RENDER_SCOPE_ATTRIBUTE) instanceof RequestTimings.Scope renderScope) {
+            renderScope.close();
+            request.removeAttribute(RENDER_SCOPE_ATTRIBUTE);
+        }
+        RequestTimings timings = RequestTimings.finish();
+        if (timings == null) {
+            return;
+        }
+
+        String uri = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE) instanceof String pattern
+                ? pattern
+                : UNKNOWN_URI;
+        for (RequestTimings.Stage stage : RequestTimings.Stage.values()) {
+            record(uri, stage.name().toLowerCase(), timings.getNanos(stage));
+        }
+        record(uri, "other", timings.getOtherNanos());
+
+        ServerHttpObservationFilter.findObservationContext(request).ifPresent(context -> {
+            timings.toMap().forEach((stage, nanos) -> context.addHighCardinalityKeyValue(
+                    KeyValue.of("stage." + stage.name().toLowerCase() + ".ms", Long.toString(toMillis(nanos)))));
+            context.addHighCardinalityKeyValue(
+                    KeyValue.of("stage.other.ms", Long.toString(toMillis(timings.getOtherNanos()))));
+        });
+
+        if (timings.getTotalNanos() >= slowThresholdNanos) {
+            LOG.warn("Slow request {} {} took {} ms with status {}: {}", request.getMethod(), request.getRequestURI(),
+                    toMillis(timings.getTotalNanos()), response.getStatus(), timings);
+        }
+    }
+
+    private void record(String uri, String stage, long nanos) {
+        Timer.builder("http.server.requests.stages")
+                .description("Time spent by handled requests in each stage")
+                .tag("uri", uri)
+                .tag("stage", stage)
+                .register(meterRegistry)
+                .record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    private static long toMillis(long nanos) {
+        return TimeUnit.NANOSECONDS.toMillis(nanos);
+    }
+}
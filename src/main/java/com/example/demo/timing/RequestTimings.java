@@ -0,0 +1,167 @@
+package com.example.demo.timing;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Breakdown of where the current request spends its time, kept per thread.
+ * Stages nest: while an inner stage runs, the outer one is paused, so every nanosecond is attributed to exactly
+ * one stage and the stages never add up to more than the request. Outside a timed request every call is a no-op,
+ * so instrumented code can open stages unconditionally.
+ */
+public final class RequestTimings {
+
+    public enum Stage {
+        DB,
+        CACHE,
+        SERIALIZATION,
+        SERVICE,
+        RENDER
+    }
+
+    private static final ThreadLocal<RequestTimings> CURRENT = new ThreadLocal<>();
+    private static final Scope NO_OP = () -> {};
+
+    private final long startedAt;
+    private final long[] nanos = new long[Stage.values().length];
+    private final int[] calls = new int[Stage.values().length];
+    private final Deque<Stage> stages = new ArrayDeque<>();
+    private long stageStartedAt;
+    private long totalNanos = -1;
+
+    private RequestTimings(long startedAt) {
+        this.startedAt = startedAt;
+    }
+
+    /**
+     * Starts timing a request on the current thread, replacing any timing left over on it.
+     */
+    public static RequestTimings start() {
+        RequestTimings timings = new RequestTimings(System.nanoTime());
+        CURRENT.set(timings);
+        return timings;
+    }
+
+    /**
+     * Stops timing the request on the current thread and returns its breakdown, or {@code null} if none was started.
+     */
+    public static RequestTimings finish() {
+        RequestTimings timings = CURRENT.get();
+        if (timings == null) {
+            return null;
+        }
+        CURRENT.remove();
+        long now = System.nanoTime();
+        while (!timings.stages.isEmpty()) {
+            timings.exit(now);
+        }
+        timings.totalNanos = now - timings.startedAt;
+        return timings;
+    }
+
+    public static RequestTimings current() {
+        return CURRENT.get();
+    }
+
+    /**
+     * Enters the stage until the returned scope is closed. Scopes must be closed in reverse order of opening.
+     */
+    public static Scope stage(Stage stage) {
+        RequestTimings timings = CURRENT.get();
+        if (timings == null) {
+            return NO_OP;
+        }
+        timings.enter(stage, System.nanoTime());
+        return new Scope() {
+            private boolean closed;
+
+            @Override
+            public void close() {
+                if (!closed) {
+                    closed = true;
+                    timings.exit(System.nanoTime());
+                }
+            }
+        };
+    }
+
+    public long getNanos(Stage stage) {
+        return nanos[stage.ordinal()];
+    }
+
+    public int getCalls(Stage stage) {
+        return calls[stage.ordinal()];
+    }
+
+    /**
+     * Returns the request duration, or the time elapsed so far while it is still running.
+     */
+    public long getTotalNanos() {
+        return totalNanos >= 0 ? totalNanos : System.nanoTime() - startedAt;
+    }
+
+    /**
+     * Returns the time not attributed to any stage, such as request parsing and controller code.
+     */
+    public long getOtherNanos() {
+        long other = getTotalNanos();
+        for (long stageNanos : nanos) {
+            other -= stageNanos;
+        }
+        return Math.max(0, other);
+    }
+
+    public Map<Stage, Long> toMap() {
+        Map<Stage, Long> breakdown = new EnumMap<>(Stage.class);
+        for (Stage stage : Stage.values()) {
+            breakdown.put(stage, nanos[stage.ordinal()]);
+        }
+        return breakdown;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder();
+        for (Stage stage : Stage.values()) {
+            builder.append(stage.name().toLowerCase())
+                    .append('=').append(millis(nanos[stage.ordinal()])).append(" ms")
+                    .append(" (").append(calls[stage.ordinal()]).append("), ");
+        }
+        return builder.append("other=").append(millis(getOtherNanos())).append(" ms").toString();
+    }
+
+    private void enter(Stage stage, long now) {
+        Stage outer = stages.peek();
+        if (outer != null) {
+            nanos[outer.ordinal()] += now - stageStartedAt;
+        }
+        stages.push(stage);
+        calls[stage.ordinal()]++;
+        stageStartedAt = now;
+    }
+
+    private void exit(long now) {
+        Stage stage = stages.poll();
+        if (stage != null) {
+            nanos[stage.ordinal()] += now - stageStartedAt;
+        }
+        stageStartedAt = now;
+    }
+
+    private static long millis(long nanos) {
+        return TimeUnit.NANOSECONDS.toMillis(nanos);
+    }
+
+    /**
+     * Open stage. Closing it resumes the enclosing stage, if any.
+     */
+    @FunctionalInterface
+    public interface Scope extends AutoCloseable {
+
+        @Override
+        void close();
+    }
+}
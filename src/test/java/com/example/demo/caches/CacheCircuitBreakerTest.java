@@ -0,0 +1,56 @@
+package com.example.demo.caches;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CacheCircuitBreakerTest {
+
+    @Test
+    public void Should_OpenCircuit_When_FailureThresholdIsReached() {
+        CacheCircuitBreaker circuitBreaker = new CacheCircuitBreaker(2, Duration.ofMinutes(1), new SimpleMeterRegistry());
+        AtomicInteger calls = new AtomicInteger();
+
+        assertEquals("fallback", circuitBreaker.call(() -> fail(calls), () -> "fallback"));
+        assertEquals(CacheCircuitBreaker.State.CLOSED, circuitBreaker.getState());
+        assertEquals("fallback", circuitBreaker.call(() -> fail(calls), () -> "fallback"));
+        assertEquals(CacheCircuitBreaker.State.OPEN, circuitBreaker.getState());
+
+        assertEquals("fallback", circuitBreaker.call(() -> fail(calls), () -> "fallback"));
+        assertEquals(2, calls.get());
+    }
+
+    @Test
+    public void Should_CloseCircuitAndNotifyListeners_When_TrialCallSucceeds() throws InterruptedException {
+        CacheCircuitBreaker circuitBreaker = new CacheCircuitBreaker(1, Duration.ofMillis(20), new SimpleMeterRegistry());
+        AtomicInteger closings = new AtomicInteger();
+        circuitBreaker.onClose(closings::incrementAndGet);
+
+        circuitBreaker.call(() -> fail(new AtomicInteger()), () -> "fallback");
+        assertEquals(CacheCircuitBreaker.State.OPEN, circuitBreaker.getState());
+        Thread.sleep(30);
+
+        assertEquals("value", circuitBreaker.call(() -> "value", () -> "fallback"));
+        assertEquals(CacheCircuitBreaker.State.CLOSED, circuitBreaker.getState());
+        assertEquals(1, closings.get());
+    }
+
+    @Test
+    public void Should_ReopenCircuit_When_TrialCallFails() throws InterruptedException {
+        CacheCircuitBreaker circuitBreaker = new CacheCircuitBreaker(1, Duration.ofMillis(20), new SimpleMeterRegistry());
+        circuitBreaker.call(() -> fail(new AtomicInteger()), () -> "fallback");
+        Thread.sleep(30);
+
+        assertEquals("fallback", circuitBreaker.call(() -> fail(new AtomicInteger()), () -> "fallback"));
+        assertEquals(CacheCircuitBreaker.State.OPEN, circuitBreaker.getState());
+    }
+
+    private static String fail(AtomicInteger calls) {
+        calls.incrementAndGet();
+        throw new IllegalStateException("Redis is down");
+    }
+}
@@ -0,0 +1,68 @@
+package com.example.demo.caches;
+
+import com.example.demo.configs.CacheConfig;
+import com.example.demo.configs.CacheProperties;
+import com.example.demo.models.User;
+import com.example.demo.services.util.UserDataGenerator;
+import com.example.demo.util.AllocationBudget;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+public class CacheCodecAllocationTest {
+
+    private static final int SEGMENT_SIZE = 1000;
+
+    private RedisCacheCodec codec;
+    private UserListSegmentCodec segmentCodec;
+    private Object sink;
+
+    @BeforeEach
+    public void setUpCodecs() {
+        // The same serializer chain the application uses: JSON, compression and request timing.
+        codec = new RedisCacheCodec(new CacheConfig().redisCacheConfiguration(new CacheProperties(), new SimpleMeterRegistry()));
+        segmentCodec = new UserListSegmentCodec(codec, 1, Integer.MAX_VALUE);
+    }
+
+    @AfterEach
+    public void closeCodecs() {
+        segmentCodec.close();
+    }
+
+    @Test
+    public void Should_StayWithinAllocationBudget_When_KeyIsSerialized() {
+        AllocationBudget.assertWithinBudget("RedisCacheCodec.serializeKey", 20_000, 10_000,
+                () -> sink = codec.serializeKey(UserCache.CACHE_NAME, 42L));
+    }
+
+    @Test
+    public void Should_StayWithinAllocationBudget_When_UserIsSerialized() {
+        User user = new UserDataGenerator().user(42);
+        AllocationBudget.assertWithinBudget("RedisCacheCodec.serializeValue", 20_000, 10_000,
+                () -> sink = codec.serializeValue(user));
+    }
+
+    @Test
+    public void Should_StayWithinAllocationBudget_When_UserIsDeserialized() {
+        byte[] value = codec.serializeValue(new UserDataGenerator().user(42));
+        AllocationBudget.assertWithinBudget("RedisCacheCodec.deserializeValue", 20_000, 10_000,
+                () -> sink = codec.deserializeValue(value));
+    }
+
+    @Test
+    public void Should_StayWithinAllocationBudget_When_SegmentIsEncoded() {
+        List<User> users = new UserDataGenerator().users(1, SEGMENT_SIZE);
+        AllocationBudget.assertWithinBudget("UserListSegmentCodec.encode", 50, 50,
+                () -> sink = segmentCodec.encode(users));
+    }
+
+    @Test
+    public void Should_StayWithinAllocationBudget_When_SegmentIsDecoded() {
+        byte[] segment = segmentCodec.encode(new UserDataGenerator().users(1, SEGMENT_SIZE));
+        AllocationBudget.assertWithinBudget("UserListSegmentCodec.decode", 50, 50,
+                () -> sink = segmentCodec.decode(segment));
+    }
+}
@@ -0,0 +1,232 @@
+package com.example.demo.caches;
+
+import com.example.demo.configs.CacheProperties;
+import io.lettuce.core.RedisURI;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.cache.RedisCacheConfiguration;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.connection.RedisStandaloneConfiguration;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.testcontainers.containers.GenericContainer;
+import org.testcontainers.utility.DockerImageName;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ClientSideCacheTest {
+
+    private static final String CACHE_NAME = "users";
+    private static final String UNTRACKED_CACHE_NAME = "other";
+    private static final int REDIS_PORT = 6379;
+    private static final Duration TIMEOUT = Duration.ofSeconds(5);
+
+    private static GenericContainer<?> redisContainer;
+    private static LettuceConnectionFactory connectionFactory;
+
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private ClientSideCache clientSideCache;
+    private ResilientRedisCacheWriter writer;
+
+    @BeforeAll
+    @SuppressWarnings("resource")
+    public static void setUpContainers() {
+        redisContainer = new GenericContainer<>(DockerImageName.parse("redis:latest")).withExposedPorts(REDIS_PORT);
+        redisContainer.start();
+        connectionFactory = new LettuceConnectionFactory(
+                new RedisStandaloneConfiguration(redisContainer.getHost(), redisContainer.getMappedPort(REDIS_PORT)));
+        connectionFactory.afterPropertiesSet();
+    }
+
+    @AfterAll
+    public static void tearDownContainers() {
+        connectionFactory.destroy();
+        redisContainer.stop();
+    }
+
+    @AfterEach
+    public void cleanup() {
+        if (clientSideCache != null) {
+            clientSideCache.close();
+        }
+        try (RedisConnection connection = connectionFactory.getConnection()) {
+            connection.serverCommands().flushAll();
+        }
+    }
+
+    @Test
+    public void Should_ServeValueLocally_When_KeyWasReadBefore() {
+        startWriter(true);
+        otherNodePut(key(CACHE_NAME, 1), value(1));
+
+        assertArrayEquals(value(1), writer.get(CACHE_NAME, key(CACHE_NAME, 1)));
+        assertArrayEquals(value(1), clientSideCache.get(CACHE_NAME, key(CACHE_NAME, 1)));
+        assertArrayEquals(value(1), writer.getAll(CACHE_NAME, List.of(key(CACHE_NAME, 1))).get(0));
+        assertEquals(2, meterRegistry.get("cache.client.side.requests").tag("result", "hit").counter().count());
+    }
+
+    @Test
+    public void Should_ReadNewValue_When_AnotherNodeWritesKey() {
+        startWriter(true);
+        otherNodePut(key(CACHE_NAME, 1), value(1));
+        assertArrayEquals(value(1), writer.get(CACHE_NAME, key(CACHE_NAME, 1)));
+
+        otherNodePut(key(CACHE_NAME, 1), value(2));
+        awaitTrue(() -> clientSideCache.get(CACHE_NAME, key(CACHE_NAME, 1)) == null);
+        assertArrayEquals(value(2), writer.get(CACHE_NAME, key(CACHE_NAME, 1)));
+        assertTrue(meterRegistry.get("cache.client.side.invalidations").counter().count() >= 1);
+    }
+
+    @Test
+    public void Should_ReadFromRedis_When_AnotherNodeDeletesKey() {
+        startWriter(true);
+        otherNodePut(key(CACHE_NAME, 1), value(1));
+        assertArrayEquals(value(1), writer.get(CACHE_NAME, key(CACHE_NAME, 1)));
+
+        try (RedisConnection connection = connectionFactory.getConnection()) {
+            connection.keyCommands().del(key(CACHE_NAME, 1));
+        }
+        awaitTrue(() -> clientSideCache.get(CACHE_NAME, key(CACHE_NAME, 1)) == null);
+        assertNull(writer.get(CACHE_NAME, key(CACHE_NAME, 1)));
+    }
+
+    @Test
+    public void Should_DropAllValues_When_DatabaseIsFlushed() {
+        startWriter(true);
+        otherNodePut(key(CACHE_NAME, 1), value(1));
+        otherNodePut(key(CACHE_NAME, 2), value(2));
+        writer.getAll(CACHE_NAME, List.of(key(CACHE_NAME, 1), key(CACHE_NAME, 2)));
+
+        try (RedisConnection connection = connectionFactory.getConnection()) {
+            connection.serverCommands().flushAll();
+        }
+        awaitTrue(() -> clientSideCache.get(CACHE_NAME, key(CACHE_NAME, 1)) == null
+                && clientSideCache.get(CACHE_NAME, key(CACHE_NAME, 2)) == null);
+    }
+
+    @Test
+    public void Should_KeepValue_When_ReadsUpdateLfuIndex() throws InterruptedException {
+        CacheProperties.Policy policy = new CacheProperties.Policy();
+        policy.setMaxEntries(100);
+        policy.setEviction(CacheProperties.Eviction.LFU);
+        startWriter(true, policy);
+        otherNodePut(key(CACHE_NAME, 1), value(1));
+
+        assertArrayEquals(value(1), writer.get(CACHE_NAME, key(CACHE_NAME, 1)));
+        // Gives Redis time to push an invalidation, if the index update caused one.
+        Thread.sleep(200);
+        assertArrayEquals(value(1), clientSideCache.get(CACHE_NAME, key(CACHE_NAME, 1)));
+        assertEquals(0, meterRegistry.get("cache.client.side.invalidations").counter().count());
+    }
+
+    @Test
+    public void Should_RecordLocalReads_When_LocalReadsAreFlushed() {
+        CacheProperties.Policy policy = new CacheProperties.Policy();
+        policy.setMaxEntries(100);
+        policy.setEviction(CacheProperties.Eviction.LFU);
+        startWriter(true, policy);
+        writer.put(CACHE_NAME, key(CACHE_NAME, 1), value(1), Duration.ZERO);
+        assertArrayEquals(value(1), writer.get(CACHE_NAME, key(CACHE_NAME, 1)));
+        double scoreBeforeLocalReads = accessScore(key(CACHE_NAME, 1));
+
+        for (int i = 0; i < 10; i++) {
+            assertArrayEquals(value(1), writer.get(CACHE_NAME, key(CACHE_NAME, 1)));
+        }
+        writer.flushLocalReads();
+
+        assertEquals(scoreBeforeLocalReads + 10, accessScore(key(CACHE_NAME, 1)));
+    }
+
+    @Test
+    public void Should_NotKeepValue_When_CacheIsNotTracked() {
+        startWriter(true);
+        otherNodePut(key(UNTRACKED_CACHE_NAME, 1), value(1));
+
+        assertArrayEquals(value(1), writer.get(UNTRACKED_CACHE_NAME, key(UNTRACKED_CACHE_NAME, 1)));
+        assertNull(clientSideCache.get(UNTRACKED_CACHE_NAME, key(UNTRACKED_CACHE_NAME, 1)));
+    }
+
+    @Test
+    public void Should_NotKeepValue_When_ClientSideCacheIsDisabled() {
+        startWriter(false);
+        otherNodePut(key(CACHE_NAME, 1), value(1));
+
+        assertArrayEquals(value(1), writer.get(CACHE_NAME, key(CACHE_NAME, 1)));
+        assertFalse(clientSideCache.isTracking());
+        assertNull(clientSideCache.get(CACHE_NAME, key(CACHE_NAME, 1)));
+    }
+
+    private void startWriter(boolean enabled) {
+        startWriter(enabled, null);
+    }
+
+    private void startWriter(boolean enabled, CacheProperties.Policy policy) {
+        CacheProperties cacheProperties = new CacheProperties();
+        if (policy != null) {
+            cacheProperties.getPolicies().put(CACHE_NAME, policy);
+        }
+        cacheProperties.getClientSide().setEnabled(enabled);
+        // Hot keys are off so every local hit comes from the client-side cache.
+        cacheProperties.getHotKeys().setEnabled(false);
+        RedisCacheConfiguration cacheConfiguration = RedisCacheConfiguration.defaultCacheConfig();
+        clientSideCache = new ClientSideCache(cacheProperties.getClientSide(),
+                RedisURI.create(redisContainer.getHost(), redisContainer.getMappedPort(REDIS_PORT)),
+                cacheConfiguration, meterRegistry);
+        clientSideCache.start();
+        if (enabled) {
+            awaitTrue(clientSideCache::isTracking);
+        }
+        writer = new ResilientRedisCacheWriter(connectionFactory, cacheConfiguration, cacheProperties,
+                new CacheCircuitBreaker(5, Duration.ofSeconds(1), meterRegistry),
+                new HotKeyTracker(cacheProperties.getHotKeys(), meterRegistry), clientSideCache, meterRegistry);
+    }
+
+    /**
+     * Writes through a separate connection, like another instance of the application would.
+     */
+    private static void otherNodePut(byte[] key, byte[] value) {
+        try (RedisConnection connection = connectionFactory.getConnection()) {
+            connection.stringCommands().set(key, value);
+        }
+    }
+
+    private static double accessScore(byte[] key) {
+        try (RedisConnection connection = connectionFactory.getConnection()) {
+            Double score = connection.zSetCommands().zScore(
+                    ("__index:" + CACHE_NAME + ":access").getBytes(StandardCharsets.UTF_8), key);
+            return score == null ? 0 : score;
+        }
+    }
+
+    private static void awaitTrue(BooleanSupplier condition) {
+        long deadline = System.nanoTime() + TIMEOUT.toNanos();
+        while (!condition.getAsBoolean()) {
+            if (System.nanoTime() > deadline) {
+                fail("Condition not met within " + TIMEOUT);
+            }
+            try {
+                Thread.sleep(10);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                fail("Interrupted while waiting");
+            }
+        }
+    }
+
+    private static byte[] key(String cacheName, int id) {
+        return (cacheName + "::" + id).getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static byte[] value(int id) {
+        return ("user-" + id).getBytes(StandardCharsets.UTF_8);
+    }
+}
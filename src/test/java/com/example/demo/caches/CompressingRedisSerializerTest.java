@@ -0,0 +1,68 @@
+package com.example.demo.caches;
+
+import com.example.demo.models.User;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer;
+import org.springframework.data.redis.serializer.SerializationException;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static com.example.demo.services.util.UserServiceTestUtil.PERSISTED_USER_1;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CompressingRedisSerializerTest {
+
+    private final GenericJackson2JsonRedisSerializer jsonSerializer = new GenericJackson2JsonRedisSerializer();
+    private SimpleMeterRegistry meterRegistry;
+    private CompressingRedisSerializer serializer;
+
+    @BeforeEach
+    public void setUpSerializer() {
+        meterRegistry = new SimpleMeterRegistry();
+        serializer = new CompressingRedisSerializer(jsonSerializer, 1024, 1, meterRegistry);
+    }
+
+    @Test
+    public void Should_StoreValueUncompressed_When_ValueIsBelowThreshold() {
+        byte[] bytes = serializer.serialize(PERSISTED_USER_1);
+        assertArrayEquals(jsonSerializer.serialize(PERSISTED_USER_1), bytes);
+        assertEquals(PERSISTED_USER_1, serializer.deserialize(bytes));
+    }
+
+    @Test
+    public void Should_CompressValueAndReadItBack_When_ValueIsAboveThreshold() {
+        List<User> users = createUsers(1_000);
+        byte[] uncompressed = jsonSerializer.serialize(users);
+        byte[] compressed = serializer.serialize(users);
+        assertTrue(CompressingRedisSerializer.isCompressed(compressed));
+        assertTrue(compressed.length < uncompressed.length / 4);
+        assertEquals(users, serializer.deserialize(compressed));
+        assertEquals(uncompressed.length - compressed.length,
+                meterRegistry.get("cache.codec.bytes.saved").counter().count());
+    }
+
+    @Test
+    public void Should_ReadUncompressedValue_When_ValueWasWrittenWithoutCompression() {
+        List<User> users = createUsers(1_000);
+        assertEquals(users, serializer.deserialize(jsonSerializer.serialize(users)));
+    }
+
+    @Test
+    public void Should_ThrowSerializationException_When_CompressedValueIsTruncated() {
+        byte[] compressed = serializer.serialize(createUsers(1_000));
+        byte[] truncated = Arrays.copyOf(compressed, compressed.length / 2);
+        assertThrows(SerializationException.class, () -> serializer.deserialize(truncated));
+    }
+
+    private static List<User> createUsers(int numberOfUsers) {
+        List<User> users = new ArrayList<>();
+        for (long i = 1; i <= numberOfUsers; i++) {
+            users.add(new User(i, "Alice", "Smith", User.Gender.FEMALE, "alice.smith" + i + "@example.com"));
+        }
+        return users;
+    }
+}
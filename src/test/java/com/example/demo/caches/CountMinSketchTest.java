@@ -0,0 +1,49 @@
+package com.example.demo.caches;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CountMinSketchTest {
+
+    @Test
+    public void Should_NeverUndercount_When_ManyKeysAreCounted() {
+        CountMinSketch sketch = new CountMinSketch(1024);
+        for (long key = 0; key < 5_000; key++) {
+            for (int i = 0; i < key % 7; i++) {
+                sketch.increment(key);
+            }
+        }
+        for (long key = 0; key < 5_000; key++) {
+            assertTrue(sketch.estimate(key) >= key % 7, "Key " + key);
+        }
+    }
+
+    @Test
+    public void Should_SeparateHotKeyFromColdKeys_When_TrafficIsSkewed() {
+        CountMinSketch sketch = new CountMinSketch(1024);
+        for (long key = 0; key < 10_000; key++) {
+            sketch.increment(key);
+        }
+        for (int i = 0; i < 1_000; i++) {
+            sketch.increment(-1L);
+        }
+        assertTrue(sketch.estimate(-1L) >= 1_000);
+        assertTrue(sketch.estimate(42L) < 100, "Estimate: " + sketch.estimate(42L));
+    }
+
+    @Test
+    public void Should_HalveEstimates_When_SketchIsHalved() {
+        CountMinSketch sketch = new CountMinSketch(64);
+        for (int i = 0; i < 100; i++) {
+            sketch.increment(7L);
+        }
+        sketch.halve();
+        assertEquals(50, sketch.estimate(7L));
+    }
+
+    @Test
+    public void Should_ThrowIllegalArgumentException_When_WidthIsNotPositive() {
+        assertThrows(IllegalArgumentException.class, () -> new CountMinSketch(0));
+    }
+}
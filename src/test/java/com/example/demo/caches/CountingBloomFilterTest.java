@@ -0,0 +1,50 @@
+package com.example.demo.caches;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CountingBloomFilterTest {
+
+    @Test
+    public void Should_ContainAllAddedValues_When_ValuesAreAdded() {
+        CountingBloomFilter filter = new CountingBloomFilter(10_000, 0.01);
+        for (long i = 1; i <= 10_000; i++) {
+            filter.add(i);
+        }
+        for (long i = 1; i <= 10_000; i++) {
+            assertTrue(filter.mightContain(i));
+        }
+    }
+
+    @Test
+    public void Should_KeepFalsePositiveRateNearConfiguredProbability_When_FilterIsFull() {
+        CountingBloomFilter filter = new CountingBloomFilter(10_000, 0.01);
+        for (long i = 1; i <= 10_000; i++) {
+            filter.add(i);
+        }
+        int falsePositives = 0;
+        for (long i = 1_000_000; i < 1_100_000; i++) {
+            if (filter.mightContain(i)) {
+                falsePositives++;
+            }
+        }
+        assertTrue(falsePositives < 2_000, "False positives: " + falsePositives);
+    }
+
+    @Test
+    public void Should_NotContainValue_When_ValueIsRemoved() {
+        CountingBloomFilter filter = new CountingBloomFilter(1_000, 0.01);
+        filter.add(42L);
+        filter.add(43L);
+        filter.remove(42L);
+        assertFalse(filter.mightContain(42L));
+        assertTrue(filter.mightContain(43L));
+    }
+
+    @Test
+    public void Should_ThrowIllegalArgumentException_When_ProbabilityIsInvalid() {
+        assertThrows(IllegalArgumentException.class, () -> new CountingBloomFilter(1_000, 1.5));
+        assertThrows(IllegalArgumentException.class, () -> new CountingBloomFilter(0, 0.01));
+    }
+}
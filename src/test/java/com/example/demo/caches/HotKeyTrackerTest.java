@@ -0,0 +1,129 @@
+package com.example.demo.caches;
+
+import com.example.demo.configs.CacheProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class HotKeyTrackerTest {
+
+    private static final String CACHE_NAME = "users";
+    private static final byte[] HOT_KEY = "users::all".getBytes(StandardCharsets.UTF_8);
+    private static final byte[] VALUE = {1, 2, 3};
+
+    private CacheProperties.HotKeys hotKeys;
+    private SimpleMeterRegistry meterRegistry;
+
+    @BeforeEach
+    public void setUpProperties() {
+        hotKeys = new CacheProperties.HotKeys();
+        hotKeys.setThreshold(10);
+        hotKeys.setTopN(3);
+        hotKeys.setWindow(Duration.ofMinutes(1));
+        hotKeys.setLocalTtl(Duration.ofMinutes(1));
+        meterRegistry = new SimpleMeterRegistry();
+    }
+
+    @Test
+    public void Should_ServeValueLocally_When_KeyIsReadAtLeastThresholdTimes() {
+        HotKeyTracker tracker = new HotKeyTracker(hotKeys, meterRegistry);
+        for (int i = 0; i < 9; i++) {
+            tracker.recordRead(CACHE_NAME, HOT_KEY, VALUE, tracker.generation());
+        }
+        assertNull(tracker.getLocal(CACHE_NAME, HOT_KEY));
+
+        tracker.recordRead(CACHE_NAME, HOT_KEY, VALUE, tracker.generation());
+        assertArrayEquals(VALUE, tracker.getLocal(CACHE_NAME, HOT_KEY));
+        assertEquals(1, meterRegistry.get("cache.hotkeys.local.hits").tag("cache", CACHE_NAME).counter().count());
+    }
+
+    @Test
+    public void Should_DropLocalValue_When_KeyIsWritten() {
+        HotKeyTracker tracker = promoted(new HotKeyTracker(hotKeys, meterRegistry));
+        tracker.invalidate(CACHE_NAME, HOT_KEY);
+        assertNull(tracker.getLocal(CACHE_NAME, HOT_KEY));
+
+        promoted(tracker);
+        tracker.invalidateAll(CACHE_NAME);
+        assertNull(tracker.getLocal(CACHE_NAME, HOT_KEY));
+    }
+
+    @Test
+    public void Should_NotKeepValueLocally_When_KeyIsWrittenDuringRead() {
+        HotKeyTracker tracker = new HotKeyTracker(hotKeys, meterRegistry);
+        for (int i = 0; i < 20; i++) {
+            long generation = tracker.generation();
+            tracker.invalidate(CACHE_NAME, HOT_KEY);
+            tracker.recordRead(CACHE_NAME, HOT_KEY, VALUE, generation);
+        }
+        assertNull(tracker.getLocal(CACHE_NAME, HOT_KEY));
+    }
+
+    @Test
+    public void Should_ExpireLocalValue_When_LocalTtlHasPassed() throws InterruptedException {
+        hotKeys.setLocalTtl(Duration.ofMillis(50));
+        HotKeyTracker tracker = promoted(new HotKeyTracker(hotKeys, meterRegistry));
+        Thread.sleep(100);
+        assertNull(tracker.getLocal(CACHE_NAME, HOT_KEY));
+    }
+
+    @Test
+    public void Should_OnlyDetectHotKeys_When_LocalCopyIsDisabled() {
+        hotKeys.setMaxLocalEntries(0);
+        HotKeyTracker tracker = promoted(new HotKeyTracker(hotKeys, meterRegistry));
+        assertNull(tracker.getLocal(CACHE_NAME, HOT_KEY));
+        assertEquals(1, tracker.topKeys().size());
+    }
+
+    @Test
+    public void Should_ReportHottestKeysFirst_When_TrafficIsSkewed() {
+        HotKeyTracker tracker = new HotKeyTracker(hotKeys, meterRegistry);
+        for (int id = 1; id <= 1_000; id++) {
+            byte[] key = ("users::" + id).getBytes(StandardCharsets.UTF_8);
+            int reads = id <= 5 ? 100 - id * 10 : 1;
+            for (int i = 0; i < reads; i++) {
+                tracker.recordRead(CACHE_NAME, key, VALUE, tracker.generation());
+            }
+        }
+
+        List<HotKeyTracker.HotKey> topKeys = tracker.topKeys();
+        assertEquals(List.of("users::1", "users::2", "users::3"), topKeys.stream()
+                .map(HotKeyTracker.HotKey::key)
+                .toList());
+        assertTrue(topKeys.stream().allMatch(HotKeyTracker.HotKey::local));
+        assertTrue(topKeys.get(0).readsPerSecond() > topKeys.get(1).readsPerSecond());
+    }
+
+    @Test
+    public void Should_ForgetKey_When_ItIsNotReadForAWindow() throws InterruptedException {
+        hotKeys.setWindow(Duration.ofMillis(50));
+        HotKeyTracker tracker = promoted(new HotKeyTracker(hotKeys, meterRegistry));
+        assertEquals(1, tracker.topKeys().size());
+
+        Thread.sleep(60);
+        tracker.topKeys();
+        Thread.sleep(60);
+        assertTrue(tracker.topKeys().isEmpty());
+    }
+
+    @Test
+    public void Should_DoNothing_When_Disabled() {
+        hotKeys.setEnabled(false);
+        HotKeyTracker tracker = promoted(new HotKeyTracker(hotKeys, meterRegistry));
+        assertNull(tracker.getLocal(CACHE_NAME, HOT_KEY));
+        assertTrue(tracker.topKeys().isEmpty());
+    }
+
+    private HotKeyTracker promoted(HotKeyTracker tracker) {
+        for (int i = 0; i < 10; i++) {
+            tracker.recordRead(CACHE_NAME, HOT_KEY, VALUE, tracker.generation());
+        }
+        return tracker;
+    }
+}
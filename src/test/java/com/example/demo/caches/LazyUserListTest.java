@@ -0,0 +1,143 @@
+package com.example.demo.caches;
+
+import com.example.demo.models.User;
+import com.example.demo.models.UserView;
+import com.example.demo.services.util.UserDataGenerator;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.cache.RedisCacheConfiguration;
+import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer;
+import org.springframework.data.redis.serializer.RedisSerializationContext;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+public class LazyUserListTest {
+
+    private static final int SEGMENT_SIZE = 1000;
+
+    private final List<User> users = new UserDataGenerator().users(1, 3_500);
+
+    private UserListSegmentCodec segmentCodec;
+    private List<byte[]> encodedSegments;
+
+    @BeforeEach
+    public void encodeSegments() {
+        RedisCacheCodec redisCacheCodec = new RedisCacheCodec(RedisCacheConfiguration.defaultCacheConfig()
+                .serializeValuesWith(RedisSerializationContext.SerializationPair.fromSerializer(
+                        new GenericJackson2JsonRedisSerializer())));
+        segmentCodec = spy(new UserListSegmentCodec(redisCacheCodec, 2, 2));
+        encodedSegments = new ArrayList<>();
+        for (int from = 0; from < users.size(); from += SEGMENT_SIZE) {
+            encodedSegments.add(segmentCodec.encode(new ArrayList<>(users.subList(from, Math.min(from + SEGMENT_SIZE, users.size())))));
+        }
+        // An empty segment in the middle, as left behind by deleted id ranges
+        encodedSegments.add(2, segmentCodec.encode(new ArrayList<>()));
+    }
+
+    @AfterEach
+    public void closeCodec() {
+        segmentCodec.close();
+    }
+
+    @Test
+    public void Should_NotDecodeAnySegment_When_SizeIsChecked() {
+        LazyUserList list = new LazyUserList(segmentCodec, encodedSegments, nothingDecoded());
+        assertEquals(users.size(), list.size());
+        assertFalse(list.isEmpty());
+        verify(segmentCodec, never()).decode(any());
+        verify(segmentCodec, never()).decodeAll(any());
+    }
+
+    @Test
+    public void Should_DecodeOnlyTouchedSegment_When_ElementIsAccessed() {
+        LazyUserList list = new LazyUserList(segmentCodec, encodedSegments, nothingDecoded());
+        assertEquals(users.get(2_500), list.get(2_500));
+        assertEquals(users.get(2_999), list.get(2_999));
+        verify(segmentCodec, times(1)).decode(any());
+    }
+
+    @Test
+    public void Should_DecodeOnlyTouchedSegments_When_SliceIsRead() {
+        LazyUserList list = new LazyUserList(segmentCodec, encodedSegments, nothingDecoded());
+        assertEquals(users.subList(900, 1_100), new ArrayList<>(list.subList(900, 1_100)));
+        verify(segmentCodec, times(2)).decode(any());
+    }
+
+    @Test
+    public void Should_ContainAllUsersInOrder_When_ListIsIterated() {
+        LazyUserList list = new LazyUserList(segmentCodec, encodedSegments, nothingDecoded());
+        assertEquals(users, list);
+        assertEquals(users.stream().map(UserView::from).toList(), list.map(UserView::from).stream().toList());
+    }
+
+    @Test
+    public void Should_UseDecodedSegment_When_SegmentWasReloaded() {
+        List<List<User>> decodedSegments = nothingDecoded();
+        decodedSegments.set(0, new ArrayList<>(users.subList(0, SEGMENT_SIZE)));
+        encodedSegments.set(0, null);
+        LazyUserList list = new LazyUserList(segmentCodec, encodedSegments, decodedSegments);
+        assertEquals(users.get(10), list.get(10));
+        verify(segmentCodec, never()).decode(any());
+    }
+
+    @Test
+    public void Should_BeEmpty_When_ThereAreNoSegments() {
+        LazyUserList list = new LazyUserList(segmentCodec, List.of(), List.of());
+        assertTrue(list.isEmpty());
+        assertThrows(IndexOutOfBoundsException.class, () -> list.get(0));
+    }
+
+    @Test
+    public void Should_ThrowUnsupportedOperationException_When_ListIsModified() {
+        LazyUserList list = new LazyUserList(segmentCodec, encodedSegments, nothingDecoded());
+        assertThrows(UnsupportedOperationException.class, () -> list.add(users.get(0)));
+    }
+
+    @Test
+    public void Should_ReloadSegment_When_SegmentCannotBeDecoded() {
+        encodedSegments.set(1, corrupt(encodedSegments.get(1)));
+        List<Integer> reloaded = new ArrayList<>();
+        LazyUserList list = new LazyUserList(segmentCodec, encodedSegments, nothingDecoded(), segment -> {
+            reloaded.add(segment);
+            return new ArrayList<>(users.subList(SEGMENT_SIZE, 2 * SEGMENT_SIZE));
+        });
+
+        assertEquals(users.get(1_500), list.get(1_500));
+        assertEquals(users, list);
+        assertEquals(List.of(1), reloaded);
+    }
+
+    @Test
+    public void Should_ResizeList_When_ReloadedSegmentHasOtherSize() {
+        encodedSegments.set(1, corrupt(encodedSegments.get(1)));
+        LazyUserList list = new LazyUserList(segmentCodec, encodedSegments, nothingDecoded(),
+                segment -> new ArrayList<>(users.subList(SEGMENT_SIZE, SEGMENT_SIZE + 10)));
+
+        assertEquals(users.size(), list.size());
+        assertEquals(users.get(SEGMENT_SIZE + 5), list.get(SEGMENT_SIZE + 5));
+        assertEquals(users.size() - SEGMENT_SIZE + 10, list.size());
+        assertEquals(users.get(2 * SEGMENT_SIZE), list.get(SEGMENT_SIZE + 10));
+        List<User> expected = new ArrayList<>(users.subList(0, SEGMENT_SIZE + 10));
+        expected.addAll(users.subList(2 * SEGMENT_SIZE, users.size()));
+        assertEquals(expected, list);
+    }
+
+    private static byte[] corrupt(byte[] segment) {
+        byte[] corrupted = segment.clone();
+        // Keeps the header, so the damage only shows when the users are decoded.
+        Arrays.fill(corrupted, 6, corrupted.length, (byte) '{');
+        return corrupted;
+    }
+
+    private List<List<User>> nothingDecoded() {
+        return new ArrayList<>(Collections.nCopies(encodedSegments.size(), null));
+    }
+}
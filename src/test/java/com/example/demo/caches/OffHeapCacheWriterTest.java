@@ -0,0 +1,119 @@
+package com.example.demo.caches;
+
+import com.example.demo.configs.CacheProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.Cache;
+import org.springframework.data.redis.cache.RedisCacheConfiguration;
+import org.springframework.data.redis.cache.RedisCacheManager;
+import org.springframework.util.unit.DataSize;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class OffHeapCacheWriterTest {
+
+    private static final String CACHE_NAME = "users";
+    private static final String OTHER_CACHE_NAME = "other";
+
+    private CacheProperties cacheProperties;
+    private OffHeapCacheWriter writer;
+
+    @BeforeEach
+    public void setUpWriter() {
+        cacheProperties = new CacheProperties();
+        cacheProperties.getOffHeap().setCapacity(DataSize.ofKilobytes(64));
+        cacheProperties.getOffHeap().setSegmentSize(DataSize.ofKilobytes(16));
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        writer = new OffHeapCacheWriter(new OffHeapStore(cacheProperties.getOffHeap(), meterRegistry),
+                RedisCacheConfiguration.defaultCacheConfig(), cacheProperties, meterRegistry);
+    }
+
+    @AfterEach
+    public void closeWriter() {
+        writer.close();
+    }
+
+    @Test
+    public void Should_StoreCacheEntries_When_UsedByRedisCacheManager() {
+        RedisCacheManager cacheManager = RedisCacheManager.builder(writer)
+                .cacheDefaults(RedisCacheConfiguration.defaultCacheConfig())
+                .build();
+        Cache cache = cacheManager.getCache(CACHE_NAME);
+        assertNotNull(cache);
+
+        cache.put(1L, "Bob");
+        assertEquals("Bob", cache.get(1L, String.class));
+        cache.evict(1L);
+        assertNull(cache.get(1L));
+
+        cache.put(2L, "Alice");
+        cache.clear();
+        assertNull(cache.get(2L));
+    }
+
+    @Test
+    public void Should_CleanOnlyMatchingCache_When_PatternIsGiven() {
+        writer.putAll(CACHE_NAME, Map.of(key(CACHE_NAME, 1), value(1), key(CACHE_NAME, 2), value(2)));
+        writer.put(OTHER_CACHE_NAME, key(OTHER_CACHE_NAME, 1), value(3), Duration.ZERO);
+
+        writer.clean(CACHE_NAME, (CACHE_NAME + "::*").getBytes(StandardCharsets.UTF_8));
+
+        assertNull(writer.get(CACHE_NAME, key(CACHE_NAME, 1)));
+        assertNull(writer.get(CACHE_NAME, key(CACHE_NAME, 2)));
+        assertArrayEquals(value(3), writer.get(OTHER_CACHE_NAME, key(OTHER_CACHE_NAME, 1)));
+    }
+
+    @Test
+    public void Should_CountEntriesAndBytesPerCache_When_CachesShareStore() {
+        writer.putAll(CACHE_NAME, Map.of(key(CACHE_NAME, 1), value(1), key(CACHE_NAME, 2), value(2)));
+        writer.put(OTHER_CACHE_NAME, key(OTHER_CACHE_NAME, 1), value(3), Duration.ZERO);
+
+        assertEquals(2, writer.countEntries(CACHE_NAME));
+        assertEquals(1, writer.countEntries(OTHER_CACHE_NAME));
+        assertEquals(key(CACHE_NAME, 1).length + key(CACHE_NAME, 2).length + value(1).length + value(2).length,
+                writer.estimateMemoryUsage(CACHE_NAME, 1));
+    }
+
+    @Test
+    public void Should_ExpireEntry_When_PolicyTtlHasPassed() throws InterruptedException {
+        CacheProperties.Policy policy = new CacheProperties.Policy();
+        policy.setTtl(Duration.ofMillis(20));
+        cacheProperties.getPolicies().put(CACHE_NAME, policy);
+
+        writer.put(CACHE_NAME, key(CACHE_NAME, 1), value(1), Duration.ZERO);
+        writer.putExpiring(CACHE_NAME, key(CACHE_NAME, 2), value(2), Duration.ofMinutes(1));
+        Thread.sleep(50);
+
+        assertNull(writer.get(CACHE_NAME, key(CACHE_NAME, 1)));
+        assertArrayEquals(value(2), writer.get(CACHE_NAME, key(CACHE_NAME, 2)));
+    }
+
+    @Test
+    public void Should_MatchRedisGlobPatterns_When_KeysAreCleaned() {
+        assertTrue(OffHeapCacheWriter.matches(bytes("users::*"), ByteBuffer.wrap(bytes("users::1"))));
+        assertTrue(OffHeapCacheWriter.matches(bytes("users::*"), ByteBuffer.wrap(bytes("users::"))));
+        assertTrue(OffHeapCacheWriter.matches(bytes("users::?"), ByteBuffer.wrap(bytes("users::1"))));
+        assertTrue(OffHeapCacheWriter.matches(bytes("*::all*"), ByteBuffer.wrap(bytes("users::all:segment:1"))));
+        assertFalse(OffHeapCacheWriter.matches(bytes("users::?"), ByteBuffer.wrap(bytes("users::12"))));
+        assertFalse(OffHeapCacheWriter.matches(bytes("users::*"), ByteBuffer.wrap(bytes("other::1"))));
+    }
+
+    private static byte[] key(String cacheName, int id) {
+        return bytes(cacheName + "::" + id);
+    }
+
+    private static byte[] value(int id) {
+        return bytes("user-" + id);
+    }
+
+    private static byte[] bytes(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,203 @@
+package com.example.demo.caches;
+
+import com.example.demo.configs.CacheProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.util.unit.DataSize;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class OffHeapStoreTest {
+
+    private static final int SEGMENT_SIZE = 1024;
+    private static final int SEGMENTS = 4;
+    private static final int VALUE_SIZE = 100;
+
+    private CacheProperties.OffHeap offHeap;
+    private SimpleMeterRegistry meterRegistry;
+    private OffHeapStore store;
+
+    @BeforeEach
+    public void setUpProperties() {
+        offHeap = new CacheProperties.OffHeap();
+        offHeap.setSegmentSize(DataSize.ofBytes(SEGMENT_SIZE));
+        offHeap.setCapacity(DataSize.ofBytes((long) SEGMENT_SIZE * SEGMENTS));
+        meterRegistry = new SimpleMeterRegistry();
+    }
+
+    @AfterEach
+    public void closeStore() {
+        if (store != null) {
+            store.close();
+        }
+    }
+
+    @Test
+    public void Should_ReturnStoredValue_When_KeyWasPut() {
+        store = new OffHeapStore(offHeap, meterRegistry);
+        store.put(key(1), value(1), 0);
+        store.put(key(2), value(2), 0);
+        store.put(key(1), value(3), 0);
+
+        assertArrayEquals(value(3), store.get(key(1)));
+        assertArrayEquals(value(2), store.get(key(2)));
+        assertNull(store.get(key(4)));
+        assertEquals(2 * VALUE_SIZE, meterRegistry.get("cache.offheap.used").gauge().value());
+        assertEquals(2, meterRegistry.get("cache.offheap.requests").tag("result", "hit").counter().count());
+        assertEquals(1, meterRegistry.get("cache.offheap.requests").tag("result", "miss").counter().count());
+    }
+
+    @Test
+    public void Should_ReturnNull_When_EntryHasExpired() throws InterruptedException {
+        store = new OffHeapStore(offHeap, meterRegistry);
+        store.put(key(1), value(1), 1);
+        store.put(key(2), value(2), 0);
+        Thread.sleep(10);
+
+        assertNull(store.get(key(1)));
+        assertArrayEquals(value(2), store.get(key(2)));
+        assertEquals(1, store.count(key -> true));
+    }
+
+    @Test
+    public void Should_EvictOldestEntries_When_CapacityIsExceeded() {
+        store = new OffHeapStore(offHeap, meterRegistry);
+        int count = 100;
+        for (int i = 0; i < count; i++) {
+            store.put(key(i), value(i), 0);
+        }
+
+        assertNull(store.get(key(0)));
+        assertArrayEquals(value(count - 1), store.get(key(count - 1)));
+        assertTrue(meterRegistry.get("cache.offheap.evictions").counter().count() > 0);
+        assertTrue(meterRegistry.get("cache.offheap.used").gauge().value() <= SEGMENT_SIZE * SEGMENTS);
+        assertEquals(SEGMENT_SIZE * SEGMENTS, meterRegistry.get("cache.offheap.allocated").gauge().value());
+    }
+
+    @Test
+    public void Should_KeepEntry_When_ItWasReadBeforeItsSegmentIsReused() {
+        store = new OffHeapStore(offHeap, meterRegistry);
+        int perSegment = SEGMENT_SIZE / VALUE_SIZE;
+        store.put(key(0), value(0), 0);
+        store.put(key(1), value(1), 0);
+        store.get(key(0));
+        for (int i = 2; i < perSegment * SEGMENTS + 1; i++) {
+            store.put(key(i), value(i), 0);
+        }
+
+        assertArrayEquals(value(0), store.get(key(0)));
+        assertNull(store.get(key(1)));
+    }
+
+    @Test
+    public void Should_StoreLargeValue_When_ReusedSegmentHoldsReadEntries() {
+        store = new OffHeapStore(offHeap, meterRegistry);
+        int count = SEGMENT_SIZE / VALUE_SIZE * SEGMENTS;
+        for (int i = 0; i < count; i++) {
+            store.put(key(i), value(i), 0);
+            store.get(key(i));
+        }
+        byte[] large = new byte[SEGMENT_SIZE - VALUE_SIZE];
+        Arrays.fill(large, (byte) 7);
+        store.put(key(count), large, 0);
+
+        assertArrayEquals(large, store.get(key(count)));
+        assertArrayEquals(value(count - 1), store.get(key(count - 1)));
+    }
+
+    @Test
+    public void Should_NotCacheValue_When_ItIsLargerThanSegment() {
+        store = new OffHeapStore(offHeap, meterRegistry);
+        store.put(key(1), value(1), 0);
+        store.put(key(1), new byte[SEGMENT_SIZE + 1], 0);
+
+        assertNull(store.get(key(1)));
+        assertEquals(1, meterRegistry.get("cache.offheap.rejections").counter().count());
+    }
+
+    @Test
+    public void Should_KeepExistingValue_When_PutIfAbsentFindsKey() {
+        store = new OffHeapStore(offHeap, meterRegistry);
+        assertNull(store.putIfAbsent(key(1), value(1), 0));
+        assertArrayEquals(value(1), store.putIfAbsent(key(1), value(2), 0));
+        assertArrayEquals(value(1), store.get(key(1)));
+    }
+
+    @Test
+    public void Should_RemoveMatchingKeys_When_RemoveIfIsCalled() {
+        store = new OffHeapStore(offHeap, meterRegistry);
+        for (int i = 0; i < 5; i++) {
+            store.put(key(i), value(i), 0);
+        }
+
+        assertEquals(2, store.removeIf(key -> key.get(key.limit() - 1) < '2'));
+        assertNull(store.get(key(0)));
+        assertNull(store.get(key(1)));
+        assertEquals(3, store.count(key -> true));
+        assertEquals(3L * (key(0).length + VALUE_SIZE), store.bytes(key -> true));
+    }
+
+    @Test
+    public void Should_StoreValuesInFile_When_StorageIsMapped() {
+        offHeap.setStorage(CacheProperties.OffHeap.Storage.MAPPED);
+        store = new OffHeapStore(offHeap, meterRegistry);
+        for (int i = 0; i < 50; i++) {
+            store.put(key(i), value(i), 0);
+        }
+        assertArrayEquals(value(49), store.get(key(49)));
+    }
+
+    @Test
+    public void Should_NeverReturnTornValue_When_SegmentsAreReusedDuringReads() throws Exception {
+        store = new OffHeapStore(offHeap, meterRegistry);
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(300);
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<?>> results = new ArrayList<>();
+            for (int t = 0; t < 2; t++) {
+                results.add(executor.submit(() -> {
+                    while (System.nanoTime() < deadline) {
+                        int id = ThreadLocalRandom.current().nextInt(64);
+                        store.put(key(id), value(id), 0);
+                    }
+                }));
+                results.add(executor.submit(() -> {
+                    while (System.nanoTime() < deadline) {
+                        int id = ThreadLocalRandom.current().nextInt(64);
+                        byte[] value = store.get(key(id));
+                        if (value != null) {
+                            assertArrayEquals(value(id), value);
+                        }
+                    }
+                }));
+            }
+            for (Future<?> result : results) {
+                result.get();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static byte[] key(int id) {
+        return ("users::" + id).getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static byte[] value(int id) {
+        byte[] value = new byte[VALUE_SIZE];
+        Arrays.fill(value, (byte) id);
+        return value;
+    }
+}
@@ -0,0 +1,226 @@
+package com.example.demo.caches;
+
+import com.example.demo.configs.CacheProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.cache.RedisCacheConfiguration;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.connection.RedisStandaloneConfiguration;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.testcontainers.containers.GenericContainer;
+import org.testcontainers.utility.DockerImageName;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PolicyRedisCacheWriterTest {
+
+    private static final String CACHE_NAME = "users";
+    private static final int REDIS_PORT = 6379;
+
+    private static GenericContainer<?> redisContainer;
+    private static LettuceConnectionFactory connectionFactory;
+
+    private CacheProperties cacheProperties;
+    private PolicyRedisCacheWriter writer;
+
+    @BeforeAll
+    @SuppressWarnings("resource")
+    public static void setUpContainers() {
+        redisContainer = new GenericContainer<>(DockerImageName.parse("redis:latest")).withExposedPorts(REDIS_PORT);
+        redisContainer.start();
+        connectionFactory = new LettuceConnectionFactory(
+                new RedisStandaloneConfiguration(redisContainer.getHost(), redisContainer.getMappedPort(REDIS_PORT)));
+        connectionFactory.afterPropertiesSet();
+    }
+
+    @AfterAll
+    public static void tearDownContainers() {
+        connectionFactory.destroy();
+        redisContainer.stop();
+    }
+
+    @BeforeEach
+    public void setUpWriter() {
+        cacheProperties = new CacheProperties();
+        writer = new PolicyRedisCacheWriter(connectionFactory, RedisCacheConfiguration.defaultCacheConfig(),
+                cacheProperties, new SimpleMeterRegistry());
+    }
+
+    @AfterEach
+    public void cleanupRedis() {
+        try (RedisConnection connection = connectionFactory.getConnection()) {
+            connection.serverCommands().flushAll();
+        }
+    }
+
+    @Test
+    public void Should_NotExpireEntries_When_CacheHasNoPolicy() {
+        writer.put(CACHE_NAME, key(1), value(1), Duration.ZERO);
+        assertArrayEquals(value(1), writer.get(CACHE_NAME, key(1)));
+        assertEquals(-1L, ttlMillis(key(1)));
+        assertEquals(-1L, writer.countEntries(CACHE_NAME));
+    }
+
+    @Test
+    public void Should_ExpireEntriesWithinJitterRange_When_PolicyHasTtl() {
+        CacheProperties.Policy policy = new CacheProperties.Policy();
+        policy.setTtl(Duration.ofSeconds(100));
+        policy.setTtlJitter(0.2);
+        cacheProperties.getPolicies().put(CACHE_NAME, policy);
+
+        for (int i = 0; i < 20; i++) {
+            writer.put(CACHE_NAME, key(i), value(i), Duration.ZERO);
+            long ttl = ttlMillis(key(i));
+            assertTrue(ttl > 79_000 && ttl <= 120_000, "TTL out of jitter range: " + ttl);
+        }
+    }
+
+    @Test
+    public void Should_EvictLeastRecentlyUsedEntry_When_MaxEntriesIsExceeded() throws InterruptedException {
+        CacheProperties.Policy policy = new CacheProperties.Policy();
+        policy.setMaxEntries(2);
+        policy.setEviction(CacheProperties.Eviction.LRU);
+        cacheProperties.getPolicies().put(CACHE_NAME, policy);
+
+        writer.put(CACHE_NAME, key(1), value(1), Duration.ZERO);
+        Thread.sleep(5);
+        writer.put(CACHE_NAME, key(2), value(2), Duration.ZERO);
+        Thread.sleep(5);
+        writer.get(CACHE_NAME, key(1));
+        Thread.sleep(5);
+        writer.put(CACHE_NAME, key(3), value(3), Duration.ZERO);
+
+        assertNotNull(writer.get(CACHE_NAME, key(1)));
+        assertNull(writer.get(CACHE_NAME, key(2)));
+        assertNotNull(writer.get(CACHE_NAME, key(3)));
+        assertEquals(2L, writer.countEntries(CACHE_NAME));
+    }
+
+    @Test
+    public void Should_EvictLeastFrequentlyUsedEntry_When_MaxEntriesIsExceeded() {
+        CacheProperties.Policy policy = new CacheProperties.Policy();
+        policy.setMaxEntries(2);
+        policy.setEviction(CacheProperties.Eviction.LFU);
+        cacheProperties.getPolicies().put(CACHE_NAME, policy);
+
+        Map<byte[], byte[]> entries = new LinkedHashMap<>();
+        entries.put(key(1), value(1));
+        entries.put(key(2), value(2));
+        writer.putAll(CACHE_NAME, entries);
+        writer.get(CACHE_NAME, key(1));
+        writer.get(CACHE_NAME, key(1));
+        writer.get(CACHE_NAME, key(2));
+        writer.put(CACHE_NAME, key(3), value(3), Duration.ZERO);
+
+        assertNotNull(writer.get(CACHE_NAME, key(1)));
+        assertNull(writer.get(CACHE_NAME, key(2)));
+        assertNotNull(writer.get(CACHE_NAME, key(3)));
+    }
+
+    @Test
+    public void Should_EstimateMemoryUsage_When_CacheHasPolicy() {
+        cacheProperties.getPolicies().put(CACHE_NAME, new CacheProperties.Policy());
+        for (int i = 0; i < 10; i++) {
+            writer.put(CACHE_NAME, key(i), value(i), Duration.ZERO);
+        }
+        assertEquals(10L, writer.countEntries(CACHE_NAME));
+        assertTrue(writer.estimateMemoryUsage(CACHE_NAME, 5) > 0);
+    }
+
+    @Test
+    public void Should_DropIndex_When_CacheIsCleaned() {
+        cacheProperties.getPolicies().put(CACHE_NAME, new CacheProperties.Policy());
+        writer.put(CACHE_NAME, key(1), value(1), Duration.ZERO);
+        writer.put(CACHE_NAME, key(2), value(2), Duration.ZERO);
+
+        writer.clean(CACHE_NAME, (CACHE_NAME + "::*").getBytes(StandardCharsets.UTF_8));
+
+        assertNull(writer.get(CACHE_NAME, key(1)));
+        assertEquals(0L, writer.countEntries(CACHE_NAME));
+    }
+
+    @Test
+    public void Should_ReturnValuesInKeyOrder_When_GetAllIsCalled() {
+        cacheProperties.getPolicies().put(CACHE_NAME, new CacheProperties.Policy());
+        writer.put(CACHE_NAME, key(1), value(1), Duration.ZERO);
+        writer.put(CACHE_NAME, key(3), value(3), Duration.ZERO);
+
+        List<byte[]> values = writer.getAll(CACHE_NAME, List.of(key(3), key(2), key(1)));
+
+        assertEquals(3, values.size());
+        assertArrayEquals(value(3), values.get(0));
+        assertNull(values.get(1));
+        assertArrayEquals(value(1), values.get(2));
+        assertEquals(2L, writer.countEntries(CACHE_NAME));
+    }
+
+    @Test
+    public void Should_NotRecordReads_When_AccessSampleRateIsZero() throws InterruptedException {
+        CacheProperties.Policy policy = new CacheProperties.Policy();
+        policy.setMaxEntries(2);
+        policy.setEviction(CacheProperties.Eviction.LRU);
+        policy.setAccessSampleRate(0);
+        cacheProperties.getPolicies().put(CACHE_NAME, policy);
+
+        writer.put(CACHE_NAME, key(1), value(1), Duration.ZERO);
+        Thread.sleep(5);
+        writer.put(CACHE_NAME, key(2), value(2), Duration.ZERO);
+        Thread.sleep(5);
+        assertArrayEquals(value(1), writer.get(CACHE_NAME, key(1)));
+        Thread.sleep(5);
+        writer.put(CACHE_NAME, key(3), value(3), Duration.ZERO);
+
+        assertNull(writer.get(CACHE_NAME, key(1)));
+        assertNotNull(writer.get(CACHE_NAME, key(2)));
+    }
+
+    @Test
+    public void Should_LoadScriptsAgain_When_ServerHasFlushedThem() {
+        cacheProperties.getPolicies().put(CACHE_NAME, new CacheProperties.Policy());
+        writer.put(CACHE_NAME, key(1), value(1), Duration.ZERO);
+
+        flushScripts();
+        writer.put(CACHE_NAME, key(2), value(2), Duration.ZERO);
+        flushScripts();
+        assertArrayEquals(value(1), writer.get(CACHE_NAME, key(1)));
+        flushScripts();
+        writer.putAll(CACHE_NAME, Map.of(key(3), value(3)));
+        flushScripts();
+        List<byte[]> values = writer.getAll(CACHE_NAME, List.of(key(1), key(2), key(3)));
+
+        assertArrayEquals(value(1), values.get(0));
+        assertArrayEquals(value(2), values.get(1));
+        assertArrayEquals(value(3), values.get(2));
+        assertEquals(3L, writer.countEntries(CACHE_NAME));
+    }
+
+    private void flushScripts() {
+        try (RedisConnection connection = connectionFactory.getConnection()) {
+            connection.scriptingCommands().scriptFlush();
+        }
+    }
+
+    private long ttlMillis(byte[] key) {
+        try (RedisConnection connection = connectionFactory.getConnection()) {
+            return connection.keyCommands().pTtl(key);
+        }
+    }
+
+    private static byte[] key(int id) {
+        return (CACHE_NAME + "::" + id).getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static byte[] value(int id) {
+        return ("user-" + id).getBytes(StandardCharsets.UTF_8);
+    }
+}
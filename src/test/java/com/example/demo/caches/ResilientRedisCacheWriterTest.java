@@ -0,0 +1,258 @@
+package com.example.demo.caches;
+
+import com.example.demo.caches.util.FaultInjectingProxy;
+import com.example.demo.configs.CacheProperties;
+import io.lettuce.core.ClientOptions;
+import io.lettuce.core.TimeoutOptions;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.cache.RedisCacheConfiguration;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.connection.RedisStandaloneConfiguration;
+import org.springframework.data.redis.connection.lettuce.LettuceClientConfiguration;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.util.unit.DataSize;
+import org.testcontainers.containers.GenericContainer;
+import org.testcontainers.utility.DockerImageName;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ResilientRedisCacheWriterTest {
+
+    private static final String CACHE_NAME = "users";
+    private static final int REDIS_PORT = 6379;
+    private static final Duration COMMAND_TIMEOUT = Duration.ofMillis(100);
+    private static final Duration OPEN_DURATION = Duration.ofMillis(200);
+    private static final int HOT_KEY_THRESHOLD = 5;
+
+    private static GenericContainer<?> redisContainer;
+    private static LettuceConnectionFactory directConnectionFactory;
+
+    private FaultInjectingProxy proxy;
+    private LettuceConnectionFactory connectionFactory;
+    private CacheProperties cacheProperties;
+    private CacheCircuitBreaker circuitBreaker;
+    private ResilientRedisCacheWriter writer;
+
+    @BeforeAll
+    @SuppressWarnings("resource")
+    public static void setUpContainers() {
+        redisContainer = new GenericContainer<>(DockerImageName.parse("redis:latest")).withExposedPorts(REDIS_PORT);
+        redisContainer.start();
+        directConnectionFactory = new LettuceConnectionFactory(
+                new RedisStandaloneConfiguration(redisContainer.getHost(), redisContainer.getMappedPort(REDIS_PORT)));
+        directConnectionFactory.afterPropertiesSet();
+    }
+
+    @AfterAll
+    public static void tearDownContainers() {
+        directConnectionFactory.destroy();
+        redisContainer.stop();
+    }
+
+    @BeforeEach
+    public void setUpWriter() throws IOException {
+        proxy = new FaultInjectingProxy(redisContainer.getHost(), redisContainer.getMappedPort(REDIS_PORT));
+        LettuceClientConfiguration clientConfiguration = LettuceClientConfiguration.builder()
+                .commandTimeout(COMMAND_TIMEOUT)
+                .clientOptions(ClientOptions.builder().timeoutOptions(TimeoutOptions.enabled(COMMAND_TIMEOUT)).build())
+                .build();
+        connectionFactory = new LettuceConnectionFactory(
+                new RedisStandaloneConfiguration(proxy.getHost(), proxy.getPort()), clientConfiguration);
+        connectionFactory.afterPropertiesSet();
+
+        cacheProperties = new CacheProperties();
+        cacheProperties.getPolicies().put(CACHE_NAME, new CacheProperties.Policy());
+        cacheProperties.getHotKeys().setThreshold(HOT_KEY_THRESHOLD);
+        circuitBreaker = new CacheCircuitBreaker(2, OPEN_DURATION, new SimpleMeterRegistry());
+        writer = new ResilientRedisCacheWriter(connectionFactory, RedisCacheConfiguration.defaultCacheConfig(),
+                cacheProperties, circuitBreaker, new SimpleMeterRegistry());
+    }
+
+    @AfterEach
+    public void cleanup() {
+        writer.close();
+        connectionFactory.destroy();
+        proxy.close();
+        try (RedisConnection connection = directConnectionFactory.getConnection()) {
+            connection.serverCommands().flushAll();
+        }
+    }
+
+    @Test
+    public void Should_ServeStaleCopyWithoutWaiting_When_CircuitIsOpen() {
+        writer.put(CACHE_NAME, key(1), value(1), Duration.ZERO);
+        assertArrayEquals(value(1), writer.get(CACHE_NAME, key(1)));
+
+        proxy.setMode(FaultInjectingProxy.Mode.STALL);
+        assertArrayEquals(value(1), writer.get(CACHE_NAME, key(1)));
+        assertNull(writer.get(CACHE_NAME, key(2)));
+        assertEquals(CacheCircuitBreaker.State.OPEN, circuitBreaker.getState());
+
+        long startTime = System.nanoTime();
+        assertArrayEquals(value(1), writer.get(CACHE_NAME, key(1)));
+        assertTrue(System.nanoTime() - startTime < COMMAND_TIMEOUT.toNanos(), "Open circuit still waited for Redis");
+    }
+
+    @Test
+    public void Should_NotKeepStaleCopy_When_ValueExceedsMaxSize() {
+        cacheProperties.getResilience().setStaleCopyMaxSize(DataSize.ofBytes(value(1).length));
+        writer.close();
+        writer = new ResilientRedisCacheWriter(connectionFactory, RedisCacheConfiguration.defaultCacheConfig(),
+                cacheProperties, circuitBreaker, new SimpleMeterRegistry());
+        byte[] largeValue = "a value larger than the stale copy".getBytes(StandardCharsets.UTF_8);
+        writer.put(CACHE_NAME, key(1), value(1), Duration.ZERO);
+        writer.put(CACHE_NAME, key(2), largeValue, Duration.ZERO);
+        writer.put(CACHE_NAME, key(3), value(3), Duration.ZERO);
+
+        proxy.setMode(FaultInjectingProxy.Mode.DOWN);
+        writer.get(CACHE_NAME, key(4));
+        writer.get(CACHE_NAME, key(4));
+        assertEquals(CacheCircuitBreaker.State.OPEN, circuitBreaker.getState());
+
+        assertNull(writer.get(CACHE_NAME, key(1)));
+        assertNull(writer.get(CACHE_NAME, key(2)));
+        assertArrayEquals(value(3), writer.get(CACHE_NAME, key(3)));
+    }
+
+    @Test
+    public void Should_NotThrow_When_RedisIsDown() {
+        proxy.setMode(FaultInjectingProxy.Mode.DOWN);
+        assertDoesNotThrow(() -> writer.put(CACHE_NAME, key(1), value(1), Duration.ZERO));
+        assertDoesNotThrow(() -> writer.remove(CACHE_NAME, key(1)));
+        assertNull(writer.get(CACHE_NAME, key(1)));
+        assertEquals(-1L, writer.countEntries(CACHE_NAME));
+    }
+
+    @Test
+    public void Should_ReplayMissedEviction_When_CircuitCloses() throws InterruptedException {
+        writer.put(CACHE_NAME, key(1), value(1), Duration.ZERO);
+
+        proxy.setMode(FaultInjectingProxy.Mode.DOWN);
+        writer.get(CACHE_NAME, key(2));
+        writer.get(CACHE_NAME, key(2));
+        assertEquals(CacheCircuitBreaker.State.OPEN, circuitBreaker.getState());
+        writer.remove(CACHE_NAME, key(1));
+        assertNotNull(directGet(key(1)));
+
+        // The client reconnects with a backoff, so the first trial calls may still fail.
+        proxy.setMode(FaultInjectingProxy.Mode.PASS);
+        long deadline = System.nanoTime() + Duration.ofSeconds(10).toNanos();
+        while (circuitBreaker.getState() != CacheCircuitBreaker.State.CLOSED && System.nanoTime() < deadline) {
+            Thread.sleep(OPEN_DURATION.toMillis());
+            writer.get(CACHE_NAME, key(2));
+        }
+
+        assertEquals(CacheCircuitBreaker.State.CLOSED, circuitBreaker.getState());
+        awaitMissing(key(1));
+    }
+
+    @Test
+    public void Should_RemoveOldValue_When_PutWasSkippedDuringOutage() throws InterruptedException {
+        writer.put(CACHE_NAME, key(1), value(1), Duration.ZERO);
+
+        proxy.setMode(FaultInjectingProxy.Mode.DOWN);
+        writer.get(CACHE_NAME, key(2));
+        writer.get(CACHE_NAME, key(2));
+        assertEquals(CacheCircuitBreaker.State.OPEN, circuitBreaker.getState());
+        writer.put(CACHE_NAME, key(1), value(3), Duration.ZERO);
+        assertArrayEquals(value(1), directGet(key(1)));
+
+        proxy.setMode(FaultInjectingProxy.Mode.PASS);
+        long deadline = System.nanoTime() + Duration.ofSeconds(10).toNanos();
+        while (circuitBreaker.getState() != CacheCircuitBreaker.State.CLOSED && System.nanoTime() < deadline) {
+            Thread.sleep(OPEN_DURATION.toMillis());
+            writer.get(CACHE_NAME, key(2));
+        }
+
+        assertEquals(CacheCircuitBreaker.State.CLOSED, circuitBreaker.getState());
+        awaitMissing(key(1));
+    }
+
+    @Test
+    public void Should_ServeHotKeyWithoutCallingRedis_When_KeyIsReadOften() {
+        writer.put(CACHE_NAME, key(1), value(1), Duration.ZERO);
+        for (int i = 0; i < HOT_KEY_THRESHOLD; i++) {
+            writer.get(CACHE_NAME, key(1));
+        }
+
+        proxy.setMode(FaultInjectingProxy.Mode.STALL);
+        long startTime = System.nanoTime();
+        assertArrayEquals(value(1), writer.getAll(CACHE_NAME, List.of(key(1))).get(0));
+        assertArrayEquals(value(1), writer.get(CACHE_NAME, key(1)));
+        assertTrue(System.nanoTime() - startTime < COMMAND_TIMEOUT.toNanos(), "Hot key still waited for Redis");
+        assertEquals(CacheCircuitBreaker.State.CLOSED, circuitBreaker.getState());
+    }
+
+    @Test
+    public void Should_RecordLocalHotKeyReads_When_LocalReadsAreFlushed() {
+        cacheProperties.getPolicy(CACHE_NAME).setEviction(CacheProperties.Eviction.LFU);
+        writer.put(CACHE_NAME, key(1), value(1), Duration.ZERO);
+        for (int i = 0; i < HOT_KEY_THRESHOLD; i++) {
+            writer.get(CACHE_NAME, key(1));
+        }
+        double scoreBeforeLocalReads = accessScore(key(1));
+
+        for (int i = 0; i < 10; i++) {
+            assertArrayEquals(value(1), writer.get(CACHE_NAME, key(1)));
+        }
+        writer.flushLocalReads();
+
+        assertEquals(scoreBeforeLocalReads + 10, accessScore(key(1)));
+    }
+
+    @Test
+    public void Should_ReadHotKeyFromRedis_When_KeyIsWritten() {
+        writer.put(CACHE_NAME, key(1), value(1), Duration.ZERO);
+        for (int i = 0; i < HOT_KEY_THRESHOLD; i++) {
+            writer.get(CACHE_NAME, key(1));
+        }
+
+        writer.put(CACHE_NAME, key(1), value(2), Duration.ZERO);
+        assertArrayEquals(value(2), writer.get(CACHE_NAME, key(1)));
+        writer.remove(CACHE_NAME, key(1));
+        assertNull(writer.get(CACHE_NAME, key(1)));
+    }
+
+    /**
+     * Waits for the replay, which runs in the background once the circuit closes.
+     */
+    private static void awaitMissing(byte[] key) throws InterruptedException {
+        long deadline = System.nanoTime() + Duration.ofSeconds(5).toNanos();
+        while (directGet(key) != null && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        assertNull(directGet(key));
+    }
+
+    private static double accessScore(byte[] key) {
+        try (RedisConnection connection = directConnectionFactory.getConnection()) {
+            Double score = connection.zSetCommands().zScore(
+                    ("__index:" + CACHE_NAME + ":access").getBytes(StandardCharsets.UTF_8), key);
+            return score == null ? 0 : score;
+        }
+    }
+
+    private static byte[] directGet(byte[] key) {
+        try (RedisConnection connection = directConnectionFactory.getConnection()) {
+            return connection.stringCommands().get(key);
+        }
+    }
+
+    private static byte[] key(int id) {
+        return (CACHE_NAME + "::" + id).getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static byte[] value(int id) {
+        return ("user-" + id).getBytes(StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,127 @@
+package com.example.demo.caches;
+
+import com.example.demo.models.User;
+import com.example.demo.services.util.UserDataGenerator;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.redis.cache.RedisCacheConfiguration;
+import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer;
+import org.springframework.data.redis.serializer.RedisSerializationContext;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class UserListSegmentCodecTest {
+
+    private static final Logger LOG = LoggerFactory.getLogger(UserListSegmentCodecTest.class);
+    private static final int SEGMENT_SIZE = 1000;
+
+    private final RedisCacheCodec redisCacheCodec = new RedisCacheCodec(RedisCacheConfiguration.defaultCacheConfig()
+            .serializeValuesWith(RedisSerializationContext.SerializationPair.fromSerializer(
+                    new CompressingRedisSerializer(new GenericJackson2JsonRedisSerializer(), 1024, 1,
+                            new SimpleMeterRegistry()))));
+
+    private final UserListSegmentCodec encoder = new UserListSegmentCodec(redisCacheCodec, 1, 1);
+
+    @Test
+    public void Should_ReadCountFromHeader_When_SegmentIsEncoded() {
+        List<User> users = new UserDataGenerator().users(1, 250);
+        byte[] segment = encoder.encode(users);
+        assertEquals(250, encoder.count(segment));
+        assertEquals(users, encoder.decode(segment));
+    }
+
+    @Test
+    public void Should_TreatSegmentAsUnreadable_When_SegmentHasNoHeader() {
+        byte[] segment = redisCacheCodec.serializeValue(new ArrayList<>(new UserDataGenerator().users(1, 10)));
+        assertEquals(-1, encoder.count(segment));
+        assertNull(encoder.decode(segment));
+        assertEquals(-1, encoder.count(null));
+    }
+
+    @Test
+    public void Should_DecodeSegmentsInOrder_When_DecodedInParallel() {
+        List<List<User>> segments = createSegments(20_000);
+        UserListSegmentCodec decoder = new UserListSegmentCodec(redisCacheCodec, 4, 2);
+        try {
+            assertEquals(segments, decoder.decodeAll(encode(segments)));
+        } finally {
+            decoder.close();
+        }
+    }
+
+    @Test
+    public void Should_ReturnNullForSegment_When_SegmentIsMissing() {
+        List<List<User>> segments = createSegments(5_000);
+        List<byte[]> values = new ArrayList<>(encode(segments));
+        values.set(2, null);
+        UserListSegmentCodec decoder = new UserListSegmentCodec(redisCacheCodec, 4, 2);
+        try {
+            List<List<User>> decoded = decoder.decodeAll(values);
+            assertNull(decoded.get(2));
+            assertEquals(segments.get(3), decoded.get(3));
+        } finally {
+            decoder.close();
+        }
+    }
+
+    @Test
+    public void Should_DecodeOnCallingThread_When_ThereAreFewerSegmentsThanThreshold() {
+        List<List<User>> segments = createSegments(2_000);
+        UserListSegmentCodec decoder = new UserListSegmentCodec(redisCacheCodec, 4, 10);
+        try {
+            assertEquals(segments, decoder.decodeAll(encode(segments)));
+        } finally {
+            decoder.close();
+        }
+    }
+
+    @Test
+    public void testParallelDecodePerformance() {
+        LOG.info("Parallel decode performance test is started.");
+
+        int numberOfCycles = 10;
+        int cores = Runtime.getRuntime().availableProcessors();
+        for (long numberOfUsers : new long[]{10_000, 100_000, UserDataGenerator.scale(500_000)}) {
+            List<byte[]> values = encode(createSegments(numberOfUsers));
+            for (int parallelism : Arrays.stream(new int[]{1, 2, 4, cores}).distinct().sorted().toArray()) {
+                UserListSegmentCodec decoder = new UserListSegmentCodec(redisCacheCodec, parallelism, 2);
+                try {
+                    // Warm up before measuring
+                    decoder.decodeAll(values);
+                    long startTime = System.nanoTime();
+                    for (int i = 0; i < numberOfCycles; i++) {
+                        assertEquals(values.size(), decoder.decodeAll(values).size());
+                    }
+                    long elapsedTimeInMillis = (System.nanoTime() - startTime) / 1_000_000;
+                    LOG.info("Decoding {} users with parallelism {}: {} milliseconds per hit.",
+                            numberOfUsers, parallelism, elapsedTimeInMillis / numberOfCycles);
+                } finally {
+                    decoder.close();
+                }
+            }
+        }
+
+        LOG.info("Parallel decode performance test is finished.");
+    }
+
+    private List<byte[]> encode(List<List<User>> segments) {
+        return segments.stream()
+                .map(encoder::encode)
+                .toList();
+    }
+
+    private static List<List<User>> createSegments(long numberOfUsers) {
+        UserDataGenerator generator = new UserDataGenerator();
+        List<List<User>> segments = new ArrayList<>();
+        for (long firstId = 1; firstId <= numberOfUsers; firstId += SEGMENT_SIZE) {
+            segments.add(new ArrayList<>(generator.users(firstId, (int) Math.min(SEGMENT_SIZE, numberOfUsers - firstId + 1))));
+        }
+        return segments;
+    }
+}
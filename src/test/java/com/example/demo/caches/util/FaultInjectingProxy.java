@@ -0,0 +1,123 @@
+package com.example.demo.caches.util;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * TCP proxy in front of a real Redis that can stall or cut the traffic, so tests can see how the cache behaves
+ * when Redis becomes slow or unreachable.
+ */
+public class FaultInjectingProxy implements AutoCloseable {
+
+    public enum Mode {
+        /**
+         * Forwards all traffic.
+         */
+        PASS,
+        /**
+         * Keeps connections open but forwards nothing, like a Redis stuck in a long command.
+         */
+        STALL,
+        /**
+         * Closes all connections and every new one, like a Redis that is down.
+         */
+        DOWN
+    }
+
+    private final String upstreamHost;
+    private final int upstreamPort;
+    private final ServerSocket serverSocket;
+    private final Set<Socket> sockets = ConcurrentHashMap.newKeySet();
+
+    private volatile Mode mode = Mode.PASS;
+
+    public FaultInjectingProxy(String upstreamHost, int upstreamPort) throws IOException {
+        this.upstreamHost = upstreamHost;
+        this.upstreamPort = upstreamPort;
+        this.serverSocket = new ServerSocket(0, 50, InetAddress.getLoopbackAddress());
+        Thread acceptor = new Thread(this::acceptConnections, "fault-injecting-proxy");
+        acceptor.setDaemon(true);
+        acceptor.start();
+    }
+
+    public String getHost() {
+        return serverSocket.getInetAddress().getHostAddress();
+    }
+
+    public int getPort() {
+        return serverSocket.getLocalPort();
+    }
+
+    public void setMode(Mode mode) {
+        this.mode = mode;
+        if (mode == Mode.DOWN) {
+            sockets.forEach(FaultInjectingProxy::closeQuietly);
+            sockets.clear();
+        }
+    }
+
+    @Override
+    public void close() {
+        closeQuietly(serverSocket);
+        sockets.forEach(FaultInjectingProxy::closeQuietly);
+    }
+
+    private void acceptConnections() {
+        while (!serverSocket.isClosed()) {
+            try {
+                Socket client = serverSocket.accept();
+                if (mode == Mode.DOWN) {
+                    closeQuietly(client);
+                    continue;
+                }
+                Socket upstream = new Socket(upstreamHost, upstreamPort);
+                sockets.add(client);
+                sockets.add(upstream);
+                pump(client, upstream);
+                pump(upstream, client);
+            } catch (IOException e) {
+                // The server socket was closed or the upstream refused the connection.
+            }
+        }
+    }
+
+    private void pump(Socket from, Socket to) {
+        Thread thread = new Thread(() -> {
+            byte[] buffer = new byte[8192];
+            try (InputStream in = from.getInputStream(); OutputStream out = to.getOutputStream()) {
+                int read;
+                while ((read = in.read(buffer)) >= 0) {
+                    while (mode == Mode.STALL) {
+                        Thread.sleep(5);
+                    }
+                    if (mode == Mode.DOWN) {
+                        break;
+                    }
+                    out.write(buffer, 0, read);
+                    out.flush();
+                }
+            } catch (IOException | InterruptedException e) {
+                // The connection was cut.
+            } finally {
+                closeQuietly(from);
+                closeQuietly(to);
+            }
+        }, "fault-injecting-proxy-pump");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    private static void closeQuietly(AutoCloseable closeable) {
+        try {
+            closeable.close();
+        } catch (Exception e) {
+            // Nothing left to clean up.
+        }
+    }
+}
@@ -0,0 +1,133 @@
+package com.example.demo.controllers;
+
+import com.example.demo.repositories.UserRepository;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+
+import javax.sql.DataSource;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static com.example.demo.services.util.UserServiceTestUtil.USER_TO_SAVE_3;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Renders the user list concurrently against a small connection pool, once with open-in-view enabled and once without,
+ * and logs how many request threads had to wait for a connection.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "spring.datasource.url=jdbc:h2:mem:open_in_view;DB_CLOSE_DELAY=-1",
+        "spring.datasource.driver-class-name=org.h2.Driver",
+        "spring.datasource.hikari.maximum-pool-size=4",
+        "spring.cache.type=none"
+})
+@ActiveProfiles("test")
+public class UserControllerOpenInViewPerformanceTest {
+
+    private static final Logger LOG = LoggerFactory.getLogger(UserControllerOpenInViewPerformanceTest.class);
+
+    @Nested
+    @TestPropertySource(properties = "spring.jpa.open-in-view=true")
+    class OpenInViewEnabled extends Scenario {
+
+        @Test
+        public void testUsersPagePoolSaturation() throws InterruptedException {
+            run("open-in-view enabled");
+        }
+    }
+
+    @Nested
+    @TestPropertySource(properties = "spring.jpa.open-in-view=false")
+    class OpenInViewDisabled extends Scenario {
+
+        @Test
+        public void testUsersPagePoolSaturation() throws InterruptedException {
+            run("open-in-view disabled");
+        }
+    }
+
+    abstract static class Scenario {
+
+        @Autowired
+        private UserRepository userRepository;
+
+        @Autowired
+        private DataSource dataSource;
+
+        @LocalServerPort
+        private int port;
+
+        @AfterEach
+        public void resetDatabase() {
+            userRepository.deleteAll();
+        }
+
+        void run(String name) throws InterruptedException {
+            int numberOfUsers = 500;
+            int numberOfThreads = 32;
+            int numberOfRequestsPerThread = 50;
+
+            for (int i = 0; i < numberOfUsers; i++) {
+                userRepository.save(USER_TO_SAVE_3.clone());
+            }
+
+            HikariPoolMXBean pool = ((HikariDataSource) dataSource).getHikariPoolMXBean();
+            HttpClient client = HttpClient.newHttpClient();
+            HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/users")).build();
+            AtomicInteger failedRequests = new AtomicInteger();
+            AtomicInteger maxThreadsAwaitingConnection = new AtomicInteger();
+            CountDownLatch latch = new CountDownLatch(numberOfThreads);
+
+            ExecutorService executor = Executors.newFixedThreadPool(numberOfThreads + 1);
+            executor.execute(() -> {
+                while (latch.getCount() > 0) {
+                    maxThreadsAwaitingConnection.accumulateAndGet(pool.getThreadsAwaitingConnection(), Math::max);
+                    Thread.onSpinWait();
+                }
+            });
+            long startTime = System.nanoTime();
+            for (int i = 0; i < numberOfThreads; i++) {
+                executor.execute(() -> {
+                    try {
+                        for (int j = 0; j < numberOfRequestsPerThread; j++) {
+                            if (client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode() != 200) {
+                                failedRequests.incrementAndGet();
+                            }
+                        }
+                    } catch (Exception e) {
+                        failedRequests.incrementAndGet();
+                    } finally {
+                        latch.countDown();
+                    }
+                });
+            }
+            latch.await();
+            long elapsedTimeInMillis = (System.nanoTime() - startTime) / 1_000_000;
+            executor.shutdown();
+            assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+
+            int numberOfRequests = numberOfThreads * numberOfRequestsPerThread;
+            LOG.info("{}: {} requests in {} milliseconds ({} requests per second), at most {} threads waited for a connection.",
+                    name, numberOfRequests, elapsedTimeInMillis, numberOfRequests * 1000L / Math.max(elapsedTimeInMillis, 1),
+                    maxThreadsAwaitingConnection.get());
+            assertEquals(0, failedRequests.get());
+        }
+    }
+}
@@ -0,0 +1,92 @@
+package com.example.demo.jfr;
+
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jdk.jfr.Event;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class JfrMetricsConsumerTest {
+
+    private static final Duration TIMEOUT = Duration.ofSeconds(15);
+
+    private SimpleMeterRegistry meterRegistry;
+    private JfrMetricsConsumer consumer;
+
+    @BeforeEach
+    public void startConsumer() {
+        meterRegistry = new SimpleMeterRegistry();
+        consumer = new JfrMetricsConsumer(meterRegistry, Duration.ZERO, Duration.ZERO);
+        consumer.start();
+    }
+
+    @AfterEach
+    public void stopConsumer() {
+        consumer.close();
+    }
+
+    @Test
+    public void Should_CountCacheOperations_When_CacheEventsAreCommitted() throws InterruptedException {
+        byte[] key = "users::1".getBytes(StandardCharsets.UTF_8);
+        awaitEnabled(CacheEvent::new);
+        new CacheEvent().commitRead("users", key, new byte[100]);
+        new CacheEvent().commitRead("users", key, null);
+        new CacheEvent().commit("users", CacheEvent.EVICT, key, null);
+
+        // Events are consumed in order, so once the last one shows up the others have been counted.
+        await(() -> meterRegistry.find("jfr.cache.payload.size").tag("operation", "evict").summary());
+        assertEquals(1, meterRegistry.get("jfr.cache.operations").tag("operation", "hit").counter().count());
+        assertEquals(1, meterRegistry.get("jfr.cache.operations").tag("operation", "miss").counter().count());
+        assertEquals(100, meterRegistry.get("jfr.cache.payload.size").tag("operation", "hit").summary().totalAmount());
+    }
+
+    @Test
+    public void Should_TimeUserQueries_When_QueryEventsAreCommitted() throws InterruptedException {
+        awaitEnabled(UserQueryEvent::new);
+        UserQueryEvent event = new UserQueryEvent();
+        event.begin();
+        Thread.sleep(5);
+        event.commit("UserServiceRedis", "listUsers", 42, false);
+
+        await(() -> meterRegistry.find("jfr.user.query.rows").summary());
+        Timer queries = meterRegistry.get("jfr.user.queries")
+                .tag("service", "UserServiceRedis")
+                .tag("query", "listUsers")
+                .timer();
+        assertEquals(1, queries.count());
+        assertTrue(queries.totalTime(TimeUnit.MILLISECONDS) >= 5);
+        assertEquals(42, meterRegistry.get("jfr.user.query.rows").summary().totalAmount());
+    }
+
+    @Test
+    public void Should_NotEmitEvents_When_NoRecordingEnablesThem() {
+        consumer.close();
+        assertFalse(new CacheEvent().isEnabled());
+    }
+
+    private static void awaitEnabled(Supplier<Event> events) throws InterruptedException {
+        long deadline = System.nanoTime() + TIMEOUT.toNanos();
+        while (!events.get().isEnabled() && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+    }
+
+    private static <T> T await(Supplier<T> meter) throws InterruptedException {
+        long deadline = System.nanoTime() + TIMEOUT.toNanos();
+        T found = meter.get();
+        while (found == null && System.nanoTime() < deadline) {
+            Thread.sleep(50);
+            found = meter.get();
+        }
+        assertNotNull(found, "Meter was not recorded in time");
+        return found;
+    }
+}
@@ -0,0 +1,108 @@
+package com.example.demo.models;
+
+import com.example.demo.services.util.UserDataGenerator;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer;
+
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class NameInternerTest {
+
+    private static final Logger LOG = LoggerFactory.getLogger(NameInternerTest.class);
+
+    @Test
+    public void Should_ReturnSameInstance_When_EqualNamesAreInterned() {
+        NameInterner interner = new NameInterner(100);
+        String first = interner.intern(new String("Alice"));
+        String second = interner.intern(new String("Alice"));
+        assertSame(first, second);
+        assertEquals(1, interner.size());
+    }
+
+    @Test
+    public void Should_NotGrowBeyondMaxEntries_When_PoolIsFull() {
+        NameInterner interner = new NameInterner(2);
+        interner.intern("Alice");
+        interner.intern("Bob");
+        String terry = new String("Terry");
+        assertSame(terry, interner.intern(terry));
+        assertEquals(2, interner.size());
+    }
+
+    @Test
+    public void Should_NotPoolValue_When_ValueIsNullOrTooLong() {
+        NameInterner interner = new NameInterner(100);
+        assertNull(interner.intern(null));
+        interner.intern("x".repeat(NameInterner.MAX_LENGTH + 1));
+        assertEquals(0, interner.size());
+    }
+
+    @Test
+    public void Should_CountHitsAndMisses_When_NamesAreInterned() {
+        NameInterner interner = new NameInterner(100);
+        MeterRegistry meterRegistry = new SimpleMeterRegistry();
+        interner.bindTo(meterRegistry);
+        interner.intern("Alice");
+        interner.intern("Alice");
+        interner.intern("Bob");
+        assertEquals(1, meterRegistry.get("users.names.intern.requests").tag("result", "hit").functionCounter().count());
+        assertEquals(2, meterRegistry.get("users.names.intern.requests").tag("result", "miss").functionCounter().count());
+        assertEquals(2, meterRegistry.get("users.names.intern.pool.size").gauge().value());
+    }
+
+    @Test
+    public void Should_ShareNameInstances_When_CachedUsersAreDeserialized() {
+        GenericJackson2JsonRedisSerializer serializer = new GenericJackson2JsonRedisSerializer();
+        List<User> users = new ArrayList<>(List.of(
+                new User(1L, new String("Alice"), new String("Smith"), User.Gender.FEMALE, null),
+                new User(2L, new String("Alice"), new String("Smith"), User.Gender.FEMALE, null)));
+
+        List<?> decodedUsers = (List<?>) serializer.deserialize(serializer.serialize(users));
+
+        User first = (User) Objects.requireNonNull(decodedUsers).get(0);
+        User second = (User) decodedUsers.get(1);
+        assertEquals(users, decodedUsers);
+        assertSame(first.getFirstName(), second.getFirstName());
+        assertSame(first.getLastName(), second.getLastName());
+    }
+
+    @Test
+    public void testNameInterningFootprint() {
+        int numberOfUsers = (int) UserDataGenerator.scale(200_000);
+        GenericJackson2JsonRedisSerializer serializer = new GenericJackson2JsonRedisSerializer();
+        List<User> users = new ArrayList<>(new UserDataGenerator().users(1, numberOfUsers));
+        // Names copied per user, the way they arrive without interning
+        users.forEach(user -> {
+            user.setFirstName(new String(user.getFirstName()));
+            user.setLastName(new String(user.getLastName()));
+        });
+
+        List<?> decodedUsers = (List<?>) serializer.deserialize(serializer.serialize(users));
+
+        long copiedBytes = nameBytes(users);
+        long internedBytes = nameBytes(Objects.requireNonNull(decodedUsers));
+        LOG.info("Name strings of {} users: {} KB as copies, {} KB interned.",
+                numberOfUsers, copiedBytes / 1024, internedBytes / 1024);
+        assertTrue(internedBytes * 100 < copiedBytes);
+    }
+
+    /**
+     * Estimated heap held by distinct name instances: object header and fields, plus the Latin-1 byte array.
+     */
+    private static long nameBytes(List<?> users) {
+        Set<String> instances = Collections.newSetFromMap(new IdentityHashMap<>());
+        for (Object user : users) {
+            instances.add(((User) user).getFirstName());
+            instances.add(((User) user).getLastName());
+        }
+        return instances.stream()
+                .mapToLong(name -> 24 + 16 + ((name.length() + 7) / 8) * 8L)
+                .sum();
+    }
+}
@@ -0,0 +1,35 @@
+package com.example.demo.models;
+
+import com.example.demo.util.AllocationBudget;
+import org.junit.jupiter.api.Test;
+
+import java.util.Objects;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class UserAllocationTest {
+
+    private static final int WARMUPS = 200_000;
+    private static final int ITERATIONS = 100_000;
+
+    private final User user = new User(1L, "Alice", "Smith", User.Gender.FEMALE, "alice.smith@example.com");
+    private final User sameUser = user.clone();
+    private int sink;
+
+    @Test
+    public void Should_StayWithinAllocationBudget_When_HashCodeIsComputed() {
+        AllocationBudget.assertWithinBudget("User.hashCode", WARMUPS, ITERATIONS, () -> sink += user.hashCode());
+    }
+
+    @Test
+    public void Should_StayWithinAllocationBudget_When_UsersAreCompared() {
+        AllocationBudget.assertWithinBudget("User.equals", WARMUPS, ITERATIONS,
+                () -> sink += user.equals(sameUser) ? 1 : 0);
+    }
+
+    @Test
+    public void Should_KeepObjectsHashValue_When_HashCodeIsComputed() {
+        assertEquals(Objects.hash(1L, "Alice", "Smith", User.Gender.FEMALE), user.hashCode());
+        assertEquals(Objects.hash(null, null, null, null), new User().hashCode());
+    }
+}
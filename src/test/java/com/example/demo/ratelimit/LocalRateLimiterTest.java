@@ -0,0 +1,45 @@
+package com.example.demo.ratelimit;
+
+import com.example.demo.configs.RateLimitProperties;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class LocalRateLimiterTest {
+
+    private final LocalRateLimiter rateLimiter = new LocalRateLimiter();
+
+    @Test
+    public void Should_AdmitBurstUpToCapacity_When_BucketIsFull() {
+        RateLimitProperties.Limit limit = limit(3, 1);
+        for (int i = 0; i < 3; i++) {
+            assertEquals(0L, rateLimiter.tryAcquire("client", limit));
+        }
+        long waitMillis = rateLimiter.tryAcquire("client", limit);
+        assertTrue(waitMillis > 0 && waitMillis <= 1000, "Unexpected wait: " + waitMillis);
+    }
+
+    @Test
+    public void Should_KeepSeparateBuckets_When_KeysDiffer() {
+        RateLimitProperties.Limit limit = limit(1, 1);
+        assertEquals(0L, rateLimiter.tryAcquire("client-1", limit));
+        assertTrue(rateLimiter.tryAcquire("client-1", limit) > 0);
+        assertEquals(0L, rateLimiter.tryAcquire("client-2", limit));
+    }
+
+    @Test
+    public void Should_AdmitAgain_When_TokenIsRefilled() throws InterruptedException {
+        RateLimitProperties.Limit limit = limit(1, 50);
+        assertEquals(0L, rateLimiter.tryAcquire("client", limit));
+        assertTrue(rateLimiter.tryAcquire("client", limit) > 0);
+        Thread.sleep(40);
+        assertEquals(0L, rateLimiter.tryAcquire("client", limit));
+    }
+
+    static RateLimitProperties.Limit limit(long capacity, double refillPerSecond) {
+        RateLimitProperties.Limit limit = new RateLimitProperties.Limit();
+        limit.setCapacity(capacity);
+        limit.setRefillPerSecond(refillPerSecond);
+        return limit;
+    }
+}
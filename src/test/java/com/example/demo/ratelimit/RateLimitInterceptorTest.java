@@ -0,0 +1,59 @@
+package com.example.demo.ratelimit;
+
+import com.example.demo.configs.RateLimitProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import static com.example.demo.ratelimit.LocalRateLimiterTest.limit;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class RateLimitInterceptorTest {
+
+    @Test
+    public void Should_RejectClient_When_ItsBucketIsEmpty() {
+        RateLimitInterceptor interceptor = interceptor(limit(1, 1));
+
+        assertTrue(interceptor.preHandle(request("10.0.0.1"), new MockHttpServletResponse(), null));
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        assertFalse(interceptor.preHandle(request("10.0.0.1"), response, null));
+        assertEquals(HttpStatus.TOO_MANY_REQUESTS.value(), response.getStatus());
+        assertNotNull(response.getHeader(HttpHeaders.RETRY_AFTER));
+        assertTrue(interceptor.preHandle(request("10.0.0.2"), new MockHttpServletResponse(), null));
+    }
+
+    @Test
+    public void Should_RejectNewClients_When_EndpointBucketIsEmpty() {
+        RateLimitProperties.Limit limit = limit(10, 1);
+        limit.setTotalCapacity(3);
+        limit.setTotalRefillPerSecond(1);
+        RateLimitInterceptor interceptor = interceptor(limit);
+
+        for (int i = 1; i <= 3; i++) {
+            assertTrue(interceptor.preHandle(request("10.0.0." + i), new MockHttpServletResponse(), null));
+        }
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        assertFalse(interceptor.preHandle(request("10.0.0.4"), response, null));
+        assertEquals(HttpStatus.TOO_MANY_REQUESTS.value(), response.getStatus());
+    }
+
+    @Test
+    public void Should_RejectLimit_When_TotalCapacityHasNoRefillRate() {
+        RateLimitProperties.Limit limit = limit(10, 1);
+        limit.setTotalCapacity(3);
+        assertThrows(IllegalArgumentException.class, () -> interceptor(limit));
+    }
+
+    private static RateLimitInterceptor interceptor(RateLimitProperties.Limit limit) {
+        return new RateLimitInterceptor("create-user", limit, new LocalRateLimiter(), null, new SimpleMeterRegistry());
+    }
+
+    private static MockHttpServletRequest request(String remoteAddress) {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/user/create");
+        request.setRemoteAddr(remoteAddress);
+        return request;
+    }
+}
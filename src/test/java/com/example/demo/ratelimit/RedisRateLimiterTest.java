@@ -0,0 +1,133 @@
+package com.example.demo.ratelimit;
+
+import com.example.demo.caches.CacheCircuitBreaker;
+import com.example.demo.configs.RateLimitProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.connection.RedisStandaloneConfiguration;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.testcontainers.containers.GenericContainer;
+import org.testcontainers.utility.DockerImageName;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static com.example.demo.ratelimit.LocalRateLimiterTest.limit;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class RedisRateLimiterTest {
+
+    private static final int REDIS_PORT = 6379;
+
+    private static GenericContainer<?> redisContainer;
+    private static LettuceConnectionFactory connectionFactory;
+
+    @BeforeAll
+    @SuppressWarnings("resource")
+    public static void setUpContainers() {
+        redisContainer = new GenericContainer<>(DockerImageName.parse("redis:latest")).withExposedPorts(REDIS_PORT);
+        redisContainer.start();
+        connectionFactory = new LettuceConnectionFactory(
+                new RedisStandaloneConfiguration(redisContainer.getHost(), redisContainer.getMappedPort(REDIS_PORT)));
+        connectionFactory.afterPropertiesSet();
+    }
+
+    @AfterAll
+    public static void tearDownContainers() {
+        connectionFactory.destroy();
+        redisContainer.stop();
+    }
+
+    @AfterEach
+    public void cleanupRedis() {
+        try (RedisConnection connection = connectionFactory.getConnection()) {
+            connection.serverCommands().flushAll();
+        }
+    }
+
+    @Test
+    public void Should_ShareBucket_When_NodesUseSameRedis() {
+        RateLimitProperties.Limit limit = limit(2, 1);
+        RedisRateLimiter node1 = new RedisRateLimiter(connectionFactory, new LocalRateLimiter(), circuitBreaker(5));
+        RedisRateLimiter node2 = new RedisRateLimiter(connectionFactory, new LocalRateLimiter(), circuitBreaker(5));
+
+        assertEquals(0L, node1.tryAcquire("client", limit));
+        assertEquals(0L, node2.tryAcquire("client", limit));
+        long waitMillis = node1.tryAcquire("client", limit);
+        assertTrue(waitMillis > 0 && waitMillis <= 1000, "Unexpected wait: " + waitMillis);
+        assertTrue(node2.tryAcquire("client", limit) > 0);
+    }
+
+    @Test
+    public void Should_FallBackToLocalBucket_When_RedisIsUnavailable() {
+        LettuceConnectionFactory unavailable = new LettuceConnectionFactory(new RedisStandaloneConfiguration("localhost", 1));
+        unavailable.afterPropertiesSet();
+        try {
+            RedisRateLimiter rateLimiter = new RedisRateLimiter(unavailable, new LocalRateLimiter(), circuitBreaker(5));
+            RateLimitProperties.Limit limit = limit(1, 1);
+            assertEquals(0L, rateLimiter.tryAcquire("client", limit));
+            assertTrue(rateLimiter.tryAcquire("client", limit) > 0);
+        } finally {
+            unavailable.destroy();
+        }
+    }
+
+    @Test
+    public void Should_SkipRedis_When_CircuitIsOpen() {
+        LettuceConnectionFactory unavailable = new LettuceConnectionFactory(new RedisStandaloneConfiguration("localhost", 1));
+        unavailable.afterPropertiesSet();
+        try {
+            AtomicInteger connections = new AtomicInteger();
+            RedisConnectionFactory countingFactory = (RedisConnectionFactory) Proxy.newProxyInstance(
+                    getClass().getClassLoader(), new Class<?>[]{RedisConnectionFactory.class}, (proxy, method, args) -> {
+                        if (method.getName().equals("getConnection")) {
+                            connections.incrementAndGet();
+                        }
+                        try {
+                            return method.invoke(unavailable, args);
+                        } catch (InvocationTargetException e) {
+                            throw e.getCause();
+                        }
+                    });
+            CacheCircuitBreaker circuitBreaker = circuitBreaker(1);
+            RedisRateLimiter rateLimiter = new RedisRateLimiter(countingFactory, new LocalRateLimiter(), circuitBreaker);
+            RateLimitProperties.Limit limit = limit(1, 1);
+            assertEquals(0L, rateLimiter.tryAcquire("client", limit));
+            assertEquals(CacheCircuitBreaker.State.OPEN, circuitBreaker.getState());
+            int connectionsBeforeOpenCircuit = connections.get();
+
+            assertTrue(rateLimiter.tryAcquire("client", limit) > 0);
+            assertEquals(connectionsBeforeOpenCircuit, connections.get());
+        } finally {
+            unavailable.destroy();
+        }
+    }
+
+    @Test
+    public void Should_LoadScriptAgain_When_ServerHasFlushedIt() {
+        RedisRateLimiter rateLimiter = new RedisRateLimiter(connectionFactory, new LocalRateLimiter(), circuitBreaker(1));
+        RateLimitProperties.Limit limit = limit(1, 1);
+        try (RedisConnection connection = connectionFactory.getConnection()) {
+            connection.scriptingCommands().scriptFlush();
+        }
+
+        assertEquals(0L, rateLimiter.tryAcquire("client", limit));
+        assertTrue(rateLimiter.tryAcquire("client", limit) > 0);
+        try (RedisConnection connection = connectionFactory.getConnection()) {
+            assertTrue(connection.keyCommands().exists("rate-limit::client".getBytes(StandardCharsets.UTF_8)));
+        }
+    }
+
+    private static CacheCircuitBreaker circuitBreaker(int failureThreshold) {
+        return new CacheCircuitBreaker("Redis rate limiter", "rate.limit.redis", failureThreshold, Duration.ofMinutes(1),
+                new SimpleMeterRegistry());
+    }
+}
@@ -0,0 +1,170 @@
+package com.example.demo.services;
+
+import com.example.demo.models.User;
+import com.example.demo.repositories.UserRepository;
+import com.example.demo.services.impl.UserBatchLoader;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.*;
+
+import static com.example.demo.services.util.UserServiceTestUtil.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest
+@ActiveProfiles("test")
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+public class UserBatchLoaderTest {
+
+    private static final int NUMBER_OF_READERS = 16;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private UserBatchLoader userBatchLoader;
+
+    @AfterEach
+    public void resetDatabase() throws InterruptedException {
+        if (userBatchLoader != null) {
+            userBatchLoader.stop();
+        }
+        userRepository.deleteAll();
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> entityManager.getEntityManager()
+                .createNativeQuery("ALTER TABLE users ALTER COLUMN id RESTART WITH 1")
+                .executeUpdate());
+    }
+
+    @Test
+    public void Should_FetchConcurrentLookupsTogether_When_BatchLoaderIsEnabled() throws Exception {
+        List<User> users = saveUsers(NUMBER_OF_READERS);
+        startBatchLoader(true);
+        List<Future<User>> results = loadConcurrently(users.stream()
+                .map(User::getId)
+                .toList());
+
+        for (int i = 0; i < NUMBER_OF_READERS; i++) {
+            assertEquals(users.get(i), results.get(i).get());
+        }
+        assertTrue(meterRegistry.get("users.batch.loader.batch.size").summary().max() > 1);
+        assertTrue(meterRegistry.get("users.batch.loader.callers").summary().count() < NUMBER_OF_READERS);
+    }
+
+    @Test
+    public void Should_ReturnOnlyOwnUsersToEachCaller_When_LookupsShareBatch() throws Exception {
+        List<User> users = saveUsers(3);
+        startBatchLoader(true);
+        Long id1 = users.get(0).getId();
+        Long id2 = users.get(1).getId();
+        Long id3 = users.get(2).getId();
+
+        CompletableFuture<Map<Long, User>> first = userBatchLoader.loadAsync(List.of(id1, id2));
+        CompletableFuture<Map<Long, User>> second = userBatchLoader.loadAsync(List.of(id2, id3, 0L));
+
+        assertEquals(Map.of(id1, users.get(0), id2, users.get(1)), first.get(10, TimeUnit.SECONDS));
+        assertEquals(Map.of(id2, users.get(1), id3, users.get(2)), second.get(10, TimeUnit.SECONDS));
+        assertEquals(1, meterRegistry.get("users.batch.loader.callers").summary().count());
+        assertEquals(4, meterRegistry.get("users.batch.loader.batch.size").summary().max());
+    }
+
+    @Test
+    public void Should_GiveEachCallerOwnCopy_When_LookupsShareId() throws Exception {
+        List<User> users = saveUsers(1);
+        startBatchLoader(true);
+        Long id = users.get(0).getId();
+
+        CompletableFuture<Map<Long, User>> first = userBatchLoader.loadAsync(List.of(id));
+        CompletableFuture<Map<Long, User>> second = userBatchLoader.loadAsync(List.of(id));
+
+        User firstUser = first.get(10, TimeUnit.SECONDS).get(id);
+        User secondUser = second.get(10, TimeUnit.SECONDS).get(id);
+        assertEquals(users.get(0), firstUser);
+        assertEquals(users.get(0), secondUser);
+        assertNotSame(firstUser, secondUser);
+    }
+
+    @Test
+    public void Should_ReturnNull_When_UserDoesNotExist() {
+        startBatchLoader(true);
+        assertNull(userBatchLoader.load(1L));
+        assertTrue(userBatchLoader.loadAll(Set.of(1L, 2L)).isEmpty());
+    }
+
+    @Test
+    public void Should_AnswerLookup_When_BatchLoaderHasStopped() throws Exception {
+        List<User> users = saveUsers(1);
+        startBatchLoader(true);
+        userBatchLoader.stop();
+        assertEquals(users.get(0), userBatchLoader.load(users.get(0).getId()));
+    }
+
+    @Test
+    public void Should_FetchEachLookupOnItsOwn_When_BatchLoaderIsDisabled() throws Exception {
+        List<User> users = saveUsers(NUMBER_OF_READERS);
+        startBatchLoader(false);
+        List<Future<User>> results = loadConcurrently(users.stream()
+                .map(User::getId)
+                .toList());
+
+        for (int i = 0; i < NUMBER_OF_READERS; i++) {
+            assertEquals(users.get(i), results.get(i).get());
+        }
+        assertEquals(0, meterRegistry.get("users.batch.loader.batch.size").summary().count());
+    }
+
+    private void startBatchLoader(boolean enabled) {
+        userBatchLoader = new UserBatchLoader(userRepository, null, meterRegistry,
+                enabled, 1000, Duration.ofMillis(200), 1000, 4, Duration.ofSeconds(10));
+        userBatchLoader.start();
+    }
+
+    private List<User> saveUsers(int count) {
+        List<User> users = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            users.add(USER_TO_SAVE_1.clone());
+        }
+        return userRepository.saveAll(users);
+    }
+
+    private List<Future<User>> loadConcurrently(List<Long> ids) throws InterruptedException {
+        ExecutorService executor = Executors.newFixedThreadPool(ids.size());
+        try {
+            CountDownLatch start = new CountDownLatch(1);
+            List<Future<User>> results = new ArrayList<>();
+            for (Long id : ids) {
+                results.add(executor.submit(() -> {
+                    start.await();
+                    return userBatchLoader.load(id);
+                }));
+            }
+            start.countDown();
+            executor.shutdown();
+            assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+            return results;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
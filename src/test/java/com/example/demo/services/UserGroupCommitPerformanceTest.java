@@ -0,0 +1,93 @@
+package com.example.demo.services;
+
+import com.example.demo.repositories.UserRepository;
+import com.example.demo.services.impl.UserGroupCommitter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static com.example.demo.services.util.UserServiceTestUtil.USER_TO_SAVE_1;
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest
+@ActiveProfiles("test")
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+public class UserGroupCommitPerformanceTest {
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private static final Logger LOG = LoggerFactory.getLogger(UserGroupCommitPerformanceTest.class);
+
+    @AfterEach
+    public void resetDatabase() {
+        userRepository.deleteAll();
+    }
+
+    /**
+     * Compares per-write commits with group commits under the same concurrent load.
+     * The in-memory database does not sync to disk, so against MySQL the difference is larger than logged here.
+     */
+    @Test
+    public void testGroupCommitPerformance() throws InterruptedException {
+        LOG.info("Group commit performance test is started.");
+
+        int numberOfThreads = 32;
+        int numberOfCycles = 200;
+
+        measure("per-write commits", false, Duration.ZERO, numberOfThreads, numberOfCycles);
+        measure("group commits without wait", true, Duration.ZERO, numberOfThreads, numberOfCycles);
+        measure("group commits with 2 ms wait", true, Duration.ofMillis(2), numberOfThreads, numberOfCycles);
+
+        assertEquals(3L * numberOfThreads * numberOfCycles, userRepository.count());
+
+        LOG.info("Group commit performance test is finished.");
+    }
+
+    private void measure(String name, boolean enabled, Duration maxWait, int numberOfThreads, int numberOfCycles)
+            throws InterruptedException {
+        MeterRegistry meterRegistry = new SimpleMeterRegistry();
+        UserGroupCommitter userGroupCommitter = new UserGroupCommitter(userRepository, transactionManager,
+                meterRegistry, enabled, 64, maxWait, 10_000, Duration.ofSeconds(10));
+        userGroupCommitter.start();
+
+        CountDownLatch latch = new CountDownLatch(numberOfThreads);
+        long startTime = System.nanoTime();
+        for (int i = 0; i < numberOfThreads; i++) {
+            new Thread(() -> {
+                for (int j = 0; j < numberOfCycles; j++) {
+                    userGroupCommitter.save(USER_TO_SAVE_1.clone());
+                }
+                latch.countDown();
+            }).start();
+        }
+        assertTrue(latch.await(2, TimeUnit.MINUTES));
+        long elapsedTimeInMillis = Math.max(1, (System.nanoTime() - startTime) / 1_000_000);
+        userGroupCommitter.stop();
+
+        long writes = (long) numberOfThreads * numberOfCycles;
+        DistributionSummary batchSizes = meterRegistry.get("users.group.commit.batch.size").summary();
+        Timer latency = meterRegistry.get("users.group.commit.latency").timer();
+        LOG.info("{}: {} writes in {} milliseconds ({} writes per second), mean batch size {}, mean latency {} ms.",
+                name, writes, elapsedTimeInMillis, writes * 1000 / elapsedTimeInMillis,
+                String.format("%.1f", batchSizes.mean()), String.format("%.2f", latency.mean(TimeUnit.MILLISECONDS)));
+    }
+}
@@ -0,0 +1,152 @@
+package com.example.demo.services;
+
+import com.example.demo.models.User;
+import com.example.demo.repositories.UserRepository;
+import com.example.demo.services.impl.UserGroupCommitter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+
+import static com.example.demo.services.util.UserServiceTestUtil.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest
+@ActiveProfiles("test")
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+public class UserGroupCommitterTest {
+
+    private static final int NUMBER_OF_WRITERS = 16;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private UserGroupCommitter userGroupCommitter;
+
+    @AfterEach
+    public void resetDatabase() throws InterruptedException {
+        if (userGroupCommitter != null) {
+            userGroupCommitter.stop();
+        }
+        userRepository.deleteAll();
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> entityManager.getEntityManager()
+                .createNativeQuery("ALTER TABLE users ALTER COLUMN id RESTART WITH 1")
+                .executeUpdate());
+    }
+
+    @Test
+    public void Should_CommitConcurrentWritesTogether_When_GroupCommitIsEnabled() throws Exception {
+        startGroupCommitter(true);
+        List<Future<User>> results = saveConcurrently(nCopies(USER_TO_SAVE_1));
+
+        for (Future<User> result : results) {
+            assertNotNull(result.get().getId());
+        }
+        assertEquals(NUMBER_OF_WRITERS, userRepository.count());
+        assertTrue(meterRegistry.get("users.group.commit.batch.size").summary().max() > 1);
+        assertEquals(0, meterRegistry.get("users.group.commit.fallbacks").counter().count());
+    }
+
+    @Test
+    public void Should_ReturnOwnErrorToEachCaller_When_SomeWriteInBatchFails() throws Exception {
+        startGroupCommitter(true);
+        List<User> users = nCopies(USER_TO_SAVE_1);
+        users.set(NUMBER_OF_WRITERS / 2, USER_WITHOUT_FIRST_NAME.clone());
+        List<Future<User>> results = saveConcurrently(users);
+
+        for (int i = 0; i < results.size(); i++) {
+            if (i == NUMBER_OF_WRITERS / 2) {
+                ExecutionException e = assertThrows(ExecutionException.class, results.get(i)::get);
+                assertInstanceOf(DataIntegrityViolationException.class, e.getCause());
+                assertNull(users.get(i).getId());
+            } else {
+                assertNotNull(results.get(i).get().getId());
+            }
+        }
+        assertEquals(NUMBER_OF_WRITERS - 1, userRepository.count());
+    }
+
+    @Test
+    public void Should_DeleteUser_When_DeleteIsGroupCommitted() {
+        startGroupCommitter(true);
+        User user = userGroupCommitter.save(USER_TO_SAVE_1.clone());
+        userGroupCommitter.delete(user.getId());
+        assertEquals(0, userRepository.count());
+    }
+
+    @Test
+    public void Should_CommitWrite_When_GroupCommitterHasStopped() throws Exception {
+        startGroupCommitter(true);
+        userGroupCommitter.stop();
+        assertNotNull(userGroupCommitter.save(USER_TO_SAVE_1.clone()).getId());
+        assertEquals(1, userRepository.count());
+    }
+
+    @Test
+    public void Should_WriteEachUserInItsOwnTransaction_When_GroupCommitIsDisabled() throws Exception {
+        startGroupCommitter(false);
+        List<Future<User>> results = saveConcurrently(nCopies(USER_TO_SAVE_1));
+
+        for (Future<User> result : results) {
+            assertNotNull(result.get().getId());
+        }
+        assertEquals(NUMBER_OF_WRITERS, userRepository.count());
+        assertEquals(0, meterRegistry.get("users.group.commit.batch.size").summary().count());
+    }
+
+    private void startGroupCommitter(boolean enabled) {
+        userGroupCommitter = new UserGroupCommitter(userRepository, transactionManager, meterRegistry,
+                enabled, NUMBER_OF_WRITERS, Duration.ofMillis(200), 1000, Duration.ofSeconds(10));
+        userGroupCommitter.start();
+    }
+
+    private List<Future<User>> saveConcurrently(List<User> users) throws InterruptedException {
+        ExecutorService executor = Executors.newFixedThreadPool(users.size());
+        try {
+            CountDownLatch start = new CountDownLatch(1);
+            List<Future<User>> results = new ArrayList<>();
+            for (User user : users) {
+                results.add(executor.submit(() -> {
+                    start.await();
+                    return userGroupCommitter.save(user);
+                }));
+            }
+            start.countDown();
+            executor.shutdown();
+            assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+            return results;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static List<User> nCopies(User user) {
+        List<User> users = new ArrayList<>();
+        for (int i = 0; i < NUMBER_OF_WRITERS; i++) {
+            users.add(user.clone());
+        }
+        return users;
+    }
+}
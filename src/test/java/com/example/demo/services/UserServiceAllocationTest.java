@@ -0,0 +1,151 @@
+package com.example.demo.services;
+
+import com.example.demo.models.User;
+import com.example.demo.repositories.UserRepository;
+import com.example.demo.repositories.UserUpsertRepository;
+import com.example.demo.services.impl.UserServiceJpa;
+import com.example.demo.services.impl.UserServiceRedis;
+import com.example.demo.services.impl.UserServiceTransactional;
+import com.example.demo.services.util.UserDataGenerator;
+import com.example.demo.util.AllocationBudget;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.testcontainers.containers.GenericContainer;
+import org.testcontainers.utility.DockerImageName;
+
+import java.util.List;
+import java.util.Objects;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Allocation budgets of the hot paths of every {@link UserService} implementation, over a table of
+ * {@value #NUMBER_OF_USERS} generated users. The budgets live in {@code allocation-budgets.properties}.
+ */
+@EnableCaching
+@SpringBootTest
+@ActiveProfiles("test")
+@AutoConfigureTestDatabase
+public class UserServiceAllocationTest {
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private UserUpsertRepository userUpsertRepository;
+
+    @Autowired
+    private UserServiceJpa userServiceJpa;
+
+    @Autowired
+    private UserServiceTransactional userServiceTransactional;
+
+    @Autowired
+    private UserServiceRedis userServiceRedis;
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private static final Logger LOG = LoggerFactory.getLogger(UserServiceAllocationTest.class);
+    private static final int NUMBER_OF_USERS = 1000;
+    private static final int LIST_WARMUPS = 20;
+    private static final int LIST_ITERATIONS = 20;
+    private static final int SAVE_WARMUPS = 100;
+    private static final int SAVE_ITERATIONS = 100;
+
+    private Object sink;
+
+    @BeforeAll
+    public static void setUpContainers() {
+        startRedisContainer();
+    }
+
+    @BeforeEach
+    public void loadUsers() {
+        new UserDataGenerator().load(userUpsertRepository, NUMBER_OF_USERS);
+        jdbcTemplate.execute("ALTER TABLE users ALTER COLUMN id RESTART WITH " + (NUMBER_OF_USERS + 1));
+    }
+
+    @AfterEach
+    public void cleanup() {
+        cacheManager.getCacheNames().forEach(cacheName -> Objects.requireNonNull(cacheManager.getCache(cacheName)).clear());
+        userRepository.deleteAll();
+        jdbcTemplate.execute("ALTER TABLE users ALTER COLUMN id RESTART WITH 1");
+    }
+
+    @Test
+    public void Should_StayWithinAllocationBudget_When_JpaServiceListsUsers() {
+        assertListWithinBudget("UserServiceJpa.listUsers", userServiceJpa::listUsers);
+    }
+
+    @Test
+    public void Should_StayWithinAllocationBudget_When_JpaServiceSavesUser() {
+        assertSaveWithinBudget("UserServiceJpa.saveUser", userServiceJpa);
+    }
+
+    @Test
+    public void Should_StayWithinAllocationBudget_When_TransactionalServiceListsUsers() {
+        assertListWithinBudget("UserServiceTransactional.listUsers", userServiceTransactional::listUsers);
+    }
+
+    @Test
+    public void Should_StayWithinAllocationBudget_When_TransactionalServiceSavesUser() {
+        assertSaveWithinBudget("UserServiceTransactional.saveUser", userServiceTransactional);
+    }
+
+    /**
+     * Users are read from the cache and every one of them is touched, so the segments are decoded as in a render.
+     */
+    @Test
+    public void Should_StayWithinAllocationBudget_When_RedisServiceListsUsers() {
+        assertListWithinBudget("UserServiceRedis.listUsers", () -> {
+            List<User> users = userServiceRedis.listUsers();
+            users.forEach(user -> sink = user);
+            return users;
+        });
+    }
+
+    @Test
+    public void Should_StayWithinAllocationBudget_When_RedisServiceSavesUser() {
+        userServiceRedis.listUsers();
+        assertSaveWithinBudget("UserServiceRedis.saveUser", userServiceRedis);
+    }
+
+    private void assertListWithinBudget(String operation, Supplier<List<User>> listUsers) {
+        assertEquals(NUMBER_OF_USERS, listUsers.get().size());
+        AllocationBudget.assertWithinBudget(operation, LIST_WARMUPS, LIST_ITERATIONS, () -> sink = listUsers.get());
+    }
+
+    private void assertSaveWithinBudget(String operation, UserService userService) {
+        AllocationBudget.assertWithinBudget(operation, SAVE_WARMUPS, SAVE_ITERATIONS,
+                () -> sink = userService.saveUser(new User("Alice", "Smith", User.Gender.FEMALE)));
+        assertEquals(NUMBER_OF_USERS + SAVE_WARMUPS + SAVE_ITERATIONS, userRepository.count());
+    }
+
+    private static void startRedisContainer() {
+        try {
+            int redisPort = Integer.parseInt(System.getProperty("redis.port", "6379"));
+            GenericContainer<?> redisContainer = new GenericContainer<>(DockerImageName.parse("redis:latest")).withExposedPorts(redisPort);
+            redisContainer.start();
+            System.setProperty("spring.data.redis.host", redisContainer.getHost());
+            System.setProperty("spring.data.redis.port", redisContainer.getMappedPort(redisPort).toString());
+        } catch (Exception e) {
+            LOG.error("An exception occurred during starting of Redis container: {}", e.getMessage(), e);
+        }
+    }
+}
@@ -2,9 +2,11 @@ package com.example.demo.services;
 
 import com.example.demo.models.User;
 import com.example.demo.repositories.UserRepository;
+import com.example.demo.repositories.UserUpsertRepository;
 import com.example.demo.services.impl.UserServiceRedis;
 import com.example.demo.services.impl.UserServiceTransactional;
 import com.example.demo.services.util.ActionExecutorThread;
+import com.example.demo.services.util.UserDataGenerator;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.Test;
@@ -36,6 +38,9 @@ public class UserServiceCachingPerformanceTest {
     @Autowired
     private UserRepository userRepository;
 
+    @Autowired
+    private UserUpsertRepository userUpsertRepository;
+
     @Autowired
     private UserServiceRedis userServiceRedis;
 
@@ -65,7 +70,7 @@ public class UserServiceCachingPerformanceTest {
     public void testCachingPerformanceLinearScenario() {
         LOG.info("Caching performance linear test is started.");
 
-        int numberOfUsers = 100;
+        int numberOfUsers = (int) UserDataGenerator.scale(10_000);
         int numberOfCycles = 1000;
 
         // Add users to the database
@@ -106,7 +111,7 @@ public class UserServiceCachingPerformanceTest {
     public void testCachingPerformanceMultithreadedScenario() throws InterruptedException {
         LOG.info("Caching performance multithreaded test is started.");
 
-        int numberOfUsers = 100;
+        int numberOfUsers = (int) UserDataGenerator.scale(10_000);
         int numberOfThreads = 11;
         int numberOfCycles = 1000;
         double listUsersProbability = 1.0;
@@ -154,9 +159,8 @@ public class UserServiceCachingPerformanceTest {
     }
 
     private void saveUsersToDatabase(int numberOfUsers) {
-        for (int i = 0; i < numberOfUsers; i++) {
-            userRepository.save(createNewUser());
-        }
+        new UserDataGenerator().load(userUpsertRepository, numberOfUsers, UserDataGenerator.DEFAULT_CHUNK_SIZE,
+                Runtime.getRuntime().availableProcessors());
     }
 
     private User createNewUser() {
@@ -0,0 +1,191 @@
+package com.example.demo.services;
+
+import com.example.demo.caches.UserIdBloomFilter;
+import com.example.demo.models.User;
+import com.example.demo.repositories.UserRepository;
+import com.example.demo.repositories.UserUpsertRepository;
+import com.example.demo.services.impl.UserServiceJpa;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.context.ApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.testcontainers.containers.GenericContainer;
+import org.testcontainers.utility.DockerImageName;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+import java.util.Objects;
+
+import static com.example.demo.services.util.UserServiceTestUtil.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+@EnableCaching
+@SpringBootTest
+@ActiveProfiles("test")
+@AutoConfigureTestDatabase
+public class UserServiceJpaCacheTest {
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private UserServiceJpa userService;
+
+    @Autowired
+    private UserIdBloomFilter userIdBloomFilter;
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private UserUpsertRepository userUpsertRepository;
+
+    private static final Logger LOG = LoggerFactory.getLogger(UserServiceJpaCacheTest.class);
+    private static final String USERS_CACHE_NAME = "users";
+
+    private User userToSave1;
+
+    @BeforeAll
+    public static void setUpContainers() {
+        startRedisContainer();
+    }
+
+    @BeforeEach
+    public void resetUsersToSave() {
+        userToSave1 = USER_TO_SAVE_1.clone();
+    }
+
+    @AfterEach
+    public void cleanupCache() {
+        cacheManager.getCacheNames().forEach(cacheName -> {
+            Cache cache = Objects.requireNonNull(cacheManager.getCache(cacheName));
+            cache.clear();
+        });
+    }
+
+    @AfterEach
+    public void resetDatabase(ApplicationContext applicationContext) throws SQLException {
+        userRepository.deleteAll();
+        DataSource dataSource = applicationContext.getBean(DataSource.class);
+        Connection c = dataSource.getConnection();
+        Statement s = c.createStatement();
+        s.execute("ALTER TABLE users ALTER COLUMN id RESTART WITH 1");
+    }
+
+    @Test
+    public void Should_ThrowIllegalArgumentException_When_IdIsNull() {
+        assertThrows(IllegalArgumentException.class, () -> userService.findUser(null));
+    }
+
+    @Test
+    public void Should_PutUserIntoCache_When_FindUserIsCalled() {
+        User user = userRepository.save(userToSave1);
+        assertNull(Objects.requireNonNull(cacheManager.getCache(USERS_CACHE_NAME)).get(user.getId()));
+        assertEquals(PERSISTED_USER_1, userService.findUser(user.getId()));
+        assertNotNull(Objects.requireNonNull(cacheManager.getCache(USERS_CACHE_NAME)).get(user.getId()));
+    }
+
+    @Test
+    public void Should_RejectIdWithoutLookup_When_UserNeverExisted() {
+        userRepository.save(userToSave1);
+        userIdBloomFilter.rebuild();
+        assertFalse(userIdBloomFilter.mightContain(1_000L));
+        assertNull(userService.findUser(1_000L));
+    }
+
+    @Test
+    public void Should_AnswerFromNegativeEntry_When_UnknownIdIsLookedUpAgain() {
+        userIdBloomFilter.rebuild();
+        assertNull(userService.findUser(1_000L));
+        // Written behind the cache's back, so only a second database lookup would find it.
+        jdbcTemplate.update("INSERT INTO users (id, first_name, last_name, gender, email) VALUES (?, ?, ?, ?, ?)",
+                1_000L, userToSave1.getFirstName(), userToSave1.getLastName(), userToSave1.getGender().name(), userToSave1.getEmail());
+
+        assertNull(userService.findUser(1_000L));
+    }
+
+    @Test
+    public void Should_FindUser_When_UserWasWrittenPastBloomFilter() {
+        userIdBloomFilter.rebuild();
+        jdbcTemplate.update("INSERT INTO users (id, first_name, last_name, gender, email) VALUES (?, ?, ?, ?, ?)",
+                1_000L, userToSave1.getFirstName(), userToSave1.getLastName(), userToSave1.getGender().name(), userToSave1.getEmail());
+        assertFalse(userIdBloomFilter.mightContain(1_000L));
+
+        User user = userService.findUser(1_000L);
+        assertNotNull(user);
+        assertEquals(userToSave1.getFirstName(), user.getFirstName());
+        assertTrue(userIdBloomFilter.mightContain(1_000L));
+    }
+
+    @Test
+    public void Should_FindUser_When_UserIsUpsertedAfterNegativeLookup() {
+        User savedUser = userRepository.save(userToSave1);
+        userService.deleteAllUsersByIds(List.of(savedUser.getId()));
+        assertNull(userService.findUser(savedUser.getId()));
+
+        User user = USER_TO_SAVE_2.clone();
+        user.setId(savedUser.getId());
+        userUpsertRepository.upsertAll(List.of(user));
+
+        assertEquals(USER_TO_SAVE_2.getFirstName(), userService.findUser(savedUser.getId()).getFirstName());
+    }
+
+    @Test
+    public void Should_AddIdToBloomFilter_When_UserIsUpserted() {
+        userIdBloomFilter.rebuild();
+        assertFalse(userIdBloomFilter.mightContain(1_000L));
+        User user = USER_TO_SAVE_2.clone();
+        user.setId(1_000L);
+
+        userUpsertRepository.upsertAll(List.of(user));
+
+        assertTrue(userIdBloomFilter.mightContain(1_000L));
+    }
+
+    @Test
+    public void Should_FindUser_When_UserIsSavedAfterNegativeLookup() {
+        assertNull(userService.findUser(1L));
+        User user = userService.saveUser(userToSave1);
+        assertEquals(1L, user.getId());
+        assertEquals(PERSISTED_USER_1, userService.findUser(1L));
+    }
+
+    @Test
+    public void Should_NotFindUser_When_UserIsDeletedAfterCachedLookup() {
+        User user = userRepository.save(userToSave1);
+        assertEquals(PERSISTED_USER_1, userService.findUser(user.getId()));
+        userService.deleteUser(user.getId());
+        assertEquals(0L, userRepository.count());
+        assertNull(userService.findUser(user.getId()));
+    }
+
+    @SuppressWarnings("resource")
+    private static void startRedisContainer() {
+        try {
+            int redisPort = Integer.parseInt(System.getProperty("redis.port", "6379"));
+            GenericContainer<?> redisContainer = new GenericContainer<>(DockerImageName.parse("redis:latest")).withExposedPorts(redisPort);
+            redisContainer.start();
+            System.setProperty("spring.data.redis.host", redisContainer.getHost());
+            System.setProperty("spring.data.redis.port", redisContainer.getMappedPort(redisPort).toString());
+        } catch (Exception e) {
+            LOG.error("An exception occurred during starting of Redis container: {}", e.getMessage(), e);
+        }
+    }
+}
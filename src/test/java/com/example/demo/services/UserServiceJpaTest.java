@@ -1,7 +1,10 @@
 package com.example.demo.services;
 
 import com.example.demo.models.User;
+import com.example.demo.repositories.UserUpsertRepository;
 import com.example.demo.services.impl.UserServiceJpa;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.BeforeEach;
@@ -9,7 +12,7 @@ import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
 import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
-import org.springframework.context.annotation.ComponentScan;
+import org.springframework.context.annotation.Import;
 import org.springframework.test.context.ActiveProfiles;
 
 import java.util.ArrayList;
@@ -21,7 +24,7 @@ import static org.junit.jupiter.api.Assertions.*;
 
 @DataJpaTest
 @ActiveProfiles("test")
-@ComponentScan(basePackages = {"com.example.demo.services"})
+@Import({UserServiceJpa.class, UserUpsertRepository.class})
 public class UserServiceJpaTest {
 
     @Autowired
@@ -45,8 +48,12 @@ public class UserServiceJpaTest {
         userToSave3 = USER_TO_SAVE_3.clone();
     }
 
+    /**
+     * Tests roll back their transactions, but entities loaded inside them may still reach the second-level cache.
+     */
     @AfterEach
     public void resetDatabase() {
+        entityManager.getEntityManager().getEntityManagerFactory().getCache().evictAll();
         entityManager.getEntityManager()
                 .createNativeQuery("ALTER TABLE users ALTER COLUMN id RESTART WITH 1")
                 .executeUpdate();
@@ -83,11 +90,33 @@ public class UserServiceJpaTest {
         assertEquals(PERSISTED_USER_2, user);
     }
 
+    @Test
+    public void Should_FindUserInSecondLevelCache_When_UserWasLoadedBefore() {
+        saveUsersToDatabase();
+        entityManager.flush();
+        entityManager.clear();
+        Statistics statistics = getStatistics();
+        statistics.clear();
+
+        userService.findUser(2L);
+        entityManager.clear();
+        User user = userService.findUser(2L);
+
+        assertEquals(PERSISTED_USER_2, user);
+        assertEquals(1L, statistics.getDomainDataRegionStatistics(User.CACHE_REGION).getHitCount());
+    }
+
     @Test
     public void Should_ThrowNullPointerException_When_ListOfIdsIsNull() {
         assertThrows(NullPointerException.class, () -> userService.findAllUsersByIds(null));
     }
 
+    @Test
+    public void Should_FindNoUsers_When_ListOfIdsIsEmpty() {
+        saveUsersToDatabase();
+        assertEquals(List.of(), userService.findAllUsersByIds(List.of()));
+    }
+
     @Test
     public void Should_FindOnlyUsersWithMatchingIds_When_IdsAreValid() {
         saveUsersToDatabase();
@@ -110,6 +139,15 @@ public class UserServiceJpaTest {
         assertEquals(List.of(PERSISTED_USER_2, PERSISTED_USER_3), users.get());
     }
 
+    @Test
+    public void Should_FindAllUserViews_When_DatabaseIsNotEmpty() {
+        saveUsersToDatabase();
+        List<User> users = userService.listUserViews().stream()
+                .map(view -> new User(view.id(), view.firstName(), view.lastName(), view.gender(), view.email()))
+                .toList();
+        assertEquals(List.of(PERSISTED_USER_1, PERSISTED_USER_2, PERSISTED_USER_3), users);
+    }
+
     @Test
     public void Should_FindNoUserIds_When_DatabaseIsEmpty() {
         List<Long> userIds = userService.getAllUserIds();
@@ -328,6 +366,58 @@ public class UserServiceJpaTest {
     }
 
 
+    private Statistics getStatistics() {
+        return entityManager.getEntityManager().getEntityManagerFactory()
+                .unwrap(SessionFactory.class)
+                .getStatistics();
+    }
+
+    @Test
+    public void Should_ShareNameInstances_When_UsersWithEqualNamesAreLoaded() {
+        entityManager.persist(new User(new String("Alice"), new String("Smith"), User.Gender.FEMALE));
+        entityManager.persist(new User(new String("Alice"), new String("Smith"), User.Gender.FEMALE));
+        entityManager.flush();
+        entityManager.clear();
+        List<User> users = userService.listUsers();
+        assertSame(users.get(0).getFirstName(), users.get(1).getFirstName());
+        assertSame(users.get(0).getLastName(), users.get(1).getLastName());
+    }
+
+    @Test
+    public void Should_InsertMissingAndUpdateExistingUsers_When_UsersAreUpserted() {
+        saveUsersToDatabase();
+        User updatedUser = new User(2L, "Robert", "Johnson", User.Gender.MALE, "robert.johnson@example.com");
+        User newUser = new User(10L, "Carol", "White", User.Gender.FEMALE, "carol.white@example.com");
+        assertDoesNotThrow(() -> userService.upsertUsers(List.of(updatedUser, newUser)));
+        entityManager.clear();
+        List<User> users = userService.listUsers();
+        assertEquals(List.of(PERSISTED_USER_1, updatedUser, PERSISTED_USER_3, newUser), users);
+        assertEquals("robert.johnson@example.com", userService.findUser(2L).getEmail());
+    }
+
+    @Test
+    public void Should_LeaveUsersUnchanged_When_SameUsersAreUpsertedTwice() {
+        List<User> users = List.of(PERSISTED_USER_1, PERSISTED_USER_2, PERSISTED_USER_3);
+        userService.upsertUsers(users);
+        userService.upsertUsers(users);
+        entityManager.clear();
+        assertEquals(3L, countUsersInDatabase());
+        assertEquals(users, userService.listUsers());
+    }
+
+    @Test
+    public void Should_NotUpsertAnyUsersAndThrowIllegalArgumentException_When_SomeUsersHaveNoId() {
+        User userWithoutId = userToSave2;
+        assertThrows(IllegalArgumentException.class,
+                () -> userService.upsertUsers(List.of(PERSISTED_USER_1, userWithoutId)));
+        assertEquals(0L, countUsersInDatabase());
+    }
+
+    @Test
+    public void Should_ThrowNullPointerException_When_ListOfUpsertedUsersIsNull() {
+        assertThrows(NullPointerException.class, () -> userService.upsertUsers(null));
+    }
+
     private void saveUsersToDatabase() {
         entityManager.persist(userToSave1);
         entityManager.persist(userToSave2);
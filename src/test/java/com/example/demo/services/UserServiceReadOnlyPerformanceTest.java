@@ -0,0 +1,106 @@
+package com.example.demo.services;
+
+import com.example.demo.models.User;
+import com.example.demo.repositories.UserUpsertRepository;
+import com.example.demo.services.impl.UserServiceJpa;
+import com.example.demo.services.util.UserDataGenerator;
+import org.hibernate.Session;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.lang.management.ManagementFactory;
+import java.util.List;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest
+@ActiveProfiles("test")
+@Import({UserServiceJpa.class, UserUpsertRepository.class})
+public class UserServiceReadOnlyPerformanceTest {
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private UserServiceJpa userService;
+
+    @Autowired
+    private UserUpsertRepository userUpsertRepository;
+
+    private static final Logger LOG = LoggerFactory.getLogger(UserServiceReadOnlyPerformanceTest.class);
+
+    @AfterEach
+    public void resetDatabase() {
+        entityManager.getEntityManager().getEntityManagerFactory().getCache().evictAll();
+        entityManager.getEntityManager()
+                .createNativeQuery("ALTER TABLE users ALTER COLUMN id RESTART WITH 1")
+                .executeUpdate();
+    }
+
+    @Test
+    public void testReadOnlyListPerformance() {
+        LOG.info("Read-only list performance test is started.");
+
+        int numberOfUsers = (int) UserDataGenerator.scale(20_000);
+        int numberOfCycles = 5;
+
+        new UserDataGenerator().load(userUpsertRepository, numberOfUsers);
+        entityManager.flush();
+        entityManager.clear();
+
+        // Warm up both paths before measuring
+        listManagedUsers();
+        listReadOnlyUsers();
+
+        measure("managed", numberOfCycles, this::listManagedUsers);
+        measure("read-only", numberOfCycles, this::listReadOnlyUsers);
+
+        List<User> users = userService.listUsers();
+        assertEquals(numberOfUsers, users.size());
+        assertTrue(entityManager.getEntityManager().unwrap(Session.class).isReadOnly(users.get(0)));
+        entityManager.clear();
+
+        LOG.info("Read-only list performance test is finished.");
+    }
+
+    private List<User> listManagedUsers() {
+        List<User> users = entityManager.getEntityManager()
+                .createQuery("SELECT u FROM User u", User.class)
+                .getResultList();
+        entityManager.flush();
+        entityManager.clear();
+        return users;
+    }
+
+    private List<User> listReadOnlyUsers() {
+        List<User> users = userService.listUsers();
+        entityManager.flush();
+        entityManager.clear();
+        return users;
+    }
+
+    /**
+     * Logs the time and the bytes allocated by the current thread, including the flush that dirty-checks loaded entities.
+     */
+    private void measure(String name, int numberOfCycles, Supplier<List<User>> action) {
+        com.sun.management.ThreadMXBean threadBean = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long threadId = Thread.currentThread().getId();
+        long startAllocatedBytes = threadBean.getThreadAllocatedBytes(threadId);
+        long startTime = System.nanoTime();
+        for (int i = 0; i < numberOfCycles; i++) {
+            List<User> ignored = action.get();
+        }
+        long elapsedTimeInMillis = (System.nanoTime() - startTime) / 1_000_000;
+        long allocatedBytes = threadBean.getThreadAllocatedBytes(threadId) - startAllocatedBytes;
+        LOG.info("Elapsed time for {} list: {} milliseconds, allocated {} KB per call.",
+                name, elapsedTimeInMillis / numberOfCycles, allocatedBytes / numberOfCycles / 1024);
+    }
+}
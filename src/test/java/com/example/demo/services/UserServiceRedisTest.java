@@ -1,5 +1,8 @@
 package com.example.demo.services;
 
+import com.example.demo.caches.LazyUserList;
+import com.example.demo.caches.PolicyRedisCacheWriter;
+import com.example.demo.caches.RedisCacheCodec;
 import com.example.demo.models.User;
 import com.example.demo.repositories.UserRepository;
 import com.example.demo.services.impl.UserServiceRedis;
@@ -18,6 +21,7 @@ import org.springframework.cache.annotation.EnableCaching;
 import org.springframework.context.ApplicationContext;
 import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.dao.InvalidDataAccessApiUsageException;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.test.context.ActiveProfiles;
 import org.testcontainers.containers.GenericContainer;
 import org.testcontainers.utility.DockerImageName;
@@ -47,6 +51,15 @@ public class UserServiceRedisTest {
     @Autowired
     private CacheManager cacheManager;
 
+    @Autowired
+    private PolicyRedisCacheWriter redisCacheWriter;
+
+    @Autowired
+    private RedisCacheCodec redisCacheCodec;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
     private static final Logger LOG = LoggerFactory.getLogger(UserServiceRedisTest.class);
     private static final String USERS_CACHE_NAME = "users";
     private static final String USERS_CACHE_KEY = "all";
@@ -101,6 +114,54 @@ public class UserServiceRedisTest {
         assertEquals(List.of(PERSISTED_USER_1, PERSISTED_USER_2, PERSISTED_USER_3), users);
     }
 
+    @Test
+    public void Should_FindOnlyUsersWithMatchingIds_When_IdsAreValid() {
+        saveUsersToDatabase();
+        List<User> users = userService.findAllUsersByIds(List.of(0L, 3L, 5L, 1L));
+        assertEquals(List.of(PERSISTED_USER_3, PERSISTED_USER_1), users);
+    }
+
+    @Test
+    public void Should_FindUser_When_IdIsValid() {
+        saveUsersToDatabase();
+        assertEquals(PERSISTED_USER_2, userService.findUser(2L));
+        assertNotNull(Objects.requireNonNull(cacheManager.getCache(USERS_CACHE_NAME)).get(2L));
+        assertNull(userService.findUser(5L));
+    }
+
+    @Test
+    public void Should_ThrowException_When_FindUserIdIsNull() {
+        assertThrows(IllegalArgumentException.class, () -> userService.findUser(null));
+    }
+
+    @Test
+    public void Should_PutMissingUsersIntoCache_When_FindAllUsersByIdsIsCalled() {
+        saveUsersToDatabase();
+        assertNull(Objects.requireNonNull(cacheManager.getCache(USERS_CACHE_NAME)).get(2L));
+        userService.findAllUsersByIds(List.of(2L, 3L));
+        assertNotNull(Objects.requireNonNull(cacheManager.getCache(USERS_CACHE_NAME)).get(2L));
+        assertNotNull(Objects.requireNonNull(cacheManager.getCache(USERS_CACHE_NAME)).get(3L));
+        assertNull(Objects.requireNonNull(cacheManager.getCache(USERS_CACHE_NAME)).get(1L));
+    }
+
+    @Test
+    public void Should_AnswerFromNegativeEntry_When_UnknownIdIsLookedUpAgain() {
+        assertNull(userService.findUser(1_000L));
+        // Written behind the cache's back, so only a second database lookup would find it.
+        jdbcTemplate.update("INSERT INTO users (id, first_name, last_name, gender, email) VALUES (?, ?, ?, ?, ?)",
+                1_000L, userToSave1.getFirstName(), userToSave1.getLastName(), userToSave1.getGender().name(), userToSave1.getEmail());
+
+        assertNull(userService.findUser(1_000L));
+        assertTrue(userService.findAllUsersByIds(List.of(1_000L)).isEmpty());
+    }
+
+    @Test
+    public void Should_FindCachedUsers_When_UsersAreMissingInDatabase() {
+        User user = userService.saveUser(userToSave1);
+        userRepository.deleteAll();
+        assertEquals(List.of(PERSISTED_USER_1), userService.findAllUsersByIds(List.of(user.getId())));
+    }
+
     @Test
     public void Should_SaveUser_When_UserIsValid() {
         User user = userService.saveUser(userToSave1);
@@ -198,6 +259,45 @@ public class UserServiceRedisTest {
         assertNull(Objects.requireNonNull(cacheManager.getCache(USERS_CACHE_NAME)).get(user2.getId()));
     }
 
+    @Test
+    public void Should_ListSavedUser_When_UserIsSavedAfterListUsersCall() {
+        saveUsersToDatabase();
+        userService.listUsers();
+        User user = userService.saveUser(USER_TO_SAVE_1.clone());
+        List<User> users = userService.listUsers();
+        assertEquals(4, users.size());
+        assertEquals(user, users.get(3));
+    }
+
+    @Test
+    public void Should_NotListDeletedUser_When_UserIsDeletedAfterListUsersCall() {
+        saveUsersToDatabase();
+        userService.listUsers();
+        userService.deleteUser(2L);
+        assertEquals(List.of(PERSISTED_USER_1, PERSISTED_USER_3), userService.listUsers());
+    }
+
+    @Test
+    public void Should_ReloadSegment_When_SegmentIsMissingInCache() {
+        saveUsersToDatabase();
+        userService.listUsers();
+        Objects.requireNonNull(cacheManager.getCache(USERS_CACHE_NAME)).evict(USERS_CACHE_KEY + ":segment:0");
+        assertEquals(List.of(PERSISTED_USER_1, PERSISTED_USER_2, PERSISTED_USER_3), userService.listUsers());
+        assertNotNull(redisCacheWriter.get(USERS_CACHE_NAME,
+                redisCacheCodec.serializeKey(USERS_CACHE_NAME, USERS_CACHE_KEY + ":segment:0")));
+    }
+
+    @Test
+    public void Should_ReturnLazyList_When_UsersAreListedFromCache() {
+        saveUsersToDatabase();
+        userService.listUsers();
+        List<User> users = userService.listUsers();
+        assertInstanceOf(LazyUserList.class, users);
+        assertEquals(3, users.size());
+        assertEquals(List.of(PERSISTED_USER_1, PERSISTED_USER_2, PERSISTED_USER_3), users);
+        assertFalse(userService.listUserViews().isEmpty());
+    }
+
     private void saveUsersToDatabase() {
         userRepository.save(userToSave1);
         userRepository.save(userToSave2);
@@ -72,6 +72,15 @@ public class UserServiceTransactionalTest {
         assertEquals(List.of(PERSISTED_USER_1, PERSISTED_USER_2, PERSISTED_USER_3), users);
     }
 
+    @Test
+    public void Should_FindAllUserViews_When_DatabaseIsNotEmpty() {
+        saveUsersToDatabase();
+        List<User> users = userService.listUserViews().stream()
+                .map(view -> new User(view.id(), view.firstName(), view.lastName(), view.gender(), view.email()))
+                .toList();
+        assertEquals(List.of(PERSISTED_USER_1, PERSISTED_USER_2, PERSISTED_USER_3), users);
+    }
+
     @Test
     public void Should_FindNoUserIds_When_DatabaseIsEmpty() {
         List<Long> userIds = userService.getAllUserIds();
@@ -241,6 +250,24 @@ public class UserServiceTransactionalTest {
         assertEquals(0L, userRepository.count());
     }
 
+    @Test
+    public void Should_InsertMissingAndUpdateExistingUsers_When_UsersAreUpserted() {
+        saveUsersToDatabase();
+        User updatedUser = new User(2L, "Robert", "Johnson", User.Gender.MALE, "robert.johnson@example.com");
+        User newUser = new User(10L, "Carol", "White", User.Gender.FEMALE, "carol.white@example.com");
+        assertDoesNotThrow(() -> userService.upsertUsers(List.of(updatedUser, newUser)));
+        assertEquals(4L, userRepository.count());
+        assertEquals(List.of(PERSISTED_USER_1, updatedUser, PERSISTED_USER_3, newUser), userService.listUsers());
+    }
+
+    @Test
+    public void Should_NotUpsertAnyUsersAndThrowDataIntegrityViolationException_When_SomeUsersFirstNameIsNull() {
+        User userWithoutFirstName = new User(2L, null, "Giggles", User.Gender.OTHER, null);
+        assertThrows(DataIntegrityViolationException.class,
+                () -> userService.upsertUsers(List.of(PERSISTED_USER_1, userWithoutFirstName)));
+        assertEquals(0L, userRepository.count());
+    }
+
     private void saveUsersToDatabase() {
         userRepository.save(userToSave1);
         userRepository.save(userToSave2);
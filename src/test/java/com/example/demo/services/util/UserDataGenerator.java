@@ -0,0 +1,233 @@
+package com.example.demo.services.util;
+
+import com.example.demo.caches.UserCache;
+import com.example.demo.caches.UserListCache;
+import com.example.demo.models.User;
+import com.example.demo.repositories.UserUpsertRepository;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
+
+/**
+ * Deterministic generator of realistic users for benchmarks and scaling tests.
+ * Names follow a Zipf-like popularity curve, genders and e-mail domains follow fixed shares, and some e-mails are missing.
+ * Every user is derived from the seed and its id alone, so any id range can be regenerated, loaded or cached
+ * independently and in parallel, and the same seed always yields the same data.
+ */
+public final class UserDataGenerator {
+
+    public static final long DEFAULT_SEED = 20_240_101L;
+    public static final int DEFAULT_CHUNK_SIZE = 10_000;
+
+    /**
+     * System property that overrides the number of users a scaling test works with, e.g. {@code -Dtest.users.count=50000000}.
+     */
+    public static final String COUNT_PROPERTY = "test.users.count";
+
+    private static final String[] FEMALE_FIRST_NAMES = {
+            "Mary", "Olivia", "Emma", "Sophia", "Ava", "Isabella", "Mia", "Charlotte", "Amelia", "Harper",
+            "Evelyn", "Abigail", "Emily", "Elizabeth", "Sofia", "Madison", "Avery", "Ella", "Scarlett", "Grace",
+            "Chloe", "Victoria", "Riley", "Aria", "Lily", "Aubrey", "Zoey", "Penelope", "Hannah", "Layla",
+            "Alice", "Nora", "Anna", "Maria", "Julia", "Elena", "Irina", "Olga", "Natalia", "Yuki"
+    };
+    private static final String[] MALE_FIRST_NAMES = {
+            "James", "John", "Robert", "Michael", "William", "David", "Richard", "Joseph", "Thomas", "Charles",
+            "Daniel", "Matthew", "Anthony", "Mark", "Donald", "Steven", "Paul", "Andrew", "Joshua", "Kenneth",
+            "Kevin", "Brian", "George", "Timothy", "Ronald", "Edward", "Jason", "Jeffrey", "Ryan", "Jacob",
+            "Bob", "Liam", "Noah", "Oliver", "Lucas", "Mateo", "Ivan", "Dmytro", "Anton", "Hiroshi"
+    };
+    private static final String[] NEUTRAL_FIRST_NAMES = {
+            "Alex", "Jordan", "Taylor", "Morgan", "Casey", "Jamie", "Riley", "Quinn", "Avery", "Skyler",
+            "Terry", "Robin", "Sam", "Charlie", "Rowan", "Sage", "Emerson", "Finley", "Kai", "River"
+    };
+    private static final String[] LAST_NAMES = {
+            "Smith", "Johnson", "Williams", "Brown", "Jones", "Garcia", "Miller", "Davis", "Rodriguez", "Martinez",
+            "Hernandez", "Lopez", "Gonzalez", "Wilson", "Anderson", "Thomas", "Taylor", "Moore", "Jackson", "Martin",
+            "Lee", "Perez", "Thompson", "White", "Harris", "Sanchez", "Clark", "Ramirez", "Lewis", "Robinson",
+            "Walker", "Young", "Allen", "King", "Wright", "Scott", "Torres", "Nguyen", "Hill", "Flores",
+            "Green", "Adams", "Nelson", "Baker", "Hall", "Rivera", "Campbell", "Mitchell", "Carter", "Roberts",
+            "Mueller", "Schmidt", "Schneider", "Fischer", "Weber", "Dubois", "Moreau", "Rossi", "Russo", "Ferrari",
+            "Kowalski", "Nowak", "Shevchenko", "Kovalenko", "Bondarenko", "Ivanov", "Petrov", "Sato", "Suzuki", "Tanaka",
+            "Takahashi", "Watanabe", "Kim", "Park", "Chen", "Wang", "Li", "Zhang", "Liu", "Singh",
+            "Kumar", "Sharma", "Patel", "Khan", "Ali", "Silva", "Santos", "Oliveira", "Pereira", "Costa",
+            "O'Brien", "Murphy", "Kelly", "Sullivan", "Walsh", "Jerry", "Liutyi", "Fernandez", "Gomez", "Diaz"
+    };
+    private static final String[] EMAIL_DOMAINS = {
+            "gmail.com", "yahoo.com", "outlook.com", "hotmail.com", "icloud.com", "proton.me", "example.com", "mail.ua"
+    };
+    private static final double[] EMAIL_DOMAIN_SHARES = {0.45, 0.15, 0.12, 0.1, 0.08, 0.04, 0.04, 0.02};
+    private static final User.Gender[] GENDERS = {
+            User.Gender.FEMALE, User.Gender.MALE, User.Gender.OTHER, User.Gender.ATTACK_HELICOPTER
+    };
+    private static final double[] GENDER_SHARES = {0.49, 0.49, 0.015, 0.005};
+    private static final double MISSING_EMAIL_SHARE = 0.1;
+
+    private static final double[] FEMALE_FIRST_NAME_CDF = zipfCdf(FEMALE_FIRST_NAMES.length);
+    private static final double[] MALE_FIRST_NAME_CDF = zipfCdf(MALE_FIRST_NAMES.length);
+    private static final double[] NEUTRAL_FIRST_NAME_CDF = zipfCdf(NEUTRAL_FIRST_NAMES.length);
+    private static final double[] LAST_NAME_CDF = zipfCdf(LAST_NAMES.length);
+    private static final double[] EMAIL_DOMAIN_CDF = cdf(EMAIL_DOMAIN_SHARES);
+    private static final double[] GENDER_CDF = cdf(GENDER_SHARES);
+
+    private final long seed;
+
+    public UserDataGenerator() {
+        this(DEFAULT_SEED);
+    }
+
+    public UserDataGenerator(long seed) {
+        this.seed = seed;
+    }
+
+    /**
+     * Returns the value of {@link #COUNT_PROPERTY} if set, otherwise the given default.
+     */
+    public static long scale(long defaultCount) {
+        return Long.getLong(COUNT_PROPERTY, defaultCount);
+    }
+
+    public User user(long id) {
+        SplittableRandom random = new SplittableRandom(mix(seed ^ mix(id)));
+        User.Gender gender = GENDERS[pick(random, GENDER_CDF)];
+        String firstName = switch (gender) {
+            case FEMALE -> FEMALE_FIRST_NAMES[pick(random, FEMALE_FIRST_NAME_CDF)];
+            case MALE -> MALE_FIRST_NAMES[pick(random, MALE_FIRST_NAME_CDF)];
+            default -> NEUTRAL_FIRST_NAMES[pick(random, NEUTRAL_FIRST_NAME_CDF)];
+        };
+        String lastName = LAST_NAMES[pick(random, LAST_NAME_CDF)];
+        String email = random.nextDouble() < MISSING_EMAIL_SHARE
+                ? null
+                : email(firstName, lastName, id, EMAIL_DOMAINS[pick(random, EMAIL_DOMAIN_CDF)]);
+        return new User(id, firstName, lastName, gender, email);
+    }
+
+    /**
+     * Returns the users with ids {@code firstId} to {@code firstId + count - 1}.
+     */
+    public List<User> users(long firstId, int count) {
+        List<User> users = new ArrayList<>(count);
+        for (long id = firstId; id < firstId + count; id++) {
+            users.add(user(id));
+        }
+        return users;
+    }
+
+    /**
+     * Upserts the users with ids 1 to {@code count} in chunks of {@link #DEFAULT_CHUNK_SIZE},
+     * joining the caller's transaction if there is one.
+     */
+    public void load(UserUpsertRepository userUpsertRepository, long count) {
+        for (long firstId = 1; firstId <= count; firstId += DEFAULT_CHUNK_SIZE) {
+            userUpsertRepository.upsertAll(users(firstId, chunkSize(firstId, count, DEFAULT_CHUNK_SIZE)));
+        }
+    }
+
+    /**
+     * Upserts the users with ids 1 to {@code count} from several threads, one transaction per chunk.
+     * Must not be called inside a transaction, since the chunks would not see it.
+     * H2 does not move its identity column past explicit ids, so tests that insert more users afterwards
+     * restart it at {@code count + 1}, while MySQL moves its auto-increment on its own.
+     */
+    public void load(UserUpsertRepository userUpsertRepository, long count, int chunkSize, int parallelism) {
+        forEachChunk(count, chunkSize, parallelism, userUpsertRepository::upsertAll);
+    }
+
+    /**
+     * Writes the per-id cache entries of the users with ids 1 to {@code count} without reading the database,
+     * and builds the cached user list.
+     */
+    public void primeCaches(UserCache userCache, UserListCache userListCache, long count, int chunkSize, int parallelism) {
+        forEachChunk(count, chunkSize, parallelism, userCache::putAll);
+        userListCache.getUsers();
+    }
+
+    private void forEachChunk(long count, int chunkSize, int parallelism, Consumer<List<User>> action) {
+        ExecutorService executor = Executors.newFixedThreadPool(parallelism);
+        try {
+            List<Future<?>> chunks = new ArrayList<>();
+            for (long firstId = 1; firstId <= count; firstId += chunkSize) {
+                long chunkFirstId = firstId;
+                int size = chunkSize(firstId, count, chunkSize);
+                chunks.add(executor.submit(() -> action.accept(users(chunkFirstId, size))));
+            }
+            for (Future<?> chunk : chunks) {
+                chunk.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while generating users.", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Failed to generate users: " + e.getCause().getMessage(), e.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static int chunkSize(long firstId, long count, int chunkSize) {
+        return (int) Math.min(chunkSize, count - firstId + 1);
+    }
+
+    private static String email(String firstName, String lastName, long id, String domain) {
+        String localPart = (firstName + "." + lastName)
+                .toLowerCase(Locale.ROOT)
+                .replaceAll("[^a-z.]", "");
+        return localPart + id + "@" + domain;
+    }
+
+    private static int pick(SplittableRandom random, double[] cdf) {
+        double value = random.nextDouble();
+        int low = 0;
+        int high = cdf.length - 1;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (cdf[middle] < value) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Cumulative distribution where the k-th most popular value is chosen with a weight of 1 / k.
+     */
+    private static double[] zipfCdf(int size) {
+        double[] weights = new double[size];
+        for (int i = 0; i < size; i++) {
+            weights[i] = 1.0 / (i + 1);
+        }
+        return cdf(weights);
+    }
+
+    private static double[] cdf(double[] weights) {
+        double total = 0;
+        for (double weight : weights) {
+            total += weight;
+        }
+        double[] cdf = new double[weights.length];
+        double sum = 0;
+        for (int i = 0; i < weights.length; i++) {
+            sum += weights[i];
+            cdf[i] = sum / total;
+        }
+        cdf[weights.length - 1] = 1.0;
+        return cdf;
+    }
+
+    /**
+     * SplitMix64 finalizer, so neighbouring ids get unrelated random streams.
+     */
+    private static long mix(long value) {
+        value = (value ^ (value >>> 30)) * 0xbf58476d1ce4e5b9L;
+        value = (value ^ (value >>> 27)) * 0x94d049bb133111ebL;
+        return value ^ (value >>> 31);
+    }
+}
@@ -0,0 +1,41 @@
+package com.example.demo.timing;
+
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class RequestTimingInterceptorTest {
+
+    @Test
+    public void Should_RecordEveryStage_When_RequestCompletes() throws InterruptedException {
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        RequestTimingInterceptor interceptor = new RequestTimingInterceptor(meterRegistry, Duration.ofSeconds(10));
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/users");
+        request.setAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE, "/users");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        interceptor.preHandle(request, response, new Object());
+        try (RequestTimings.Scope db = RequestTimings.stage(RequestTimings.Stage.DB)) {
+            Thread.sleep(20);
+        }
+        interceptor.postHandle(request, response, new Object(), null);
+        Thread.sleep(10);
+        interceptor.afterCompletion(request, response, new Object(), null);
+
+        assertNull(RequestTimings.current());
+        Timer db = meterRegistry.get("http.server.requests.stages").tag("uri", "/users").tag("stage", "db").timer();
+        Timer render = meterRegistry.get("http.server.requests.stages").tag("uri", "/users").tag("stage", "render").timer();
+        assertEquals(1, db.count());
+        assertTrue(db.totalTime(TimeUnit.MILLISECONDS) >= 20);
+        assertTrue(render.totalTime(TimeUnit.MILLISECONDS) >= 10);
+        assertEquals(6, meterRegistry.find("http.server.requests.stages").timers().size());
+    }
+}
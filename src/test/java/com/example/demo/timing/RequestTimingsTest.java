@@ -0,0 +1,77 @@
+package com.example.demo.timing;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class RequestTimingsTest {
+
+    @AfterEach
+    public void cleanup() {
+        RequestTimings.finish();
+    }
+
+    @Test
+    public void Should_AttributeTimeToInnermostStage_When_StagesAreNested() throws InterruptedException {
+        RequestTimings.start();
+        try (RequestTimings.Scope service = RequestTimings.stage(RequestTimings.Stage.SERVICE)) {
+            Thread.sleep(20);
+            try (RequestTimings.Scope db = RequestTimings.stage(RequestTimings.Stage.DB)) {
+                Thread.sleep(50);
+            }
+        }
+        RequestTimings timings = RequestTimings.finish();
+
+        assertNotNull(timings);
+        assertTrue(millis(timings.getNanos(RequestTimings.Stage.DB)) >= 50);
+        assertTrue(millis(timings.getNanos(RequestTimings.Stage.SERVICE)) >= 20);
+        // Had the service stage included the nested one, the two stages would add up to more than the request took.
+        assertTrue(timings.getNanos(RequestTimings.Stage.SERVICE) + timings.getNanos(RequestTimings.Stage.DB)
+                <= timings.getTotalNanos(), "Service stage includes the nested database stage");
+        assertEquals(1, timings.getCalls(RequestTimings.Stage.DB));
+        long stagesNanos = timings.toMap().values().stream().mapToLong(Long::longValue).sum();
+        assertEquals(timings.getTotalNanos(), stagesNanos + timings.getOtherNanos());
+    }
+
+    @Test
+    public void Should_DoNothing_When_NoRequestIsTimed() {
+        assertNull(RequestTimings.current());
+        assertDoesNotThrow(() -> RequestTimings.stage(RequestTimings.Stage.CACHE).close());
+        assertNull(RequestTimings.finish());
+    }
+
+    @Test
+    public void Should_CloseOpenStages_When_RequestFinishes() throws InterruptedException {
+        RequestTimings.start();
+        RequestTimings.Scope render = RequestTimings.stage(RequestTimings.Stage.RENDER);
+        Thread.sleep(10);
+        RequestTimings timings = RequestTimings.finish();
+        render.close();
+
+        assertNotNull(timings);
+        assertTrue(millis(timings.getNanos(RequestTimings.Stage.RENDER)) >= 10);
+        assertNull(RequestTimings.current());
+    }
+
+    @Test
+    public void Should_CountOnce_When_ScopeIsClosedTwice() {
+        RequestTimings.start();
+        try (RequestTimings.Scope service = RequestTimings.stage(RequestTimings.Stage.SERVICE)) {
+            RequestTimings.Scope cache = RequestTimings.stage(RequestTimings.Stage.CACHE);
+            cache.close();
+            cache.close();
+            assertNotNull(RequestTimings.current());
+        }
+        RequestTimings timings = RequestTimings.finish();
+
+        assertEquals(1, timings.getCalls(RequestTimings.Stage.SERVICE));
+        assertEquals(1, timings.getCalls(RequestTimings.Stage.CACHE));
+    }
+
+    private static long millis(long nanos) {
+        return TimeUnit.NANOSECONDS.toMillis(nanos);
+    }
+}
@@ -0,0 +1,92 @@
+package com.example.demo.util;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.lang.management.ManagementFactory;
+import java.util.Properties;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * Measures the bytes an operation allocates on the calling thread, using the JVM's per-thread allocation counter,
+ * and fails when they exceed the operation's budget.
+ * Budgets are read from {@code allocation-budgets.properties} on the test classpath, and any of them can be
+ * overridden with a system property, e.g. {@code -Dallocation.budget.User.hashCode=16}.
+ * The operation is warmed up first, so the JIT has compiled it and removed what escape analysis can remove,
+ * and the result is the average over the measured iterations. Work done on other threads is not counted.
+ */
+public final class AllocationBudget {
+
+    private static final Logger LOG = LoggerFactory.getLogger(AllocationBudget.class);
+    private static final String BUDGETS_RESOURCE = "/allocation-budgets.properties";
+    private static final String PROPERTY_PREFIX = "allocation.budget.";
+    private static final Properties BUDGETS = loadBudgets();
+
+    private AllocationBudget() {}
+
+    /**
+     * Runs the operation {@code warmups} times unmeasured, then {@code iterations} times measured,
+     * and asserts that it allocated at most its budget per iteration on average.
+     * Returns the measured bytes per iteration.
+     */
+    public static long assertWithinBudget(String operation, int warmups, int iterations, Runnable action) {
+        long budget = budgetOf(operation);
+        long bytesPerOperation = measure(warmups, iterations, action);
+        LOG.info("{} allocates {} bytes per operation, budget {}.", operation, bytesPerOperation, budget);
+        assertTrue(bytesPerOperation <= budget,
+                operation + " allocates " + bytesPerOperation + " bytes per operation, over its budget of " + budget + ".");
+        return bytesPerOperation;
+    }
+
+    public static long measure(int warmups, int iterations, Runnable action) {
+        com.sun.management.ThreadMXBean threadBean = threadBean();
+        for (int i = 0; i < warmups; i++) {
+            action.run();
+        }
+        // The counter itself is read twice per measurement, so its own cost is measured and subtracted.
+        long overhead = threadBean.getCurrentThreadAllocatedBytes();
+        overhead = threadBean.getCurrentThreadAllocatedBytes() - overhead;
+        long before = threadBean.getCurrentThreadAllocatedBytes();
+        for (int i = 0; i < iterations; i++) {
+            action.run();
+        }
+        long allocated = threadBean.getCurrentThreadAllocatedBytes() - before - overhead;
+        return Math.max(0, allocated) / iterations;
+    }
+
+    private static long budgetOf(String operation) {
+        String budget = System.getProperty(PROPERTY_PREFIX + operation, BUDGETS.getProperty(operation));
+        if (budget == null) {
+            throw new IllegalArgumentException("No allocation budget configured for " + operation + ".");
+        }
+        return Long.parseLong(budget.trim());
+    }
+
+    private static com.sun.management.ThreadMXBean threadBean() {
+        boolean supported = ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean bean
+                && bean.isThreadAllocatedMemorySupported();
+        assumeTrue(supported, "Thread allocation counters are not supported by this JVM.");
+        com.sun.management.ThreadMXBean threadBean = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        if (!threadBean.isThreadAllocatedMemoryEnabled()) {
+            threadBean.setThreadAllocatedMemoryEnabled(true);
+        }
+        return threadBean;
+    }
+
+    private static Properties loadBudgets() {
+        Properties budgets = new Properties();
+        try (InputStream input = AllocationBudget.class.getResourceAsStream(BUDGETS_RESOURCE)) {
+            if (input != null) {
+                budgets.load(input);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return budgets;
+    }
+}